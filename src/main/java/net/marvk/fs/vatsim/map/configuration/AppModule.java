@@ -11,6 +11,7 @@ import net.marvk.fs.vatsim.map.view.preferences.PreferencesView;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
@@ -20,9 +21,13 @@ public class AppModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(VatsimApiUrlProvider.class).to(UrlProviderV3.class).in(Singleton.class);
-        bind(VatsimApiDataSource.class).annotatedWith(Names.named("httpDataSource"))
+        bind(VatsimApiDataSource.class).annotatedWith(Names.named("vatsimHttpDataSource"))
                                        .to(HttpDataSource.class)
                                        .in(Singleton.class);
+        bind(ConditionalHttpDataSource.class).in(Singleton.class);
+        bind(VatsimApiDataSource.class).annotatedWith(Names.named("httpDataSource"))
+                                       .to(ConditionalHttpDataSource.class);
+        bind(Duration.class).annotatedWith(Names.named("dataFeedTimeout")).toInstance(Duration.ofSeconds(10));
         bind(VatsimApiDataSource.class).to(ProxyDataSource.class).in(Singleton.class);
         bind(AirportRepository.class).in(Singleton.class);
         bind(ClientRepository.class).in(Singleton.class);
@@ -72,15 +77,21 @@ public class AppModule extends AbstractModule {
     @Provides
     @Singleton
     @Named("world")
-    public PolygonRepository world(@Named("worldShapefileUrl") final List<String> shapefileUrls) throws IOException {
-        return new PolygonRepository(shapefileUrls, shpUrls(shapefileUrls));
+    public PolygonRepository world(@Named("worldShapefileUrl") final List<String> shapefileUrls, final GeometryCache geometryCache) throws IOException {
+        return new PolygonRepository(shapefileUrls, shpUrls(shapefileUrls), geometryCache);
     }
 
     @Provides
     @Singleton
     @Named("lakes")
-    public PolygonRepository lakes(@Named("lakesShapefileUrl") final List<String> shapefileUrls) throws IOException {
-        return new PolygonRepository(shapefileUrls, shpUrls(shapefileUrls));
+    public PolygonRepository lakes(@Named("lakesShapefileUrl") final List<String> shapefileUrls, final GeometryCache geometryCache) throws IOException {
+        return new PolygonRepository(shapefileUrls, shpUrls(shapefileUrls), geometryCache);
+    }
+
+    @Provides
+    @Singleton
+    public GeometryCache geometryCache(@Named("userCacheDir") final Path userCacheDir) {
+        return new GeometryCache(userCacheDir.resolve("geometry"));
     }
 
     private static List<URL> shpUrls(final List<String> shapefileUrls) {
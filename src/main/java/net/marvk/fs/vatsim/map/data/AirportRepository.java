@@ -4,10 +4,12 @@ import com.github.davidmoten.rtree2.Entry;
 import com.github.davidmoten.rtree2.RTree;
 import com.github.davidmoten.rtree2.geometry.Geometries;
 import com.github.davidmoten.rtree2.geometry.Point;
+import com.github.davidmoten.rtree2.geometry.Rectangle;
 import com.github.davidmoten.rtree2.internal.EntryDefault;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
 import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
 import lombok.extern.log4j.Log4j2;
 import net.marvk.fs.vatsim.api.VatsimApi;
 import net.marvk.fs.vatsim.api.VatsimApiException;
@@ -25,7 +27,8 @@ public class AirportRepository extends ProviderRepository<Airport, AirportReposi
     private final Lookup<Airport> iataLookup = Lookup.fromCollection(Airport::getIatas);
     private final FlightInformationRegionBoundaryRepository flightInformationRegionBoundaryRepository;
     private final CountryRepository countryRepository;
-    private RTree<Airport, Point> rTree = RTree.create();
+    private volatile RTree<Airport, Point> rTree = RTree.create();
+    private final DataVisitor<List<String>> searchableTextVisitor = new SearchableTextDataVisitor();
 
     @Inject
     public AirportRepository(final VatsimApi vatsimApi, final Provider<Airport> provider, final FlightInformationRegionBoundaryRepository flightInformationRegionBoundaryRepository, final CountryRepository countryRepository) {
@@ -44,6 +47,11 @@ public class AirportRepository extends ProviderRepository<Airport, AirportReposi
         return airport.getIcao();
     }
 
+    @Override
+    protected List<String> searchableText(final Airport airport) {
+        return searchableTextVisitor.visit(airport);
+    }
+
     @Override
     protected Collection<VatsimAirportWrapper> extractModels(final VatsimApi api) throws VatsimApiException {
         return api
@@ -97,8 +105,8 @@ public class AirportRepository extends ProviderRepository<Airport, AirportReposi
     }
 
     @Override
-    protected void updateList(final Collection<VatsimAirportWrapper> updatedModels) {
-        super.updateList(updatedModels);
+    protected void applyChanges(final ChangeSet<Airport, VatsimAirportWrapper> changeSet) {
+        super.applyChanges(changeSet);
         createRTree();
     }
 
@@ -127,6 +135,17 @@ public class AirportRepository extends ProviderRepository<Airport, AirportReposi
                             .map(Entry::value);
     }
 
+    public List<Airport> searchByRectangle(final Rectangle2D rectangle) {
+        final List<Airport> result = new ArrayList<>();
+        final Rectangle query = Geometries.rectangle(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY());
+
+        for (final Entry<Airport, Point> entry : rTree.search(query)) {
+            result.add(entry.value());
+        }
+
+        return result;
+    }
+
     private static EntryDefault<Airport, Point> entry(final Airport e) {
         return new EntryDefault<>(e, Geometries.pointGeographic(e.getPosition().getX(), e.getPosition().getY()));
     }
@@ -0,0 +1,108 @@
+package net.marvk.fs.vatsim.map.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+final class ChangeSet<ViewModel, Model> {
+    private final List<Change<ViewModel, Model>> added;
+    private final List<Change<ViewModel, Model>> updated;
+    private final List<Change<ViewModel, Model>> removed;
+
+    private Object prepared;
+    private String sourceVersion;
+
+    ChangeSet(final int expectedSize) {
+        this.added = new ArrayList<>();
+        this.updated = new ArrayList<>(expectedSize);
+        this.removed = new ArrayList<>();
+    }
+
+    void add(final String key, final ViewModel viewModel, final Model model) {
+        added.add(new Change<>(key, viewModel, model));
+    }
+
+    void update(final String key, final ViewModel viewModel, final Model model) {
+        updated.add(new Change<>(key, viewModel, model));
+    }
+
+    void remove(final String key, final ViewModel viewModel) {
+        removed.add(new Change<>(key, viewModel, null));
+    }
+
+    List<Change<ViewModel, Model>> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    List<Change<ViewModel, Model>> getUpdated() {
+        return Collections.unmodifiableList(updated);
+    }
+
+    List<Change<ViewModel, Model>> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T getPrepared() {
+        return (T) prepared;
+    }
+
+    void setPrepared(final Object prepared) {
+        this.prepared = prepared;
+    }
+
+    /**
+     * @return the version of the source the models of this change set were extracted from, {@code null} if unknown
+     */
+    String getSourceVersion() {
+        return sourceVersion;
+    }
+
+    void setSourceVersion(final String sourceVersion) {
+        this.sourceVersion = sourceVersion;
+    }
+
+    boolean isEmpty() {
+        return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet{added=%d, updated=%d, removed=%d}".formatted(added.size(), updated.size(), removed.size());
+    }
+
+    static final class Change<ViewModel, Model> {
+        private final String key;
+        private final ViewModel viewModel;
+        private final Model model;
+
+        private Object prepared;
+
+        private Change(final String key, final ViewModel viewModel, final Model model) {
+            this.key = key;
+            this.viewModel = viewModel;
+            this.model = model;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        ViewModel getViewModel() {
+            return viewModel;
+        }
+
+        Model getModel() {
+            return model;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T getPrepared() {
+            return (T) prepared;
+        }
+
+        void setPrepared(final Object prepared) {
+            this.prepared = prepared;
+        }
+    }
+}
@@ -4,13 +4,18 @@ import com.github.davidmoten.rtree2.Entry;
 import com.github.davidmoten.rtree2.RTree;
 import com.github.davidmoten.rtree2.geometry.Geometries;
 import com.github.davidmoten.rtree2.geometry.Point;
-import com.github.davidmoten.rtree2.internal.EntryDefault;
+import com.github.davidmoten.rtree2.geometry.Rectangle;
 import com.google.inject.Inject;
 import javafx.beans.property.ReadOnlyListWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import lombok.Value;
 import lombok.extern.log4j.Log4j2;
+import net.marvk.fs.vatsim.api.SimpleVatsimApi;
 import net.marvk.fs.vatsim.api.VatsimApi;
 import net.marvk.fs.vatsim.api.VatsimApiException;
 import net.marvk.fs.vatsim.api.data.VatsimClient;
@@ -18,10 +23,11 @@ import net.marvk.fs.vatsim.api.data.VatsimController;
 import net.marvk.fs.vatsim.api.data.VatsimFlightPlan;
 import net.marvk.fs.vatsim.api.data.VatsimPilot;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Log4j2
@@ -32,16 +38,29 @@ public class ClientRepository extends SimpleDataRepository<Client, VatsimClient>
     private final CallsignParser callsignParser;
     private final ClientTypeMapper clientTypeMapper;
     private final FlightInformationRegionBoundaryRepository flightInformationRegionBoundaryRepository;
-    private RTree<Pilot, Point> rTree = RTree.create();
+    private final ConditionalHttpDataSource dataSource;
+    /**
+     * The injected api caches the feed, so it may return a feed that is older than the one checked in
+     * {@link #isUnchanged()}. Clients are parsed from the conditional source directly.
+     */
+    private final VatsimApi feedApi;
+    private final Map<Pilot, Point> indexedPositions = new IdentityHashMap<>();
+    private RTree<Pilot, Point> preparedRTree = RTree.star().create();
+    private volatile RTree<Pilot, Point> rTree = preparedRTree;
+    private final DataVisitor<List<String>> searchableTextVisitor = new SearchableTextDataVisitor();
+    private volatile String appliedUpdateTimestamp;
+    private final ReadOnlyObjectWrapper<Instant> updateTimestamp = new ReadOnlyObjectWrapper<>();
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     @Inject
-    public ClientRepository(final VatsimApi vatsimApi, final AirportRepository airportRepository, final CallsignParser callsignParser, final ClientTypeMapper clientTypeMapper, final FlightInformationRegionBoundaryRepository flightInformationRegionBoundaryRepository) {
+    public ClientRepository(final VatsimApi vatsimApi, final AirportRepository airportRepository, final CallsignParser callsignParser, final ClientTypeMapper clientTypeMapper, final FlightInformationRegionBoundaryRepository flightInformationRegionBoundaryRepository, final ConditionalHttpDataSource dataSource) {
         super(vatsimApi);
         this.airportRepository = airportRepository;
         this.callsignParser = callsignParser;
         this.clientTypeMapper = clientTypeMapper;
         this.flightInformationRegionBoundaryRepository = flightInformationRegionBoundaryRepository;
+        this.dataSource = dataSource;
+        this.feedApi = new SimpleVatsimApi(dataSource);
 
         // yikes, but it works, sooo...
         pilots = new ReadOnlyListWrapper<Pilot>(new FilteredList(list(), e -> e instanceof Pilot));
@@ -67,47 +86,99 @@ public class ClientRepository extends SimpleDataRepository<Client, VatsimClient>
         return client.getCid() + client.getCallsign() + client.getClientType();
     }
 
+    @Override
+    protected List<String> searchableText(final Client client) {
+        return searchableTextVisitor.visit(client);
+    }
+
+    @Override
+    protected boolean isUnchanged() throws VatsimApiException {
+        final String fetched = dataSource.refresh();
+        return fetched != null && fetched.equals(appliedUpdateTimestamp);
+    }
+
     @Override
     protected Collection<VatsimClient> extractModels(final VatsimApi api) throws VatsimApiException {
+        return extract(api).getModels();
+    }
+
+    @Override
+    protected Extracted<VatsimClient> extract(final VatsimApi api) throws VatsimApiException {
         try {
-            return api.data().getClients();
+            // The data source is held so no other reload can fetch a newer feed before its timestamp is read
+            synchronized (dataSource) {
+                final Collection<VatsimClient> clients = feedApi.data().getClients();
+                return new Extracted<>(clients, dataSource.getDataUpdateTimestamp());
+            }
         } catch (final Throwable t) {
             throw new VatsimApiException("Failed to load items", t);
         }
     }
 
     @Override
-    protected void onAdd(final Client toAdd, final VatsimClient vatsimClient) {
-        switch (toAdd.getClientType()) {
+    protected void prepare(final ChangeSet<Client, VatsimClient> changeSet) {
+        // Enrichment only reads from the static repositories, so every client can be prepared independently
+        Stream.concat(changeSet.getUpdated().stream(), changeSet.getAdded().stream())
+              .parallel()
+              .forEach(this::prepare);
+        changeSet.setPrepared(prepareRTree(changeSet));
+    }
+
+    private void prepare(final ChangeSet.Change<Client, VatsimClient> change) {
+        switch (change.getViewModel().getClientType()) {
+            case CONTROLLER, ATIS -> change.setPrepared(callsignParser.parse((VatsimController) change.getModel()));
+            case PILOT -> change.setPrepared(enrich((VatsimPilot) change.getModel()));
+        }
+    }
+
+    private PilotEnrichment enrich(final VatsimPilot vatsimPilot) {
+        final Pilot.Parsed parsed = Pilot.Parsed.of(vatsimPilot);
+        final Point2D position = parsed.getPosition();
+        final VatsimFlightPlan flightPlan = vatsimPilot.getFlightPlan();
+
+        final Airport departure;
+        final Airport arrival;
+        final Airport alternative;
+
+        if (flightPlan == null) {
+            departure = null;
+            arrival = null;
+            alternative = null;
+        } else {
+            departure = getAirport(flightPlan.getDepartureAirport());
+            arrival = getAirport(flightPlan.getArrivalAirport());
+            alternative = getAirport(flightPlan.getAlternateAirport());
+        }
+
+        final List<FlightInformationRegionBoundary> firbs = position == null
+                ? Collections.emptyList()
+                : flightInformationRegionBoundaryRepository.getByPosition(position);
+
+        final Eta eta = Eta.of(position, parsed.getGroundSpeed(), departure, arrival);
+
+        return new PilotEnrichment(parsed, departure, arrival, alternative, firbs, eta);
+    }
+
+    @Override
+    protected void setFromChange(final ChangeSet.Change<Client, VatsimClient> change) {
+        switch (change.getViewModel().getClientType()) {
             case CONTROLLER, ATIS -> {
-                final Controller controller = (Controller) toAdd;
-                controller.setFromCallsignParserResult(callsignParser.parse((VatsimController) vatsimClient));
+                final Controller controller = (Controller) change.getViewModel();
+                controller.setFromModel(change.getModel());
+                controller.setFromCallsignParserResult(change.getPrepared());
             }
             case PILOT -> {
-                final Pilot pilot = (Pilot) toAdd;
-                final VatsimFlightPlan flightPlan = ((VatsimPilot) vatsimClient).getFlightPlan();
-                if (flightPlan != null) {
-                    setAirports(pilot, flightPlan);
-                }
-                final List<FlightInformationRegionBoundary> firbs =
-                        flightInformationRegionBoundaryRepository.getByPosition(((Pilot) toAdd).getPosition());
-                ((Pilot) toAdd).flightInformationRegionBoundariesWritable().setAll(firbs);
+                final Pilot pilot = (Pilot) change.getViewModel();
+                final PilotEnrichment enrichment = change.getPrepared();
+                pilot.setFromModel(change.getModel(), enrichment.getParsed(), enrichment.getEta());
+                pilot.getFlightPlan().departureAirportPropertyWritable().set(enrichment.getDeparture());
+                pilot.getFlightPlan().arrivalAirportPropertyWritable().set(enrichment.getArrival());
+                pilot.getFlightPlan().alternativeAirportPropertyWritable().set(enrichment.getAlternative());
+                pilot.flightInformationRegionBoundariesWritable().setAll(enrichment.getFirbs());
             }
         }
     }
 
-    private void setAirports(final Pilot pilot, final VatsimFlightPlan flightPlan) {
-        pilot.getFlightPlan()
-             .departureAirportPropertyWritable()
-             .set(getAirport(flightPlan.getDepartureAirport().strip()));
-        pilot.getFlightPlan()
-             .arrivalAirportPropertyWritable()
-             .set(getAirport(flightPlan.getArrivalAirport().strip()));
-        pilot.getFlightPlan()
-             .alternativeAirportPropertyWritable()
-             .set(getAirport(flightPlan.getAlternateAirport().strip()));
-    }
-
     @Override
     protected void onRemove(final Client toRemove) {
         switch (toRemove.getClientType()) {
@@ -126,27 +197,76 @@ public class ClientRepository extends SimpleDataRepository<Client, VatsimClient>
     }
 
     @Override
-    protected void onUpdate(final Client toUpdate, final VatsimClient vatsimClient) {
-        onAdd(toUpdate, vatsimClient);
+    protected void applyChanges(final ChangeSet<Client, VatsimClient> changeSet) {
+        super.applyChanges(changeSet);
+        rTree = changeSet.getPrepared();
+        appliedUpdateTimestamp = changeSet.getSourceVersion();
+        updateTimestamp.set(parseUpdateTimestamp(appliedUpdateTimestamp));
     }
 
-    @Override
-    protected void updateList(final Collection<VatsimClient> updatedModels) {
-        super.updateList(updatedModels);
-        createRTree();
+    private RTree<Pilot, Point> prepareRTree(final ChangeSet<Client, VatsimClient> changeSet) {
+        RTree<Pilot, Point> result = preparedRTree;
+
+        for (final ChangeSet.Change<Client, VatsimClient> change : changeSet.getRemoved()) {
+            if (change.getViewModel() instanceof Pilot) {
+                result = unindex(result, (Pilot) change.getViewModel());
+            }
+        }
+
+        for (final ChangeSet.Change<Client, VatsimClient> change : changeSet.getUpdated()) {
+            if (change.getViewModel() instanceof Pilot) {
+                result = reindex(result, change);
+            }
+        }
+
+        for (final ChangeSet.Change<Client, VatsimClient> change : changeSet.getAdded()) {
+            if (change.getViewModel() instanceof Pilot) {
+                result = reindex(result, change);
+            }
+        }
+
+        preparedRTree = result;
+        return result;
     }
 
-    private void createRTree() {
-        final List<Entry<Pilot, Point>> list = pilots
-                .stream()
-                .filter(e -> e.getPosition().getX() >= -180)
-                .filter(e -> e.getPosition().getX() <= 180)
-                .filter(e -> e.getPosition().getY() >= -90)
-                .filter(e -> e.getPosition().getY() <= 90)
-                .map(ClientRepository::entry)
-                .collect(Collectors.toList());
+    private RTree<Pilot, Point> unindex(final RTree<Pilot, Point> tree, final Pilot pilot) {
+        final Point indexed = indexedPositions.remove(pilot);
 
-        rTree = RTree.star().create(list);
+        if (indexed == null) {
+            return tree;
+        }
+
+        return tree.delete(pilot, indexed);
+    }
+
+    private RTree<Pilot, Point> reindex(final RTree<Pilot, Point> tree, final ChangeSet.Change<Client, VatsimClient> change) {
+        final Pilot pilot = (Pilot) change.getViewModel();
+        final PilotEnrichment enrichment = change.getPrepared();
+
+        final Point indexed = indexedPositions.get(pilot);
+        final Point current = point(enrichment.getParsed().getPosition());
+
+        if (indexed == null && current == null) {
+            return tree;
+        }
+
+        if (indexed != null && current != null && indexed.x() == current.x() && indexed.y() == current.y()) {
+            return tree;
+        }
+
+        RTree<Pilot, Point> result = tree;
+
+        if (indexed != null) {
+            result = result.delete(pilot, indexed);
+            indexedPositions.remove(pilot);
+        }
+
+        if (current != null) {
+            result = result.add(pilot, current);
+            indexedPositions.put(pilot, current);
+        }
+
+        return result;
     }
 
     public List<Pilot> searchByPosition(final Point2D p, final double maxDistance, final int maxCount) {
@@ -167,8 +287,47 @@ public class ClientRepository extends SimpleDataRepository<Client, VatsimClient>
                             .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private static EntryDefault<Pilot, Point> entry(final Pilot e) {
-        return new EntryDefault<>(e, Geometries.pointGeographic(e.getPosition().getX(), e.getPosition().getY()));
+    public List<Pilot> searchByRectangle(final Rectangle2D rectangle) {
+        final List<Pilot> result = new ArrayList<>();
+        final Rectangle query = Geometries.rectangle(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY());
+
+        for (final Entry<Pilot, Point> entry : rTree.search(query)) {
+            result.add(entry.value());
+        }
+
+        return result;
+    }
+
+    private static Point point(final Point2D position) {
+        if (position == null || position.getX() < -180 || position.getX() > 180 || position.getY() < -90 || position.getY() > 90) {
+            return null;
+        }
+
+        return Geometries.pointGeographic(position.getX(), position.getY());
+    }
+
+    private static Instant parseUpdateTimestamp(final String updateTimestamp) {
+        if (updateTimestamp == null) {
+            return null;
+        }
+
+        try {
+            return Instant.parse(updateTimestamp);
+        } catch (final DateTimeParseException e) {
+            log.warn("Failed to parse update timestamp \"%s\"".formatted(updateTimestamp));
+            return null;
+        }
+    }
+
+    /**
+     * @return the update timestamp of the feed the current clients were loaded from, {@code null} if unknown
+     */
+    public Instant getUpdateTimestamp() {
+        return updateTimestamp.get();
+    }
+
+    public ReadOnlyObjectProperty<Instant> updateTimestampProperty() {
+        return updateTimestamp.getReadOnlyProperty();
     }
 
     public ObservableList<Pilot> pilots() {
@@ -179,7 +338,9 @@ public class ClientRepository extends SimpleDataRepository<Client, VatsimClient>
         return controllers.getReadOnlyProperty();
     }
 
-    private Airport getAirport(final String icao) {
+    private Airport getAirport(final String nullableIcao) {
+        final String icao = nullableIcao == null ? null : nullableIcao.strip();
+
         if (icao == null || icao.isBlank() || "none".equalsIgnoreCase(icao)) {
             return null;
         }
@@ -196,4 +357,14 @@ public class ClientRepository extends SimpleDataRepository<Client, VatsimClient>
 
         return airports.get(0);
     }
+
+    @Value
+    private static class PilotEnrichment {
+        Pilot.Parsed parsed;
+        Airport departure;
+        Airport arrival;
+        Airport alternative;
+        List<FlightInformationRegionBoundary> firbs;
+        Eta eta;
+    }
 }
@@ -0,0 +1,173 @@
+package net.marvk.fs.vatsim.map.data;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import lombok.extern.log4j.Log4j2;
+import net.marvk.fs.vatsim.api.VatsimApiDataSource;
+import net.marvk.fs.vatsim.api.VatsimApiException;
+import net.marvk.fs.vatsim.api.VatsimApiUrlProvider;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fetches the data feed with conditional requests and delegates everything else.
+ * <p>
+ * The ETag and Last-Modified headers of the last response are sent back as If-None-Match and If-Modified-Since, a
+ * {@code 304 Not Modified} response reuses the last body. The update timestamp of the feed is extracted without
+ * parsing the feed, so repositories can skip a reload if the feed did not change since they last applied it.
+ */
+@Log4j2
+public class ConditionalHttpDataSource implements VatsimApiDataSource {
+    private static final Pattern UPDATE_TIMESTAMP = Pattern.compile("\"update_timestamp\"\\s*:\\s*\"([^\"]*)\"");
+    private static final int UPDATE_TIMESTAMP_SEARCH_LENGTH = 1024;
+
+    private final VatsimApiDataSource dataSource;
+    private final Supplier<String> dataUrl;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    private String body;
+    private String etag;
+    private String lastModified;
+    private String updateTimestamp;
+    private String dataUpdateTimestamp;
+
+    /**
+     * Whether the body was refreshed but not yet returned by {@link #data()}
+     */
+    private boolean refreshed;
+
+    @Inject
+    public ConditionalHttpDataSource(
+            @Named("vatsimHttpDataSource") final VatsimApiDataSource dataSource,
+            final VatsimApiUrlProvider urlProvider,
+            @Named("dataFeedTimeout") final Duration timeout
+    ) {
+        this(dataSource, urlProvider::data, timeout);
+    }
+
+    ConditionalHttpDataSource(final VatsimApiDataSource dataSource, final String dataUrl, final Duration timeout) {
+        this(dataSource, () -> dataUrl, timeout);
+    }
+
+    private ConditionalHttpDataSource(final VatsimApiDataSource dataSource, final Supplier<String> dataUrl, final Duration timeout) {
+        this.dataSource = dataSource;
+        this.dataUrl = dataUrl;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                                    .connectTimeout(timeout)
+                                    .followRedirects(HttpClient.Redirect.NORMAL)
+                                    .build();
+    }
+
+    /**
+     * Fetches the data feed unless it was not modified since the last request. The next call to {@link #data()}
+     * returns the refreshed feed without another request.
+     *
+     * @return the update timestamp of the feed, or {@code null} if the feed has none
+     *
+     * @throws VatsimApiException if the feed could not be fetched
+     */
+    public synchronized String refresh() throws VatsimApiException {
+        final String dataUrl = this.dataUrl.get();
+        final HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(dataUrl))
+                                                       .timeout(timeout)
+                                                       .GET();
+
+        if (body != null) {
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+        }
+
+        final HttpResponse<String> response = send(builder.build(), dataUrl);
+
+        if (response.statusCode() == 304 && body != null) {
+            log.debug("Data feed not modified");
+        } else if (response.statusCode() == 200) {
+            body = response.body();
+            etag = response.headers().firstValue("ETag").orElse(null);
+            lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            updateTimestamp = updateTimestamp(body);
+        } else {
+            throw new VatsimApiException(new IOException("Unexpected status %d for %s".formatted(response.statusCode(), dataUrl)));
+        }
+
+        refreshed = true;
+        return updateTimestamp;
+    }
+
+    private HttpResponse<String> send(final HttpRequest request, final String dataUrl) throws VatsimApiException {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (final IOException e) {
+            throw new VatsimApiException("Failed to fetch " + dataUrl, e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VatsimApiException("Interrupted while fetching " + dataUrl, e);
+        }
+    }
+
+    @Override
+    public synchronized String data() throws VatsimApiException {
+        if (!refreshed) {
+            refresh();
+        }
+
+        refreshed = false;
+        dataUpdateTimestamp = updateTimestamp;
+        return body;
+    }
+
+    /**
+     * @return the update timestamp of the feed last returned by {@link #data()}, or {@code null} if it has none
+     */
+    public synchronized String getDataUpdateTimestamp() {
+        return dataUpdateTimestamp;
+    }
+
+    @Override
+    public String metar(final String airportIcao) throws VatsimApiException {
+        return dataSource.metar(airportIcao);
+    }
+
+    @Override
+    public String firBoundaries() throws VatsimApiException {
+        return dataSource.firBoundaries();
+    }
+
+    @Override
+    public String vatSpy() throws VatsimApiException {
+        return dataSource.vatSpy();
+    }
+
+    @Override
+    public String mapData() throws VatsimApiException {
+        return dataSource.mapData();
+    }
+
+    /**
+     * The update timestamp is part of the general section at the start of the feed, so only the start is searched
+     */
+    static String updateTimestamp(final String body) {
+        if (body == null) {
+            return null;
+        }
+
+        final Matcher matcher = UPDATE_TIMESTAMP.matcher(body);
+        matcher.region(0, Math.min(body.length(), UPDATE_TIMESTAMP_SEARCH_LENGTH));
+
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
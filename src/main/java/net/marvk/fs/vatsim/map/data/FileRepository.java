@@ -10,26 +10,30 @@ import lombok.extern.log4j.Log4j2;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Stream;
 
+/**
+ * Persists elements in a {@link JournalElementStore} in the element directory. Elements that were saved as individual
+ * files by earlier versions are imported once if there is no journal yet.
+ */
 @Log4j2
 public abstract class FileRepository<E extends UniquelyIdentifiable> implements Repository<E> {
+    private static final String JOURNAL_FILE_NAME = "elements.journal";
+
     protected final Path path;
     protected final Adapter<E> adapter;
     private final ObservableList<E> items = FXCollections.observableArrayList();
     private final SortedList<E> sortedList = new SortedList<>(items);
     private final HashMap<UUID, E> uuidMap = new HashMap<>();
+    private final JournalElementStore store;
 
     @Inject
     public FileRepository(final Path path, final Adapter<E> adapter) {
         this.adapter = adapter;
 
         this.path = tryCreateElementDirectory(path);
+        this.store = canSaveToDisk() ? new JournalElementStore(this.path.resolve(JOURNAL_FILE_NAME)) : null;
         if (canSaveToDisk()) {
             tryLoadingExistingElements();
         }
@@ -53,13 +57,36 @@ public abstract class FileRepository<E extends UniquelyIdentifiable> implements
     protected abstract String directoryName();
 
     protected void tryLoadingExistingElements() {
+        if (!store.exists()) {
+            importLegacyFiles();
+            return;
+        }
+
+        try {
+            log.info("Loading %s from %s".formatted(plural(), path));
+            store.load()
+                 .values()
+                 .stream()
+                 .map(this::deserialize)
+                 .filter(Objects::nonNull)
+                 .forEach(this::createNoWrite);
+        } catch (final IOException e) {
+            log.error("Failed to read %s journal".formatted(singular()), e);
+        }
+    }
+
+    private void importLegacyFiles() {
         try (Stream<Path> paths = Files.list(path)) {
-            log.info("Loading %s from %s".formatted(singular(), path));
-            paths.map(this::read)
+            paths.filter(e -> e.getFileName().toString().endsWith(".json"))
+                 .map(this::read)
                  .filter(Objects::nonNull)
                  .map(this::deserialize)
                  .filter(Objects::nonNull)
-                 .forEach(this::createNoWrite);
+                 .forEach(e -> {
+                     createNoWrite(e);
+                     writeElement(e);
+                 });
+            store.flush();
         } catch (final IOException e) {
             log.error("Failed to read %s directory".formatted(singular()), e);
         }
@@ -67,7 +94,7 @@ public abstract class FileRepository<E extends UniquelyIdentifiable> implements
 
     private String read(final Path path) {
         try {
-            log.info("Loading %s file %s".formatted(singular(), path));
+            log.info("Importing %s file %s".formatted(singular(), path));
             return Files.readString(path);
         } catch (final IOException e) {
             log.error("Failed to load %s file".formatted(singular()), e);
@@ -112,11 +139,7 @@ public abstract class FileRepository<E extends UniquelyIdentifiable> implements
     @Override
     public void create(final E e) throws RepositoryException {
         createNoWrite(e);
-        try {
-            writeFile(e);
-        } catch (final IOException ex) {
-            throw new RepositoryException(ex);
-        }
+        writeElement(e);
     }
 
     private void createNoWrite(final E e) {
@@ -128,8 +151,16 @@ public abstract class FileRepository<E extends UniquelyIdentifiable> implements
     @Override
     public void update(final E e) throws RepositoryException {
         log.debug(("Updating %s %s").formatted(singular(), elementDescriptor(e)));
-        delete(e);
-        create(e);
+
+        final E previous = uuidMap.put(e.getUuid(), e);
+        final int index = previous == null ? -1 : items.indexOf(previous);
+        if (index >= 0) {
+            items.set(index, e);
+        } else {
+            items.add(e);
+        }
+
+        writeElement(e);
     }
 
     @Override
@@ -141,32 +172,15 @@ public abstract class FileRepository<E extends UniquelyIdentifiable> implements
         items.remove(toRemove);
         items.remove(e);
 
-        try {
-            deleteFile(e);
-        } catch (final IOException ex) {
-            throw new RepositoryException(ex);
-        }
-    }
-
-    private void writeFile(final E e) throws IOException {
         if (canSaveToDisk()) {
-            log.debug(("Writing %s file %s").formatted(singular(), elementDescriptor(e)));
-            Files.writeString(path(e), adapter.serialize(e), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            store.remove(e.getUuid());
         }
     }
 
-    private void deleteFile(final E e) throws IOException {
+    private void writeElement(final E e) {
         if (canSaveToDisk()) {
-            log.debug(("Deleting %s file %s").formatted(singular(), elementDescriptor(e)));
-            Files.delete(path(e.getUuid()));
+            log.debug(("Writing %s %s").formatted(singular(), elementDescriptor(e)));
+            store.put(e.getUuid(), adapter.serialize(e));
         }
     }
-
-    private Path path(final E e) {
-        return path(e.getUuid());
-    }
-
-    private Path path(final UUID uuid) {
-        return path.resolve("%s.json".formatted(uuid));
-    }
 }
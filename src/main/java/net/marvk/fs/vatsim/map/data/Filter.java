@@ -108,6 +108,9 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
         this.flightPlanRequired = new ImmutableBooleanProperty(flightPlanRequired);
     }
 
+    /**
+     * Checks are ordered by cost, the enum checks are bitmask lookups and run before any string predicates.
+     */
     @Override
     public boolean test(final Client client) {
         if (!isEnabled()) {
@@ -124,26 +127,26 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
             return false;
         }
 
-        if (!testCallsignAndCid(client)) {
-            return false;
-        }
-
         if (isController) {
             final Controller controller = (Controller) client;
 
-            if (!testAirport(departureAirportPredicates, controller.getWorkingAirport())) {
+            if (!controllerTypes.test(controller.getControllerType())) {
                 return false;
             }
 
-            if (!testFirb(departureAirportPredicates, controller.getWorkingFlightInformationRegionBoundary())) {
+            if (!controllerRatings.test(controller.getRating())) {
                 return false;
             }
 
-            if (!controllerRatings.test(controller.getRating())) {
+            if (!testCallsignAndCid(client)) {
                 return false;
             }
 
-            if (!controllerTypes.test(controller.getControllerType())) {
+            if (!testAirport(departureAirportPredicates, controller.getWorkingAirport())) {
+                return false;
+            }
+
+            if (!testFirb(departureAirportPredicates, controller.getWorkingFlightInformationRegionBoundary())) {
                 return false;
             }
         } else if (isPilot) {
@@ -155,7 +158,7 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
                 }
             }
 
-            if (!testDeparturesAndArrivals(pilot)) {
+            if (!testFlightRules(pilot)) {
                 return false;
             }
 
@@ -167,7 +170,11 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
                 return false;
             }
 
-            if (!testFlightRules(pilot)) {
+            if (!testCallsignAndCid(client)) {
+                return false;
+            }
+
+            if (!testDeparturesAndArrivals(pilot)) {
                 return false;
             }
         } else {
@@ -217,18 +224,8 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
     }
 
     private boolean testFlightRules(final Pilot pilot) {
-        return testFlightRule(pilot, FlightRule.UNKNOWN) &&
-                testFlightRule(pilot, FlightRule.IFR) &&
-                testFlightRule(pilot, FlightRule.VFR) &&
-                testFlightRule(pilot, FlightRule.DVFR) &&
-                testFlightRule(pilot, FlightRule.SVFR);
-    }
-
-    private boolean testFlightRule(final Pilot pilot, final FlightRule flightRule) {
-        if (pilot.getFlightPlan().getFlightRule() == flightRule) {
-            return flightRules.test(flightRule);
-        }
-        return true;
+        final FlightRule flightRule = pilot.getFlightPlan().getFlightRule();
+        return flightRule == null || flightRules.test(flightRule);
     }
 
     private boolean testAirport(final StringPredicateListPredicate predicate, final Airport airport) {
@@ -369,11 +366,16 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
         return flightPlanRequired;
     }
 
+    /**
+     * Tests against a bitmask of the ordinals, all enums used in filters have less than 64 constants.
+     */
     private static class EnumSetPredicate<E extends Enum<E>> implements Predicate<E> {
         private final Set<E> set;
+        private final long mask;
 
         public EnumSetPredicate(final Set<E> set) {
             this.set = set;
+            this.mask = mask(set);
         }
 
         public EnumSetPredicate(final Collection<E> collection) {
@@ -382,7 +384,19 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
 
         @Override
         public boolean test(final E e) {
-            return set == null || set.isEmpty() || set.contains(e);
+            return mask == 0 || (e != null && (mask & (1L << e.ordinal())) != 0);
+        }
+
+        private static <E extends Enum<E>> long mask(final Set<E> set) {
+            long result = 0;
+
+            if (set != null) {
+                for (final E e : set) {
+                    result |= 1L << e.ordinal();
+                }
+            }
+
+            return result;
         }
     }
 
@@ -430,19 +444,53 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
     }
 
     public static class StringPredicate implements Predicate<String> {
+        private static final String REGEX_METACHARACTERS = "\\^$.|?*+()[]{}";
+
         private final Pattern pattern;
         private final String content;
         private final boolean regex;
+        private final Predicate<String> matcher;
 
         public StringPredicate(final Pattern pattern, final String content, final boolean regex) {
             this.pattern = pattern;
             this.content = content;
             this.regex = regex;
+            this.matcher = compile(pattern, content, regex);
         }
 
         @Override
         public boolean test(final String s) {
-            return pattern.matcher(s).matches();
+            return matcher.test(s);
+        }
+
+        /**
+         * Patterns that only consist of literals and wildcards, such as {@code DLH*}, are matched with region
+         * comparisons instead of the regex engine.
+         */
+        private static Predicate<String> compile(final Pattern pattern, final String content, final boolean regex) {
+            final String[] parts = regex ? new String[]{content} : content.split("\\*", -1);
+
+            for (final String part : parts) {
+                if (!isLiteral(part)) {
+                    return s -> pattern.matcher(s).matches();
+                }
+            }
+
+            if (parts.length == 1) {
+                return s -> s.equalsIgnoreCase(parts[0]);
+            }
+
+            return new WildcardMatcher(parts);
+        }
+
+        private static boolean isLiteral(final String s) {
+            for (int i = 0; i < s.length(); i++) {
+                final char c = s.charAt(i);
+                if (c > 127 || REGEX_METACHARACTERS.indexOf(c) >= 0) {
+                    return false;
+                }
+            }
+            return true;
         }
 
         public static Optional<StringPredicate> tryCreate(final String content, final boolean regex) {
@@ -482,6 +530,62 @@ public class Filter implements Predicate<Client>, UniquelyIdentifiable {
         public boolean isRegex() {
             return regex;
         }
+
+        /**
+         * Matches literal parts separated by wildcards, the first part is a prefix, the last part a suffix and the
+         * parts in between are found left to right.
+         */
+        private static final class WildcardMatcher implements Predicate<String> {
+            private final String[] parts;
+            private final int minLength;
+
+            private WildcardMatcher(final String[] parts) {
+                this.parts = parts;
+                this.minLength = Arrays.stream(parts).mapToInt(String::length).sum();
+            }
+
+            @Override
+            public boolean test(final String s) {
+                if (s.length() < minLength) {
+                    return false;
+                }
+
+                final String prefix = parts[0];
+                final String suffix = parts[parts.length - 1];
+
+                if (!s.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                    return false;
+                }
+
+                final int end = s.length() - suffix.length();
+
+                if (!s.regionMatches(true, end, suffix, 0, suffix.length())) {
+                    return false;
+                }
+
+                int from = prefix.length();
+                for (int i = 1; i < parts.length - 1; i++) {
+                    final int index = indexOfIgnoreCase(s, parts[i], from, end);
+
+                    if (index < 0) {
+                        return false;
+                    }
+
+                    from = index + parts[i].length();
+                }
+
+                return true;
+            }
+
+            private static int indexOfIgnoreCase(final String s, final String part, final int from, final int end) {
+                for (int i = from; i + part.length() <= end; i++) {
+                    if (s.regionMatches(true, i, part, 0, part.length())) {
+                        return i;
+                    }
+                }
+                return -1;
+            }
+        }
     }
 
     public enum Operator {
@@ -20,8 +20,10 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -29,21 +31,27 @@ import java.util.stream.StreamSupport;
 
 @Log4j2
 public class FlightInformationRegionBoundaryRepository extends ProviderRepository<FlightInformationRegionBoundary, VatsimAirspace> {
+    private static final String POLY_LABELS_CACHE_NAME = "fir_boundary_labels";
+
     private final Lookup<FlightInformationRegionBoundary> icao = Lookup.fromProperty(FlightInformationRegionBoundary::getIcao);
     private final FlightInformationRegionRepository flightInformationRegionRepository;
     private final CountryRepository countryRepository;
-    private RTree<FlightInformationRegionBoundary, PolygonGeometry> rTree = RTree.create();
+    private final GeometryCache geometryCache;
+    private volatile RTree<FlightInformationRegionBoundary, PolygonGeometry> rTree = RTree.create();
+    private final DataVisitor<List<String>> searchableTextVisitor = new SearchableTextDataVisitor();
 
     @Inject
     public FlightInformationRegionBoundaryRepository(
             final VatsimApi vatsimApi,
             final Provider<FlightInformationRegionBoundary> provider,
             final FlightInformationRegionRepository flightInformationRegionRepository,
-            final CountryRepository countryRepository
+            final CountryRepository countryRepository,
+            final GeometryCache geometryCache
     ) {
         super(vatsimApi, provider);
         this.flightInformationRegionRepository = flightInformationRegionRepository;
         this.countryRepository = countryRepository;
+        this.geometryCache = geometryCache;
     }
 
     @Override
@@ -67,6 +75,16 @@ public class FlightInformationRegionBoundaryRepository extends ProviderRepositor
         );
     }
 
+    @Override
+    protected List<String> searchableText(final FlightInformationRegionBoundary flightInformationRegionBoundary) {
+        // Extensions are merged into their parent and are not listed
+        if (flightInformationRegionBoundary.isExtension()) {
+            return Collections.emptyList();
+        }
+
+        return searchableTextVisitor.visit(flightInformationRegionBoundary);
+    }
+
     @Override
     protected Collection<VatsimAirspace> extractModels(final VatsimApi api) throws VatsimApiException {
         return api.firBoundaries().getAirspaces();
@@ -85,11 +103,49 @@ public class FlightInformationRegionBoundaryRepository extends ProviderRepositor
     }
 
     @Override
-    protected void updateList(final Collection<VatsimAirspace> updatedModels) {
-        super.updateList(updatedModels);
+    protected void applyChanges(final ChangeSet<FlightInformationRegionBoundary, VatsimAirspace> changeSet) {
+        super.applyChanges(changeSet);
         mergeExtensions();
         createRTree();
         linkFirs();
+        loadPolyLabels();
+    }
+
+    /**
+     * Poly labels are expensive, they are read from the geometry cache if the boundaries are unchanged or computed
+     * in parallel in the background otherwise. Until then, rings fall back to their centroid.
+     */
+    private void loadPolyLabels() {
+        final List<Polygon> polygons = list()
+                .stream()
+                .map(FlightInformationRegionBoundary::getPolygon)
+                .collect(Collectors.toList());
+        final List<Polygon.Ring> rings = polygons
+                .stream()
+                .map(Polygon::getExteriorRing)
+                .collect(Collectors.toList());
+
+        final byte[] hash = GeometryCache.hash(polygons);
+        final Optional<List<Point2D>> cached = geometryCache.readPolyLabels(POLY_LABELS_CACHE_NAME, hash);
+
+        if (cached.isPresent() && cached.get().size() == rings.size()) {
+            for (int i = 0; i < rings.size(); i++) {
+                rings.get(i).setComputedPolyLabel(cached.get().get(i));
+            }
+            return;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            final long start = System.nanoTime();
+            rings.parallelStream().forEach(e -> e.computePolyLabel(Polygon.Ring.DEFAULT_POLY_LABEL_PRECISION));
+            log.info("Computed %d poly labels in %sms".formatted(rings.size(), (System.nanoTime() - start) / 1_000_000));
+
+            final List<Point2D> polyLabels = rings
+                    .stream()
+                    .map(Polygon.Ring::getComputedPolyLabel)
+                    .collect(Collectors.toList());
+            geometryCache.writePolyLabels(POLY_LABELS_CACHE_NAME, hash, polyLabels);
+        });
     }
 
     private void linkFirs() {
@@ -143,10 +199,46 @@ public class FlightInformationRegionBoundaryRepository extends ProviderRepositor
     }
 
     public List<FlightInformationRegionBoundary> getByPosition(final Point2D position) {
-        return getAllByPositionAsStream(position)
-                .map(Entry::value)
-                .distinct()
-                .collect(Collectors.toCollection(ArrayList::new));
+        final RTree<FlightInformationRegionBoundary, PolygonGeometry> rTree = this.rTree;
+        final List<FlightInformationRegionBoundary> result = new ArrayList<>(2);
+
+        addByPosition(result, rTree, position.getX(), position.getY());
+
+        final Rectangle mbr = rTree.mbr().orElse(null);
+        if (mbr != null) {
+            if (mbr.x2() > 180) {
+                addByPosition(result, rTree, position.getX() + 360, position.getY());
+            }
+            if (mbr.x1() < -180) {
+                addByPosition(result, rTree, position.getX() - 360, position.getY());
+            }
+        }
+
+        return result;
+    }
+
+    private static void addByPosition(
+            final List<FlightInformationRegionBoundary> result,
+            final RTree<FlightInformationRegionBoundary, PolygonGeometry> rTree,
+            final double x,
+            final double y
+    ) {
+        for (final Entry<FlightInformationRegionBoundary, PolygonGeometry> entry : rTree.search(Geometries.point(x, y))) {
+            if (!result.contains(entry.value())) {
+                result.add(entry.value());
+            }
+        }
+    }
+
+    public List<FlightInformationRegionBoundary> searchByRectangle(final Rectangle2D rectangle) {
+        final List<FlightInformationRegionBoundary> result = new ArrayList<>();
+        final Rectangle query = Geometries.rectangle(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY());
+
+        for (final Entry<FlightInformationRegionBoundary, PolygonGeometry> entry : rTree.search(query)) {
+            result.add(entry.value());
+        }
+
+        return result;
     }
 
     public List<FlightInformationRegionBoundary> getByPosition(final Point2D position, final double distance) {
@@ -265,7 +357,7 @@ public class FlightInformationRegionBoundaryRepository extends ProviderRepositor
         @Override
         public boolean intersects(final Rectangle r) {
             if (!(r instanceof Point)) {
-                throw new UnsupportedOperationException();
+                return bound.intersects(r);
             }
             final Point p = (Point) r;
             return polygon.isInside(p.x(), p.y());
@@ -37,6 +37,9 @@ public class FlightPlan implements Settable<VatsimFlightPlan>, Data {
 
     public FlightPlan(final Pilot pilot) {
         this.pilot = pilot;
+
+        departureAirport.addListener((observable, oldValue, newValue) -> setTotalDistance());
+        arrivalAirport.addListener((observable, oldValue, newValue) -> setTotalDistance());
     }
 
     @Override
@@ -56,9 +59,6 @@ public class FlightPlan implements Settable<VatsimFlightPlan>, Data {
 
         plannedRoute.set(model.getRoute());
         remarks.set(model.getRemarks());
-
-        departureAirport.addListener((observable, oldValue, newValue) -> setTotalDistance());
-        arrivalAirport.addListener((observable, oldValue, newValue) -> setTotalDistance());
     }
 
     private String shortAircraft(final String aircraft) {
@@ -0,0 +1,304 @@
+package net.marvk.fs.vatsim.map.data;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Binary cache of preprocessed polygons.
+ * <p>
+ * Every ring is stored as flat coordinate arrays together with its bounds, the exterior ring also stores its poly
+ * label if it was computed. Poly labels can also be stored on their own for polygons that are cheap to build but
+ * expensive to label. A cache file is only valid for the source it was written for, which is identified by a
+ * SHA-256 hash of the source content. Files are read through a memory mapping and any mismatch or corruption is
+ * treated as a cache miss.
+ */
+@Log4j2
+public class GeometryCache {
+    private static final int MAGIC = 0x56504743;
+    // Must be incremented whenever the file layout changes, files of other versions are treated as a cache miss
+    private static final int VERSION = 2;
+    private static final int POLYGONS = 0;
+    private static final int POLY_LABELS = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 3 * Integer.BYTES + HASH_LENGTH;
+
+    private final Path directory;
+
+    public GeometryCache(final Path directory) {
+        this.directory = directory;
+    }
+
+    public Optional<List<Polygon>> read(final String name, final byte[] hash) {
+        return read(name, POLYGONS, hash, buffer -> {
+            final int numPolygons = buffer.getInt();
+            final List<Polygon> result = new ArrayList<>(numPolygons);
+
+            for (int i = 0; i < numPolygons; i++) {
+                result.add(readPolygon(buffer));
+            }
+
+            return result;
+        });
+    }
+
+    public void write(final String name, final byte[] hash, final List<Polygon> polygons) {
+        write(name, POLYGONS, hash, out -> {
+            out.writeInt(polygons.size());
+
+            for (final Polygon polygon : polygons) {
+                writePolygon(out, polygon);
+            }
+        });
+    }
+
+    /**
+     * @return the poly labels in the order they were written, {@code null} for rings that had no poly label
+     */
+    public Optional<List<Point2D>> readPolyLabels(final String name, final byte[] hash) {
+        return read(name, POLY_LABELS, hash, buffer -> {
+            final int numPolyLabels = buffer.getInt();
+            final List<Point2D> result = new ArrayList<>(numPolyLabels);
+
+            for (int i = 0; i < numPolyLabels; i++) {
+                result.add(readPoint(buffer));
+            }
+
+            return result;
+        });
+    }
+
+    public void writePolyLabels(final String name, final byte[] hash, final List<Point2D> polyLabels) {
+        write(name, POLY_LABELS, hash, out -> {
+            out.writeInt(polyLabels.size());
+
+            for (final Point2D polyLabel : polyLabels) {
+                writePoint(out, polyLabel);
+            }
+        });
+    }
+
+    private <T> Optional<T> read(final String name, final int type, final byte[] hash, final Function<ByteBuffer, T> reader) {
+        final Path path = path(name);
+
+        if (!Files.isRegularFile(path)) {
+            log.info("No geometry cache for %s".formatted(name));
+            return Optional.empty();
+        }
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Validate the header before mapping, a mapped file can not be replaced on some platforms
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header);
+            }
+            header.flip();
+
+            if (header.remaining() < HEADER_LENGTH || header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != type) {
+                log.info("Ignoring geometry cache for %s, unknown format".formatted(name));
+                return Optional.empty();
+            }
+
+            final byte[] cachedHash = new byte[HASH_LENGTH];
+            header.get(cachedHash);
+
+            if (!Arrays.equals(hash, cachedHash)) {
+                log.info("Ignoring geometry cache for %s, source changed".formatted(name));
+                return Optional.empty();
+            }
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_LENGTH, channel.size() - HEADER_LENGTH);
+            final T result = reader.apply(buffer);
+
+            log.info("Loaded %s from geometry cache".formatted(name));
+            return Optional.of(result);
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Failed to read geometry cache for %s".formatted(name), e);
+            return Optional.empty();
+        }
+    }
+
+    private void write(final String name, final int type, final byte[] hash, final CacheWriter writer) {
+        final Path path = path(name);
+
+        try {
+            Files.createDirectories(directory);
+            final Path temp = Files.createTempFile(directory, name, ".tmp");
+
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(type);
+                out.write(hash);
+                writer.write(out);
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote %s to geometry cache".formatted(name));
+        } catch (final IOException e) {
+            log.warn("Failed to write geometry cache for %s".formatted(name), e);
+        }
+    }
+
+    private Path path(final String name) {
+        return directory.resolve(name + ".bin");
+    }
+
+    private static Polygon readPolygon(final ByteBuffer buffer) {
+        final String name = readString(buffer);
+
+        final int numRings = buffer.getInt();
+        final double[][] pointsX = new double[numRings][];
+        final double[][] pointsY = new double[numRings][];
+        final double[][] bounds = new double[numRings][];
+
+        for (int i = 0; i < numRings; i++) {
+            pointsX[i] = readDoubles(buffer, buffer.getInt());
+            pointsY[i] = readDoubles(buffer, pointsX[i].length);
+            bounds[i] = readDoubles(buffer, 4);
+        }
+
+        return new Polygon(name, pointsX, pointsY, bounds, readPoint(buffer));
+    }
+
+    private static void writePolygon(final DataOutputStream out, final Polygon polygon) throws IOException {
+        writeString(out, polygon.getName());
+
+        out.writeInt(1 + polygon.getHoleRings().size());
+        writeRing(out, polygon.getExteriorRing());
+        for (final Polygon.Ring ring : polygon.getHoleRings()) {
+            writeRing(out, ring);
+        }
+
+        writePoint(out, polygon.getExteriorRing().getComputedPolyLabel());
+    }
+
+    private static Point2D readPoint(final ByteBuffer buffer) {
+        return buffer.get() == 0 ? null : new Point2D(buffer.getDouble(), buffer.getDouble());
+    }
+
+    private static void writePoint(final DataOutputStream out, final Point2D point) throws IOException {
+        if (point == null) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(1);
+            out.writeDouble(point.getX());
+            out.writeDouble(point.getY());
+        }
+    }
+
+    private static void writeRing(final DataOutputStream out, final Polygon.Ring ring) throws IOException {
+        out.writeInt(ring.numPoints());
+        writeDoubles(out, ring.getPointsX());
+        writeDoubles(out, ring.getPointsY());
+
+        final Rectangle2D boundary = ring.getBoundary();
+        writeDoubles(out, new double[]{boundary.getMinX(), boundary.getMinY(), boundary.getMaxX(), boundary.getMaxY()});
+    }
+
+    private static double[] readDoubles(final ByteBuffer buffer, final int n) {
+        final double[] result = new double[n];
+        buffer.asDoubleBuffer().get(result);
+        buffer.position(buffer.position() + n * Double.BYTES);
+        return result;
+    }
+
+    private static void writeDoubles(final DataOutputStream out, final double[] doubles) throws IOException {
+        for (final double d : doubles) {
+            out.writeDouble(d);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static byte[] hash(final InputStream inputStream) throws IOException {
+        final MessageDigest digest = sha256();
+        final byte[] buffer = new byte[64 * 1024];
+
+        for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+            digest.update(buffer, 0, read);
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * @return a hash of the names and coordinates of the polygons
+     */
+    public static byte[] hash(final List<Polygon> polygons) {
+        final MessageDigest digest = sha256();
+        final ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES);
+
+        for (final Polygon polygon : polygons) {
+            if (polygon.getName() != null) {
+                digest.update(polygon.getName().getBytes(StandardCharsets.UTF_8));
+            }
+
+            updateRing(digest, buffer, polygon.getExteriorRing());
+            for (final Polygon.Ring ring : polygon.getHoleRings()) {
+                updateRing(digest, buffer, ring);
+            }
+        }
+
+        return digest.digest();
+    }
+
+    private static void updateRing(final MessageDigest digest, final ByteBuffer buffer, final Polygon.Ring ring) {
+        for (int i = 0; i < ring.numPoints(); i++) {
+            digest.update(buffer.clear().putDouble(ring.getPointsX()[i]).flip());
+            digest.update(buffer.clear().putDouble(ring.getPointsY()[i]).flip());
+        }
+    }
+
+    @FunctionalInterface
+    private interface CacheWriter {
+        void write(final DataOutputStream out) throws IOException;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required to be supported", e);
+        }
+    }
+}
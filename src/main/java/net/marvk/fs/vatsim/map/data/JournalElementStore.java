@@ -0,0 +1,325 @@
+package net.marvk.fs.vatsim.map.data;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Stores serialized elements by uuid in a single journal file.
+ * <p>
+ * Every change is appended to the journal as a put or remove record with a checksum, so a torn write at the end of the
+ * journal only loses the last changes. Changes are written behind: they are collected for {@link #FLUSH_DELAY_MILLIS}
+ * on the calling thread and then appended in a single batch on a background thread, multiple changes to the same
+ * element are coalesced. Once the journal holds more than twice as many records as there are elements, it is
+ * compacted into a snapshot that is written to a temporary file and atomically renamed over the journal. Pending
+ * changes are flushed on shutdown.
+ * <p>
+ * A journal of an unknown format is moved to a {@code .corrupt} backup next to it and a new journal is started. If the
+ * journal could not be read at all, nothing is written to it, so the elements in it are not overwritten.
+ */
+@Log4j2
+public class JournalElementStore {
+    private static final int MAGIC = 0x56504a4c;
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 2 * Integer.BYTES;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final long FLUSH_DELAY_MILLIS = 500;
+    private static final int MIN_COMPACTION_RECORDS = 64;
+
+    private final Path file;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * The elements including pending changes, guarded by {@code this}
+     */
+    private final Map<UUID, String> elements = new LinkedHashMap<>();
+
+    /**
+     * Changes that were not written yet, {@code null} values are removals, guarded by {@code this}
+     */
+    private final Map<UUID, String> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Serializes writes to the journal, must be acquired before {@code this}
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Number of records in the journal, guarded by {@link #writeLock}
+     */
+    private int records = 0;
+    private boolean compactionRequired = false;
+    private boolean readOnly = false;
+
+    public JournalElementStore(final Path file) {
+        this.file = file;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "journal-" + file.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "journal-shutdown-" + file.getFileName()));
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    /**
+     * Reads the journal. Records after the first corrupt or truncated record are ignored and the journal is compacted
+     * on the next flush. A journal of an unknown format is backed up and replaced by an empty one.
+     *
+     * @return the elements in the order they were first put
+     *
+     * @throws IOException if the journal could not be read or backed up, the store does not write to it afterwards
+     */
+    public Map<UUID, String> load() throws IOException {
+        synchronized (writeLock) {
+            try {
+                return loadNow();
+            } catch (final IOException e) {
+                readOnly = true;
+                throw e;
+            }
+        }
+    }
+
+    private Map<UUID, String> loadNow() throws IOException {
+        final Map<UUID, String> result = new LinkedHashMap<>();
+
+        if (!exists()) {
+            return result;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            final Path backup = backUp();
+            log.error("Unknown journal format in %s, moved it to %s and started a new journal".formatted(file, backup));
+
+            records = 0;
+            synchronized (this) {
+                elements.clear();
+            }
+
+            return result;
+        }
+
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            if (!readRecord(buffer, result)) {
+                log.warn("Ignoring corrupt journal records after record %d in %s".formatted(read, file));
+                compactionRequired = true;
+                break;
+            }
+            read += 1;
+        }
+
+        records = read;
+
+        synchronized (this) {
+            elements.clear();
+            elements.putAll(result);
+            if (compactionRequired) {
+                scheduleFlush();
+            }
+        }
+
+        log.info("Loaded %d elements from %d journal records in %s".formatted(result.size(), read, file));
+        return result;
+    }
+
+    private Path backUp() throws IOException {
+        Path result = file.resolveSibling(file.getFileName() + ".corrupt");
+
+        for (int i = 1; Files.exists(result); i++) {
+            result = file.resolveSibling(file.getFileName() + ".corrupt." + i);
+        }
+
+        Files.move(file, result);
+        return result;
+    }
+
+    private static boolean readRecord(final ByteBuffer buffer, final Map<UUID, String> result) {
+        final int start = buffer.position();
+
+        try {
+            final byte op = buffer.get();
+            final UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            final String value;
+
+            if (op == PUT) {
+                final int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    return false;
+                }
+                final byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            } else if (op == REMOVE) {
+                value = null;
+            } else {
+                return false;
+            }
+
+            final CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start, buffer.position() - start);
+
+            if ((int) crc.getValue() != buffer.getInt()) {
+                return false;
+            }
+
+            if (value == null) {
+                result.remove(uuid);
+            } else {
+                result.put(uuid, value);
+            }
+
+            return true;
+        } catch (final BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    public synchronized void put(final UUID uuid, final String value) {
+        Objects.requireNonNull(value);
+        elements.put(uuid, value);
+        pending.put(uuid, value);
+        scheduleFlush();
+    }
+
+    public synchronized void remove(final UUID uuid) {
+        elements.remove(uuid);
+        pending.put(uuid, null);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (scheduledFlush == null || scheduledFlush.isDone()) {
+            scheduledFlush = executor.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all pending changes on the calling thread.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            if (readOnly) {
+                log.warn("Not writing journal %s, it could not be loaded".formatted(file));
+                return;
+            }
+
+            final Map<UUID, String> batch;
+            final Map<UUID, String> snapshot;
+
+            synchronized (this) {
+                if (pending.isEmpty() && !compactionRequired) {
+                    return;
+                }
+
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+                snapshot = new LinkedHashMap<>(elements);
+            }
+
+            try {
+                if (compactionRequired || !exists() || records + batch.size() > Math.max(MIN_COMPACTION_RECORDS, 2 * snapshot.size())) {
+                    compact(snapshot);
+                } else {
+                    append(batch);
+                }
+            } catch (final IOException e) {
+                log.error("Failed to write journal %s".formatted(file), e);
+                compactionRequired = true;
+            }
+        }
+    }
+
+    private void append(final Map<UUID, String> batch) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (final Map.Entry<UUID, String> entry : batch.entrySet()) {
+            writeRecord(bytes, entry.getKey(), entry.getValue());
+        }
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+
+        records += batch.size();
+        log.debug("Appended %d records to journal %s".formatted(batch.size(), file));
+    }
+
+    private void compact(final Map<UUID, String> snapshot) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        for (final Map.Entry<UUID, String> entry : snapshot.entrySet()) {
+            writeRecord(bytes, entry.getKey(), entry.getValue());
+        }
+
+        Files.createDirectories(file.getParent());
+        final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+        try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        records = snapshot.size();
+        compactionRequired = false;
+        log.debug("Compacted journal %s to %d records".formatted(file, records));
+    }
+
+    private static void writeRecord(final ByteArrayOutputStream bytes, final UUID uuid, final String value) throws IOException {
+        final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(record);
+
+        if (value == null) {
+            out.writeByte(REMOVE);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            final byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(PUT);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeInt(valueBytes.length);
+            out.write(valueBytes);
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(record.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        record.writeTo(bytes);
+    }
+}
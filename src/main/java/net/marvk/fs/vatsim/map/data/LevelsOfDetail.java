@@ -0,0 +1,164 @@
+package net.marvk.fs.vatsim.map.data;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Multi-resolution vertex arrays for a single ring, simplified with the Visvalingam-Whyatt algorithm.
+ * <p>
+ * The effective area of every vertex is computed once. A level is then just the subset of vertices whose effective
+ * area exceeds the square of the level tolerance, which is materialized lazily the first time the level is requested.
+ * The first and last vertex are always retained so rings stay anchored and polylines keep their endpoints.
+ */
+final class LevelsOfDetail {
+    /**
+     * Tolerances in degrees, the first level is the unsimplified ring.
+     */
+    private static final double[] TOLERANCES = {0, 0.005, 0.01, 0.02, 0.04, 0.08, 0.16, 0.32, 0.64, 1.28, 2.56};
+
+    private static final int MIN_POINTS = 4;
+
+    private final double[] pointsX;
+    private final double[] pointsY;
+    private final double[] effectiveAreas;
+
+    private final double[][] levelsX = new double[TOLERANCES.length][];
+    private final double[][] levelsY = new double[TOLERANCES.length][];
+
+    LevelsOfDetail(final double[] pointsX, final double[] pointsY) {
+        this.pointsX = pointsX;
+        this.pointsY = pointsY;
+        this.effectiveAreas = effectiveAreas(pointsX, pointsY);
+
+        levelsX[0] = pointsX;
+        levelsY[0] = pointsY;
+    }
+
+    static int level(final double tolerance) {
+        int result = 0;
+        while (result + 1 < TOLERANCES.length && TOLERANCES[result + 1] <= tolerance) {
+            result += 1;
+        }
+        return result;
+    }
+
+    double[] getPointsX(final int level) {
+        materialize(level);
+        return levelsX[level];
+    }
+
+    double[] getPointsY(final int level) {
+        materialize(level);
+        return levelsY[level];
+    }
+
+    private void materialize(final int level) {
+        if (levelsX[level] != null && levelsY[level] != null) {
+            return;
+        }
+
+        final double threshold = TOLERANCES[level] * TOLERANCES[level];
+
+        int n = 0;
+        for (final double area : effectiveAreas) {
+            if (area >= threshold) {
+                n += 1;
+            }
+        }
+
+        final double[] xs = new double[n];
+        final double[] ys = new double[n];
+
+        int j = 0;
+        for (int i = 0; i < effectiveAreas.length; i++) {
+            if (effectiveAreas[i] >= threshold) {
+                xs[j] = pointsX[i];
+                ys[j] = pointsY[i];
+                j += 1;
+            }
+        }
+
+        levelsY[level] = ys;
+        levelsX[level] = xs;
+    }
+
+    private static double[] effectiveAreas(final double[] pointsX, final double[] pointsY) {
+        final int n = pointsX.length;
+        final double[] result = new double[n];
+        Arrays.fill(result, Double.POSITIVE_INFINITY);
+
+        if (n <= MIN_POINTS) {
+            return result;
+        }
+
+        final int[] previous = new int[n];
+        final int[] next = new int[n];
+        final int[] versions = new int[n];
+
+        final PriorityQueue<Candidate> queue = new PriorityQueue<>(n);
+
+        for (int i = 0; i < n; i++) {
+            previous[i] = i - 1;
+            next[i] = i + 1;
+        }
+
+        for (int i = 1; i < n - 1; i++) {
+            queue.add(new Candidate(i, 0, area(pointsX, pointsY, i - 1, i, i + 1)));
+        }
+
+        int remaining = n;
+        double maxArea = 0;
+
+        while (remaining > MIN_POINTS && !queue.isEmpty()) {
+            final Candidate candidate = queue.poll();
+            final int i = candidate.index;
+
+            if (candidate.version != versions[i]) {
+                continue;
+            }
+
+            // Effective areas must not decrease, otherwise a vertex could reappear at a coarser level
+            maxArea = Math.max(maxArea, candidate.area);
+            result[i] = maxArea;
+            remaining -= 1;
+
+            final int p = previous[i];
+            final int q = next[i];
+            next[p] = q;
+            previous[q] = p;
+
+            if (p > 0) {
+                versions[p] += 1;
+                queue.add(new Candidate(p, versions[p], area(pointsX, pointsY, previous[p], p, q)));
+            }
+
+            if (q < n - 1) {
+                versions[q] += 1;
+                queue.add(new Candidate(q, versions[q], area(pointsX, pointsY, p, q, next[q])));
+            }
+        }
+
+        return result;
+    }
+
+    private static double area(final double[] xs, final double[] ys, final int a, final int b, final int c) {
+        return Math.abs((xs[b] - xs[a]) * (ys[c] - ys[a]) - (xs[c] - xs[a]) * (ys[b] - ys[a])) / 2;
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        private final int index;
+        private final int version;
+        private final double area;
+
+        private Candidate(final int index, final int version, final double area) {
+            this.index = index;
+            this.version = version;
+            this.area = area;
+        }
+
+        @Override
+        public int compareTo(final Candidate o) {
+            return Double.compare(area, o.area);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package net.marvk.fs.vatsim.map.data;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public interface MetarApi {
@@ -8,4 +11,23 @@ public interface MetarApi {
     }
 
     Optional<Metar> fetchMetar(final String icao) throws MetarApiException;
+
+    /**
+     * Fetch the metars of multiple airports, implementations should use as few requests as possible
+     *
+     * @param icaos the airport icaos
+     *
+     * @return the metars by icao, airports without a metar are missing
+     *
+     * @throws MetarApiException if an error occurred while fetching the metars
+     */
+    default Map<String, Metar> fetchMetars(final Collection<String> icaos) throws MetarApiException {
+        final Map<String, Metar> result = new HashMap<>();
+
+        for (final String icao : icaos) {
+            fetchMetar(icao).ifPresent(e -> result.put(icao, e));
+        }
+
+        return result;
+    }
 }
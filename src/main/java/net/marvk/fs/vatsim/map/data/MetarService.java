@@ -2,6 +2,7 @@ package net.marvk.fs.vatsim.map.data;
 
 import javafx.collections.ObservableMap;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface MetarService {
@@ -66,7 +67,16 @@ public interface MetarService {
     }
 
     /**
-     * Returns an unmodifiable view of a ObservableMap of the last metars
+     * Fetch the latest metars at the specified airports in the background, so later calls to
+     * {@link MetarService#lastMetar(String)} and {@link MetarService#latestMetar(String)} do not have to wait for them.
+     * Implementations with a bounded cache may only prefetch the first airports.
+     *
+     * @param icaos the airport icaos, most important first
+     */
+    void prefetch(final Collection<String> icaos);
+
+    /**
+     * Returns an unmodifiable view of a ObservableMap of the last metars, only updated on the JavaFX Application Thread
      *
      * @return a map of the last metars, with icao as key and metar as value
      */
@@ -1,9 +1,8 @@
 package net.marvk.fs.vatsim.map.data;
 
 import javafx.beans.property.*;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
+import lombok.Value;
 import net.marvk.fs.vatsim.api.data.VatsimClient;
 import net.marvk.fs.vatsim.api.data.VatsimPilot;
 import net.marvk.fs.vatsim.map.GeomUtil;
@@ -16,6 +15,8 @@ import java.util.regex.Pattern;
 
 public class Pilot extends Client implements Data {
     private static final ReadOnlyObjectProperty<ClientType> CLIENT_TYPE = new ImmutableObjectProperty<>(ClientType.PILOT);
+    private static final int HISTORY_CAPACITY = 256;
+    private static final double HISTORY_TOLERANCE = 0.01;
     private static final Pattern FLIGHT_NUMBER_PARSER = Pattern.compile("^(?<icao>[A-Z]{3})(?<number>[0-9][A-Z0-9]*)$");
     private final FlightPlan flightPlan = new FlightPlan(this);
 
@@ -38,8 +39,7 @@ public class Pilot extends Client implements Data {
     private final ReadOnlyListWrapper<FlightInformationRegionBoundary> firbs =
             RelationshipReadOnlyListWrapper.withOtherList(this, FlightInformationRegionBoundary::pilots);
 
-    private final ObservableList<Point2D> history = FXCollections.observableArrayList();
-    private final ObservableList<Point2D> unmodifiableHistory = FXCollections.unmodifiableObservableList(history);
+    private final Trajectory history = new Trajectory(HISTORY_CAPACITY, HISTORY_TOLERANCE);
 
     public Pilot() {
         flightNumberAvailable.bind(airline.isNotNull().and(flightNumber.isNotNull()));
@@ -47,6 +47,10 @@ public class Pilot extends Client implements Data {
 
     @Override
     public void setFromModel(final VatsimClient client) {
+        setFromModel(client, Parsed.of((VatsimPilot) client), null);
+    }
+
+    void setFromModel(final VatsimClient client, final Parsed parsed, final Eta precomputedEta) {
         final VatsimPilot pilot = (VatsimPilot) client;
 
         final ZonedDateTime previousUpdatedTime = getLastUpdatedTime();
@@ -57,13 +61,13 @@ public class Pilot extends Client implements Data {
         flightPlan.setFromModel(((VatsimPilot) client).getFlightPlan());
 
         transponder.set(pilot.getTransponder());
-        altitude.set(Double.parseDouble(pilot.getAltitude()));
-        groundSpeed.set(Double.parseDouble(pilot.getGroundSpeed()));
-        heading.set(Double.parseDouble(pilot.getHeading()));
-        qnhInchesMercury.set(Double.parseDouble(pilot.getQnhInchesMercury()));
-        qnhMilliBars.set(Double.parseDouble(pilot.getQnhMillibars()));
-        position.set(GeomUtil.parsePoint(pilot.getLongitude(), pilot.getLatitude()));
-        history.add(position.get());
+        altitude.set(parsed.getAltitude());
+        groundSpeed.set(parsed.getGroundSpeed());
+        heading.set(parsed.getHeading());
+        qnhInchesMercury.set(parsed.getQnhInchesMercury());
+        qnhMilliBars.set(parsed.getQnhMillibars());
+        position.set(parsed.getPosition());
+        history.append(position.get());
 
         parseAirlineAndFlightNumber(client.getCallsign());
         if (!Objects.equals(previousUpdatedTime, getLastUpdatedTime())) {
@@ -78,7 +82,11 @@ public class Pilot extends Client implements Data {
             }
         }
 
-        eta.set(Eta.of(getPosition(), getGroundSpeed(), flightPlan.getDepartureAirport(), flightPlan.getArrivalAirport()));
+        if (precomputedEta == null) {
+            eta.set(Eta.of(getPosition(), getGroundSpeed(), flightPlan.getDepartureAirport(), flightPlan.getArrivalAirport()));
+        } else {
+            eta.set(precomputedEta);
+        }
         getUrls().setUrlsFromString(flightPlan.getRemarks());
     }
 
@@ -202,8 +210,8 @@ public class Pilot extends Client implements Data {
         return eta;
     }
 
-    public ObservableList<Point2D> getHistory() {
-        return unmodifiableHistory;
+    public Trajectory getHistory() {
+        return history;
     }
 
     SimpleListProperty<FlightInformationRegionBoundary> flightInformationRegionBoundariesWritable() {
@@ -218,4 +226,28 @@ public class Pilot extends Client implements Data {
     public <R> R visit(final DataVisitor<R> visitor) {
         return visitor.visit(this);
     }
+
+    /**
+     * The numeric fields of a pilot, parsed once so they can be parsed on a worker thread and used on the FX thread
+     */
+    @Value
+    static class Parsed {
+        Point2D position;
+        double altitude;
+        double groundSpeed;
+        double heading;
+        double qnhInchesMercury;
+        double qnhMillibars;
+
+        static Parsed of(final VatsimPilot pilot) {
+            return new Parsed(
+                    GeomUtil.parsePoint(pilot.getLongitude(), pilot.getLatitude()),
+                    Double.parseDouble(pilot.getAltitude()),
+                    Double.parseDouble(pilot.getGroundSpeed()),
+                    Double.parseDouble(pilot.getHeading()),
+                    Double.parseDouble(pilot.getQnhInchesMercury()),
+                    Double.parseDouble(pilot.getQnhMillibars())
+            );
+        }
+    }
 }
@@ -13,6 +13,8 @@ import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.impl.CoordinateArraySequence;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -29,6 +31,9 @@ public class Polygon {
 
     private final String name;
 
+    @ToString.Exclude
+    private volatile RingIndex ringIndex;
+
     public Polygon(final List<Point> points) {
         this(points, null);
     }
@@ -70,6 +75,32 @@ public class Polygon {
                                                              .sum();
     }
 
+    /**
+     * Creates a polygon from rings that were already deduplicated and measured, for example by a
+     * {@link GeometryCache}. The first ring is the exterior ring.
+     *
+     * @param bounds    {@code minX, minY, maxX, maxY} of every ring
+     * @param polyLabel the poly label of the exterior ring or {@code null} if it should be computed on demand
+     */
+    Polygon(final String name, final double[][] pointsX, final double[][] pointsY, final double[][] bounds, final Point2D polyLabel) {
+        this.name = name;
+
+        this.exteriorRing = new Ring(pointsX[0], pointsY[0], bounds[0], polyLabel);
+
+        this.holeRings = IntStream
+                .range(1, pointsX.length)
+                .mapToObj(i -> new Ring(pointsX[i], pointsY[i], bounds[i], null))
+                .collect(Collectors.toUnmodifiableList());
+
+        this.numPoints = exteriorRing.numPoints() + holeRings.stream()
+                                                             .mapToInt(Ring::numPoints)
+                                                             .sum();
+    }
+
+    String getName() {
+        return name;
+    }
+
     private String name() {
         return name == null ? "unnamed_polygon" : name + "_polygon";
     }
@@ -83,7 +114,18 @@ public class Polygon {
             throw new UnsupportedOperationException();
         }
 
-        return windingNumber(x, y) != 0;
+        return ringIndex().isInside(x, y);
+    }
+
+    private RingIndex ringIndex() {
+        RingIndex result = ringIndex;
+
+        if (result == null) {
+            result = new RingIndex(exteriorRing.pointsX, exteriorRing.pointsY);
+            ringIndex = result;
+        }
+
+        return result;
     }
 
     public double distance(final Point2D point) {
@@ -144,63 +186,6 @@ public class Polygon {
         return (x0 - x1) * (x0 - x1) + (y0 - y1) * (y0 - y1);
     }
 
-    /**
-     * Test if a point is {@code Left}, {@code On} or {@code Right} of an infinite line.
-     *
-     * @param x0 line point 0 x
-     * @param y0 line point 0 y
-     * @param x1 line point 1 x
-     * @param y1 line point 1 y
-     * @param xt test point x
-     * @param yt test point y
-     *
-     * @return {@code >0} for P2 left of the line through P0 and P1 <br>
-     * {@code =0} for P2  on the line <br>
-     * {@code <0} for P2  right of the line
-     *
-     * @see <a href="http://geomalgorithms.com/a03-_inclusion.html">Point in Polygon Inclusion</a>
-     */
-    private static double isLeft(final double x0, final double y0, final double x1, final double y1, final double xt, final double yt) {
-        return ((x1 - x0) * (yt - y0)
-                - (xt - x0) * (y1 - y0));
-    }
-
-    /**
-     * winding number test for a point in a polygon
-     *
-     * @param x test point x
-     * @param y test point y
-     *
-     * @return the winding number ({@code =0} only when P is outside)
-     *
-     * @see <a href="http://geomalgorithms.com/a03-_inclusion.html">Point in Polygon Inclusion</a>
-     */
-    private int windingNumber(final double x, final double y) {
-        int windingNumber = 0;
-
-        final Ring r = this.exteriorRing;
-        final int n = r.numPoints();
-
-        for (int i = 0; i < n; i++) {                                                                       // edge from V[i] to  V[i+1]
-            final int i1 = (i + 1) % n;
-            if (r.pointsY[i] <= y) {                                                                        // start y <= P.y
-                if (r.pointsY[i1] > y) {                                                                    // an upward crossing
-                    if (isLeft(r.pointsX[i], r.pointsY[i], r.pointsX[i1], r.pointsY[i1], x, y) > 0) {       // P left of  edge
-                        windingNumber += 1;                                                                 // have  a valid up intersect
-                    }
-                }
-            } else {                                                                                        // start y > P.y (no test needed)
-                if (i1 < n && r.pointsY[i1] <= y) {                                                         // a downward crossing
-                    if (isLeft(r.pointsX[i], r.pointsY[i], r.pointsX[i1], r.pointsY[i1], x, y) < 0) {       // P right of  edge
-                        windingNumber -= 1;                                                                 // have  a valid down intersect
-                    }
-                }
-            }
-        }
-
-        return windingNumber;
-    }
-
     private static List<Geometry> coordinates(final Geometry geometry) {
         if (geometry instanceof org.locationtech.jts.geom.Polygon) {
             final org.locationtech.jts.geom.Polygon polygon = (org.locationtech.jts.geom.Polygon) geometry;
@@ -243,6 +228,16 @@ public class Polygon {
         return !holeRings.isEmpty();
     }
 
+    /**
+     * @param tolerance the maximum acceptable simplification error in degrees
+     *
+     * @return the coarsest level of detail for use with {@link Ring#getPointsX(int)} and {@link Ring#getPointsY(int)}
+     * that stays within the tolerance
+     */
+    public static int levelOfDetail(final double tolerance) {
+        return LevelsOfDetail.level(tolerance);
+    }
+
     public static Polygon merge(final Polygon polygon1, final Polygon polygon2) {
         Objects.requireNonNull(polygon1);
         Objects.requireNonNull(polygon2);
@@ -311,7 +306,8 @@ public class Polygon {
                 List::size,
                 mergedName
         );
-        result.exteriorRing.polyLabel = polygon1.exteriorRing.polyLabel();
+        polygon1.exteriorRing.computePolyLabel(Ring.DEFAULT_POLY_LABEL_PRECISION);
+        result.exteriorRing.setPolyLabel(polygon1.exteriorRing.polyLabel, polygon1.exteriorRing.polyLabelPrecision);
         return result;
     }
 
@@ -439,18 +435,40 @@ public class Polygon {
         return result;
     }
 
+    private static double polyLabelPrecision(final double precision) {
+        if (!(precision < Ring.DEFAULT_POLY_LABEL_PRECISION)) {
+            return Ring.DEFAULT_POLY_LABEL_PRECISION;
+        }
+
+        // Round down to a power of two so small zoom changes do not trigger another computation
+        final double powerOfTwo = Math.pow(2, Math.floor(Math.log(precision) / Math.log(2)));
+        return Math.max(Ring.MIN_POLY_LABEL_PRECISION, powerOfTwo);
+    }
+
+    private static Point2D normalize(final Point2D polyLabel) {
+        return new Point2D((polyLabel.getX() + 180) % 360 - 180, polyLabel.getY());
+    }
+
     @FunctionalInterface
     public interface CoordinateExtractor<T> {
         double extract(final T t, final int index);
     }
 
     public class Ring {
+        public static final double DEFAULT_POLY_LABEL_PRECISION = 1;
+        private static final double MIN_POLY_LABEL_PRECISION = 1.0 / 64;
+
         private final double[] pointsX;
         private final double[] pointsY;
 
         private final Rectangle2D boundary;
 
-        private Point2D polyLabel = null;
+        private volatile Point2D polyLabel = null;
+        private volatile double polyLabelPrecision = Double.POSITIVE_INFINITY;
+        private final AtomicBoolean polyLabelPending = new AtomicBoolean();
+        private Point2D centroid = null;
+
+        private volatile LevelsOfDetail levelsOfDetail;
 
         public <T> Ring(final T t, final CoordinateExtractor<T> xExtractor, final CoordinateExtractor<T> yExtractor, final ToIntFunction<T> lengthSupplier) {
             final int n = lengthSupplier.applyAsInt(t);
@@ -495,7 +513,20 @@ public class Polygon {
                 this.pointsY = pointsY;
             }
 
-            this.boundary = new Rectangle2D(minX, minY, maxX - minX, maxY - minY) {
+            this.boundary = boundary(minX, minY, maxX, maxY);
+        }
+
+        private Ring(final double[] pointsX, final double[] pointsY, final double[] bounds, final Point2D polyLabel) {
+            this.pointsX = pointsX;
+            this.pointsY = pointsY;
+            this.boundary = boundary(bounds[0], bounds[1], bounds[2], bounds[3]);
+            if (polyLabel != null) {
+                setPolyLabel(polyLabel, DEFAULT_POLY_LABEL_PRECISION);
+            }
+        }
+
+        private Rectangle2D boundary(final double minX, final double minY, final double maxX, final double maxY) {
+            return new Rectangle2D(minX, minY, maxX - minX, maxY - minY) {
                 @Override
                 public boolean contains(final double x, final double y) {
                     return super.contains(x, y) || super.contains(x - 360, y) || super.contains(x + 360, y);
@@ -503,35 +534,123 @@ public class Polygon {
             };
         }
 
+        /**
+         * @return the poly label if it was already computed, {@code null} otherwise
+         */
+        Point2D getComputedPolyLabel() {
+            return polyLabel;
+        }
+
+        /**
+         * Sets a poly label of the default precision that was computed earlier, for example in a previous session.
+         */
+        void setComputedPolyLabel(final Point2D polyLabel) {
+            setPolyLabel(polyLabel, DEFAULT_POLY_LABEL_PRECISION);
+        }
+
         private Polygon polygon() {
             return Polygon.this;
         }
 
         public Point2D getPolyLabel() {
-            if (polyLabel == null) {
-                if (numPoints() == 1) {
-                    polyLabel = new Point2D(pointsX[0], pointsY[0]);
-                } else if (numPoints() == 2) {
-                    polyLabel = new Point2D(pointsX[0], pointsY[0]).add(pointsX[1], pointsY[1]).multiply(0.5);
-                } else {
-                    polyLabel = polyLabel();
-                }
+            return getPolyLabel(DEFAULT_POLY_LABEL_PRECISION);
+        }
 
-                if (polyLabel != null) {
-                    final double x = (polyLabel.getX() + 180) % 360 - 180;
-                    final double y = polyLabel.getY();
-                    polyLabel = new Point2D(x, y);
-                }
+        public Point2D getPolyLabel(final double precision) {
+            return getPolyLabel(precision, null);
+        }
+
+        /**
+         * Returns the pole of inaccessibility of the ring. If no label of the requested precision is available yet,
+         * it is computed in the background and the best label so far, or the centroid, is returned in the meantime.
+         *
+         * @param precision  the precision in degrees, finer precisions are useful when zoomed in
+         * @param onComputed called on the background thread once the label was computed, may be {@code null}
+         */
+        public Point2D getPolyLabel(final double precision, final Runnable onComputed) {
+            final double target = polyLabelPrecision(precision);
+            final Point2D result = polyLabel;
+
+            if (result != null && polyLabelPrecision <= target) {
+                return result;
             }
 
-            return polyLabel;
+            if (numPoints() <= 2) {
+                computePolyLabel(target);
+                return polyLabel;
+            }
+
+            if (polyLabelPending.compareAndSet(false, true)) {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        computePolyLabel(target);
+                    } finally {
+                        polyLabelPending.set(false);
+                    }
+
+                    if (onComputed != null) {
+                        onComputed.run();
+                    }
+                });
+            }
+
+            return result == null ? centroid() : result;
+        }
+
+        /**
+         * Computes the poly label on the calling thread unless a label of at least the given precision is available.
+         *
+         * @param precision the precision in degrees
+         */
+        public void computePolyLabel(final double precision) {
+            final double target = polyLabelPrecision(precision);
+
+            if (polyLabel != null && polyLabelPrecision <= target) {
+                return;
+            }
+
+            final Point2D result;
+            if (numPoints() == 0) {
+                result = null;
+            } else if (numPoints() == 1) {
+                result = new Point2D(pointsX[0], pointsY[0]);
+            } else if (numPoints() == 2) {
+                result = new Point2D(pointsX[0], pointsY[0]).add(pointsX[1], pointsY[1]).multiply(0.5);
+            } else {
+                result = polyLabel(target);
+            }
+
+            if (result != null) {
+                setPolyLabel(normalize(result), target);
+            }
+        }
+
+        private synchronized void setPolyLabel(final Point2D polyLabel, final double precision) {
+            if (polyLabel != null && precision < polyLabelPrecision) {
+                this.polyLabel = polyLabel;
+                this.polyLabelPrecision = precision;
+            }
+        }
+
+        private Point2D centroid() {
+            Point2D result = centroid;
+
+            if (result == null) {
+                result = normalize(new Point2D(
+                        Arrays.stream(pointsX).average().orElse(0),
+                        Arrays.stream(pointsY).average().orElse(0)
+                ));
+                centroid = result;
+            }
+
+            return result;
         }
 
         public int numPoints() {
             return pointsX.length;
         }
 
-        private Point2D polyLabel() {
+        private Point2D polyLabel(final double precision) {
             final Coordinate[] coordinates = IntStream
                     .rangeClosed(0, numPoints())
                     .mapToObj(e -> new Coordinate(pointsX[e % numPoints()], pointsY[e % numPoints()]))
@@ -546,7 +665,7 @@ public class Polygon {
                         new LinearRing(new CoordinateArraySequence(coordinates, 2), new GeometryFactory()), NO_HOLES, new GeometryFactory()
                 );
 
-                final org.locationtech.jts.geom.Point polyLabel = (org.locationtech.jts.geom.Point) PolyLabeller.getPolylabel(polygon, 1);
+                final org.locationtech.jts.geom.Point polyLabel = (org.locationtech.jts.geom.Point) PolyLabeller.getPolylabel(polygon, precision);
 
                 return new Point2D(polyLabel.getX(), polyLabel.getY());
             } catch (final IllegalStateException | IllegalArgumentException e) {
@@ -570,5 +689,24 @@ public class Polygon {
         public Rectangle2D getBoundary() {
             return boundary;
         }
+
+        public double[] getPointsX(final int levelOfDetail) {
+            return levelOfDetail == 0 ? pointsX : levelsOfDetail().getPointsX(levelOfDetail);
+        }
+
+        public double[] getPointsY(final int levelOfDetail) {
+            return levelOfDetail == 0 ? pointsY : levelsOfDetail().getPointsY(levelOfDetail);
+        }
+
+        private LevelsOfDetail levelsOfDetail() {
+            LevelsOfDetail result = levelsOfDetail;
+
+            if (result == null) {
+                result = new LevelsOfDetail(pointsX, pointsY);
+                levelsOfDetail = result;
+            }
+
+            return result;
+        }
     }
 }
@@ -2,6 +2,7 @@ package net.marvk.fs.vatsim.map.data;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import lombok.extern.log4j.Log4j2;
 import org.geotools.data.DataStore;
 import org.geotools.data.DataStoreFinder;
 import org.geotools.data.simple.SimpleFeatureIterator;
@@ -12,25 +13,30 @@ import org.locationtech.jts.geom.MultiPolygon;
 import org.opengis.feature.simple.SimpleFeature;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Polygons from shapefiles. Parsed polygons are written to a {@link GeometryCache} and read from it as long as the
+ * shapefile is unchanged, so GeoTools is only needed on the first start.
+ */
+@Log4j2
 public class PolygonRepository implements ReloadableRepository<Polygon> {
     private final List<String> names;
     private final List<URL> urls;
+    private final GeometryCache geometryCache;
     private ObservableList<Polygon> polygons;
 
-    public PolygonRepository(final List<String> names, final List<URL> urls) {
+    public PolygonRepository(final List<String> names, final List<URL> urls, final GeometryCache geometryCache) {
         if (names.size() != urls.size()) {
             throw new IllegalArgumentException();
         }
 
         this.names = names;
         this.urls = urls;
+        this.geometryCache = geometryCache;
     }
 
     @Override
@@ -54,7 +60,7 @@ public class PolygonRepository implements ReloadableRepository<Polygon> {
             final String name = names.get(i);
             final URL url = urls.get(i);
 
-            result.add(loadPolygons(name, url));
+            result.add(loadCachedPolygons(name, url));
         }
 
         polygons = result
@@ -66,6 +72,23 @@ public class PolygonRepository implements ReloadableRepository<Polygon> {
                 );
     }
 
+    private List<Polygon> loadCachedPolygons(final String name, final URL url) throws IOException {
+        final byte[] hash;
+        try (final InputStream inputStream = url.openStream()) {
+            hash = GeometryCache.hash(inputStream);
+        }
+
+        final Optional<List<Polygon>> cached = geometryCache.read(name, hash);
+
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        final List<Polygon> result = loadPolygons(name, url);
+        geometryCache.write(name, hash, result);
+        return result;
+    }
+
     @SuppressWarnings("ChainOfInstanceofChecks")
     private static List<Polygon> loadPolygons(final String name, final URL url) throws IOException {
         final DataStore dataStore = DataStoreFinder.getDataStore(Map.of("url", url));
@@ -0,0 +1,37 @@
+package net.marvk.fs.vatsim.map.data;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class ReloadMetrics {
+    String repository;
+
+    Duration fetch;
+    Duration diff;
+    Duration prepare;
+    Duration apply;
+
+    int added;
+    int updated;
+    int removed;
+
+    public Duration getTotal() {
+        return fetch.plus(diff).plus(prepare).plus(apply);
+    }
+
+    @Override
+    public String toString() {
+        return "%s reload: fetch %dms, diff %dms, prepare %dms, apply %dms (+%d ~%d -%d)".formatted(
+                repository,
+                fetch.toMillis(),
+                diff.toMillis(),
+                prepare.toMillis(),
+                apply.toMillis(),
+                added,
+                updated,
+                removed
+        );
+    }
+}
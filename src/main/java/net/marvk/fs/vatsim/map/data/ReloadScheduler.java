@@ -0,0 +1,135 @@
+package net.marvk.fs.vatsim.map.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Decides when to reload a feed that is updated upstream at a roughly fixed cadence.
+ * <p>
+ * The cadence is learned from the update timestamps of the feed. Reloads are scheduled for shortly after the next
+ * expected update that is at least the minimum interval away, so every reload is likely to find new data while the
+ * number of reloads does not exceed that of a fixed period. The delay between an upstream update and its
+ * observation, which includes clock skew and publishing delay, is estimated as the smallest recently observed age of
+ * the feed. If a reload finds the feed unchanged, it is retried with an exponential backoff up to the cadence, if a
+ * reload fails, it is retried with an exponential backoff up to {@link #MAX_ERROR_DELAY}.
+ * <p>
+ * Not thread safe.
+ */
+public class ReloadScheduler {
+    static final Duration MIN_CADENCE = Duration.ofSeconds(5);
+    static final Duration MAX_CADENCE = Duration.ofMinutes(2);
+    static final Duration SLACK = Duration.ofSeconds(2);
+    static final Duration MIN_DELAY = Duration.ofSeconds(1);
+    static final Duration UNCHANGED_DELAY = Duration.ofSeconds(2);
+    static final Duration ERROR_DELAY = Duration.ofSeconds(5);
+    static final Duration MAX_ERROR_DELAY = Duration.ofMinutes(5);
+    private static final double CADENCE_SMOOTHING = 0.25;
+    private static final int AGE_SAMPLES = 8;
+
+    private final Duration minInterval;
+
+    private double cadenceMillis;
+
+    private Instant lastUpdateTimestamp;
+    private final long[] ageMillis = new long[AGE_SAMPLES];
+    private int ageSamples = 0;
+
+    private int unchanged = 0;
+    private int failures = 0;
+
+    /**
+     * @param initialCadence the expected cadence until it was learned from the feed
+     * @param minInterval    the minimum time between two reloads that found new data
+     */
+    public ReloadScheduler(final Duration initialCadence, final Duration minInterval) {
+        this.cadenceMillis = clamp(initialCadence.toMillis(), MIN_CADENCE.toMillis(), MAX_CADENCE.toMillis());
+        this.minInterval = minInterval;
+    }
+
+    /**
+     * Called after a reload succeeded.
+     *
+     * @param now             the current time
+     * @param updateTimestamp the update timestamp of the feed, {@code null} if unknown
+     *
+     * @return the delay until the next reload
+     */
+    public Duration reloaded(final Instant now, final Instant updateTimestamp) {
+        failures = 0;
+
+        if (updateTimestamp == null) {
+            return Duration.ofMillis(Math.max(minInterval.toMillis(), cadence().toMillis()));
+        }
+
+        if (updateTimestamp.equals(lastUpdateTimestamp)) {
+            unchanged += 1;
+            final long backoff = UNCHANGED_DELAY.toMillis() << Math.min(unchanged - 1, 16);
+            return Duration.ofMillis(clamp(Math.min(backoff, (long) cadenceMillis), MIN_DELAY.toMillis(), MAX_CADENCE.toMillis()));
+        }
+
+        unchanged = 0;
+
+        if (lastUpdateTimestamp != null && updateTimestamp.isAfter(lastUpdateTimestamp)) {
+            learnCadence(Duration.between(lastUpdateTimestamp, updateTimestamp).toMillis());
+        }
+
+        lastUpdateTimestamp = updateTimestamp;
+        addAge(Duration.between(updateTimestamp, now).toMillis());
+
+        return nextDelay(now);
+    }
+
+    /**
+     * Called after a reload failed.
+     *
+     * @return the delay until the next reload
+     */
+    public Duration failed() {
+        failures += 1;
+        final long backoff = ERROR_DELAY.toMillis() << Math.min(failures - 1, 16);
+        return Duration.ofMillis(Math.min(backoff, MAX_ERROR_DELAY.toMillis()));
+    }
+
+    public Duration cadence() {
+        return Duration.ofMillis(Math.round(cadenceMillis));
+    }
+
+    /**
+     * Updates happen at a multiple of the cadence if reloads were further apart than the cadence, so intervals are
+     * divided by the number of cadences they most likely span.
+     */
+    private void learnCadence(final long intervalMillis) {
+        final long cadences = Math.max(1, Math.round(intervalMillis / cadenceMillis));
+        final double sample = clamp((double) intervalMillis / cadences, MIN_CADENCE.toMillis(), MAX_CADENCE.toMillis());
+        cadenceMillis += CADENCE_SMOOTHING * (sample - cadenceMillis);
+    }
+
+    private void addAge(final long age) {
+        System.arraycopy(ageMillis, 0, ageMillis, 1, AGE_SAMPLES - 1);
+        ageMillis[0] = age;
+        ageSamples = Math.min(AGE_SAMPLES, ageSamples + 1);
+    }
+
+    private Duration nextDelay(final Instant now) {
+        final long lag = Arrays.stream(ageMillis, 0, ageSamples).min().orElse(0);
+        final long earliest = now.toEpochMilli() + minInterval.toMillis() - SLACK.toMillis();
+
+        // Expected local time of the observation of the next update
+        double next = lastUpdateTimestamp.toEpochMilli() + lag + cadenceMillis;
+        while (next < earliest) {
+            next += cadenceMillis;
+        }
+
+        final long delay = Math.round(next) + SLACK.toMillis() - now.toEpochMilli();
+        return Duration.ofMillis(Math.max(MIN_DELAY.toMillis(), delay));
+    }
+
+    private static long clamp(final long value, final long min, final long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double clamp(final double value, final double min, final double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
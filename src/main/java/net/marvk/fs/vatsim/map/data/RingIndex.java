@@ -0,0 +1,255 @@
+package net.marvk.fs.vatsim.map.data;
+
+import java.util.Arrays;
+
+/**
+ * Grid acceleration structure for point in polygon tests on a single ring.
+ * <p>
+ * The bounding box of the ring is divided into a grid. Cells that are not touched by any edge are classified once as
+ * either fully inside or fully outside, so points falling into them are resolved with a single lookup. Points in cells
+ * touched by an edge fall back to the winding number test, but only against the edges spanning the row of the point.
+ */
+final class RingIndex {
+    private static final byte OUTSIDE = 0;
+    private static final byte INSIDE = 1;
+    private static final byte BOUNDARY = 2;
+
+    private static final int MIN_CELLS = 4;
+    private static final int MAX_CELLS = 64;
+
+    private static final int[] NO_EDGES = new int[0];
+
+    private final double[] pointsX;
+    private final double[] pointsY;
+    private final int numPoints;
+
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    private final int columns;
+    private final int rows;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final double epsilon;
+
+    private final byte[] cells;
+    private final int[][] rowEdges;
+
+    RingIndex(final double[] pointsX, final double[] pointsY) {
+        this.pointsX = pointsX;
+        this.pointsY = pointsY;
+        this.numPoints = pointsX.length;
+
+        this.minX = min(pointsX);
+        this.minY = min(pointsY);
+        this.maxX = max(pointsX);
+        this.maxY = max(pointsY);
+
+        if (numPoints < 3 || !(maxX > minX) || !(maxY > minY)) {
+            this.columns = 0;
+            this.rows = 0;
+            this.cellWidth = 0;
+            this.cellHeight = 0;
+            this.epsilon = 0;
+            this.cells = null;
+            this.rowEdges = null;
+            return;
+        }
+
+        final int size = Math.max(MIN_CELLS, Math.min(MAX_CELLS, (int) Math.ceil(Math.sqrt(numPoints) * 2)));
+        this.columns = size;
+        this.rows = size;
+        this.cellWidth = (maxX - minX) / columns;
+        this.cellHeight = (maxY - minY) / rows;
+        this.epsilon = Math.max(maxX - minX, maxY - minY) * 1e-9;
+
+        this.rowEdges = buildRowEdges();
+        this.cells = buildCells();
+    }
+
+    boolean isInside(final double x, final double y) {
+        if (cells == null || x < minX || x > maxX || y < minY || y > maxY) {
+            return false;
+        }
+
+        final int row = row(y);
+        final byte cell = cells[row * columns + column(x)];
+
+        if (cell == BOUNDARY) {
+            return windingNumber(rowEdges[row], x, y) != 0;
+        }
+
+        return cell == INSIDE;
+    }
+
+    private int[][] buildRowEdges() {
+        final int[] counts = new int[rows];
+
+        for (int i = 0; i < numPoints; i++) {
+            final int i1 = (i + 1) % numPoints;
+            final int from = row(Math.min(pointsY[i], pointsY[i1]) - epsilon);
+            final int to = row(Math.max(pointsY[i], pointsY[i1]) + epsilon);
+            for (int row = from; row <= to; row++) {
+                counts[row]++;
+            }
+        }
+
+        final int[][] result = new int[rows][];
+        for (int row = 0; row < rows; row++) {
+            result[row] = counts[row] == 0 ? NO_EDGES : new int[counts[row]];
+        }
+
+        Arrays.fill(counts, 0);
+
+        for (int i = 0; i < numPoints; i++) {
+            final int i1 = (i + 1) % numPoints;
+            final int from = row(Math.min(pointsY[i], pointsY[i1]) - epsilon);
+            final int to = row(Math.max(pointsY[i], pointsY[i1]) + epsilon);
+            for (int row = from; row <= to; row++) {
+                result[row][counts[row]++] = i;
+            }
+        }
+
+        return result;
+    }
+
+    private byte[] buildCells() {
+        final byte[] result = new byte[rows * columns];
+
+        for (int i = 0; i < numPoints; i++) {
+            final int i1 = (i + 1) % numPoints;
+
+            final double x0 = pointsX[i];
+            final double y0 = pointsY[i];
+            final double x1 = pointsX[i1];
+            final double y1 = pointsY[i1];
+
+            final int fromColumn = column(Math.min(x0, x1) - epsilon);
+            final int toColumn = column(Math.max(x0, x1) + epsilon);
+            final int fromRow = row(Math.min(y0, y1) - epsilon);
+            final int toRow = row(Math.max(y0, y1) + epsilon);
+
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    final int index = row * columns + column;
+                    if (result[index] != BOUNDARY && intersectsCell(x0, y0, x1, y1, column, row)) {
+                        result[index] = BOUNDARY;
+                    }
+                }
+            }
+        }
+
+        for (int row = 0; row < rows; row++) {
+            final double centerY = minY + (row + 0.5) * cellHeight;
+            for (int column = 0; column < columns; column++) {
+                final int index = row * columns + column;
+                if (result[index] != BOUNDARY) {
+                    final double centerX = minX + (column + 0.5) * cellWidth;
+                    result[index] = windingNumber(rowEdges[row], centerX, centerY) == 0 ? OUTSIDE : INSIDE;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Liang-Barsky clipping of the segment against the slightly enlarged cell rectangle.
+     */
+    private boolean intersectsCell(final double x0, final double y0, final double x1, final double y1, final int column, final int row) {
+        final double left = minX + column * cellWidth - epsilon;
+        final double right = minX + (column + 1) * cellWidth + epsilon;
+        final double bottom = minY + row * cellHeight - epsilon;
+        final double top = minY + (row + 1) * cellHeight + epsilon;
+
+        final double dx = x1 - x0;
+        final double dy = y1 - y0;
+
+        final double[] p = {-dx, dx, -dy, dy};
+        final double[] q = {x0 - left, right - x0, y0 - bottom, top - y0};
+
+        double t0 = 0;
+        double t1 = 1;
+
+        for (int k = 0; k < 4; k++) {
+            if (p[k] == 0) {
+                if (q[k] < 0) {
+                    return false;
+                }
+            } else {
+                final double t = q[k] / p[k];
+                if (p[k] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+                if (t0 > t1) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Winding number test for a point, restricted to the given edges.
+     *
+     * @return the winding number ({@code =0} only when P is outside)
+     *
+     * @see <a href="http://geomalgorithms.com/a03-_inclusion.html">Point in Polygon Inclusion</a>
+     */
+    private int windingNumber(final int[] edges, final double x, final double y) {
+        int windingNumber = 0;
+
+        for (final int i : edges) {
+            final int i1 = (i + 1) % numPoints;
+            if (pointsY[i] <= y) {
+                if (pointsY[i1] > y && isLeft(pointsX[i], pointsY[i], pointsX[i1], pointsY[i1], x, y) > 0) {
+                    windingNumber += 1;
+                }
+            } else {
+                if (pointsY[i1] <= y && isLeft(pointsX[i], pointsY[i], pointsX[i1], pointsY[i1], x, y) < 0) {
+                    windingNumber -= 1;
+                }
+            }
+        }
+
+        return windingNumber;
+    }
+
+    private static double isLeft(final double x0, final double y0, final double x1, final double y1, final double xt, final double yt) {
+        return ((x1 - x0) * (yt - y0)
+                - (xt - x0) * (y1 - y0));
+    }
+
+    private int column(final double x) {
+        return clamp((int) Math.floor((x - minX) / cellWidth), columns);
+    }
+
+    private int row(final double y) {
+        return clamp((int) Math.floor((y - minY) / cellHeight), rows);
+    }
+
+    private static int clamp(final int value, final int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    private static double min(final double[] values) {
+        double result = Double.POSITIVE_INFINITY;
+        for (final double value : values) {
+            result = Math.min(result, value);
+        }
+        return result;
+    }
+
+    private static double max(final double[] values) {
+        double result = Double.NEGATIVE_INFINITY;
+        for (final double value : values) {
+            result = Math.max(result, value);
+        }
+        return result;
+    }
+}
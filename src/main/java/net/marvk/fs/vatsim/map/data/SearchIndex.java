@@ -0,0 +1,313 @@
+package net.marvk.fs.vatsim.map.data;
+
+import java.util.*;
+
+/**
+ * Case insensitive substring index over a few text fields per item.
+ * <p>
+ * Every field is broken into trigrams, each trigram maps to a sorted posting list of item ids. A query of at least
+ * three characters intersects the posting lists of its trigrams, starting with the shortest, and only verifies the
+ * remaining candidates. Shorter queries fall back to a scan over the folded fields. Results are ranked by how well
+ * they match: exact matches first, then prefix matches, then matches at the start of a word, then any other match.
+ * Ties are broken by the order of the fields and then by the length of the matched field.
+ * <p>
+ * All methods are synchronized, the index may be updated on the thread that applies repository changes while it is
+ * being queried from another.
+ */
+public class SearchIndex<T> {
+    private static final int GRAM = 3;
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_START = 2;
+    private static final int CONTAINS = 3;
+
+    private final Map<T, Integer> ids = new IdentityHashMap<>();
+    private final List<T> items = new ArrayList<>();
+    private final List<String[]> fields = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Adds the item or replaces its fields. Items with no non-empty fields are removed from the index.
+     *
+     * @param item   the item
+     * @param fields the searchable fields, most important first, may contain {@code null}
+     */
+    public synchronized void put(final T item, final List<String> fields) {
+        final String[] folded = fold(fields);
+        final Integer id = ids.get(item);
+
+        if (id != null) {
+            if (Arrays.equals(this.fields.get(id), folded)) {
+                return;
+            }
+            removeById(id);
+        }
+
+        if (folded.length == 0) {
+            return;
+        }
+
+        final int newId = freeIds.isEmpty() ? newId() : freeIds.pop();
+        ids.put(item, newId);
+        items.set(newId, item);
+        this.fields.set(newId, folded);
+
+        for (final long gram : grams(folded)) {
+            postings.computeIfAbsent(gram, e -> new Postings()).add(newId);
+        }
+    }
+
+    public synchronized void remove(final T item) {
+        final Integer id = ids.get(item);
+
+        if (id != null) {
+            removeById(id);
+        }
+    }
+
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * @param query the query, matched case insensitively against every field
+     *
+     * @return the matching items, best match first, or an empty list if the query is {@code null} or empty
+     */
+    public synchronized List<T> search(final String query) {
+        if (query == null || query.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final String foldedQuery = fold(query);
+        final List<Match> matches = new ArrayList<>();
+
+        if (foldedQuery.length() < GRAM) {
+            for (int id = 0; id < items.size(); id++) {
+                addIfMatches(matches, id, foldedQuery);
+            }
+        } else {
+            final int[] candidates = candidates(foldedQuery);
+            for (final int id : candidates) {
+                addIfMatches(matches, id, foldedQuery);
+            }
+        }
+
+        matches.sort(null);
+
+        final List<T> result = new ArrayList<>(matches.size());
+        for (final Match match : matches) {
+            result.add(items.get(match.id));
+        }
+        return result;
+    }
+
+    private int[] candidates(final String foldedQuery) {
+        final List<Postings> lists = new ArrayList<>();
+        for (final long gram : grams(foldedQuery)) {
+            final Postings list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+
+        lists.sort(Comparator.comparingInt(e -> e.size));
+
+        int[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int size = result.length;
+
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            size = lists.get(i).retainAll(result, size);
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private void addIfMatches(final List<Match> matches, final int id, final String foldedQuery) {
+        final String[] itemFields = fields.get(id);
+
+        if (itemFields == null) {
+            return;
+        }
+
+        Match best = null;
+        for (int field = 0; field < itemFields.length; field++) {
+            final String s = itemFields[field];
+            final int index = s.indexOf(foldedQuery);
+
+            if (index < 0) {
+                continue;
+            }
+
+            final Match match = new Match(id, kind(s, foldedQuery, index), field, s.length());
+            if (best == null || match.compareTo(best) < 0) {
+                best = match;
+            }
+        }
+
+        if (best != null) {
+            matches.add(best);
+        }
+    }
+
+    private static int kind(final String s, final String foldedQuery, final int index) {
+        if (index == 0) {
+            return s.length() == foldedQuery.length() ? EXACT : PREFIX;
+        }
+
+        if (!Character.isLetterOrDigit(s.charAt(index - 1))) {
+            return WORD_START;
+        }
+
+        // A later occurrence may still start a word
+        for (int i = s.indexOf(foldedQuery, index + 1); i >= 0; i = s.indexOf(foldedQuery, i + 1)) {
+            if (!Character.isLetterOrDigit(s.charAt(i - 1))) {
+                return WORD_START;
+            }
+        }
+
+        return CONTAINS;
+    }
+
+    private int newId() {
+        items.add(null);
+        fields.add(null);
+        return items.size() - 1;
+    }
+
+    private void removeById(final int id) {
+        for (final long gram : grams(fields.get(id))) {
+            final Postings list = postings.get(gram);
+            list.remove(id);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+
+        ids.remove(items.get(id));
+        items.set(id, null);
+        fields.set(id, null);
+        freeIds.push(id);
+    }
+
+    private static Set<Long> grams(final String... strings) {
+        final Set<Long> result = new HashSet<>();
+        for (final String s : strings) {
+            for (int i = 0; i + GRAM <= s.length(); i++) {
+                result.add(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+            }
+        }
+        return result;
+    }
+
+    private static String[] fold(final List<String> fields) {
+        final String[] result = new String[fields.size()];
+        boolean empty = true;
+
+        // Keep empty fields so the position of a field always reflects its importance
+        for (int i = 0; i < result.length; i++) {
+            final String field = fields.get(i);
+            result[i] = field == null ? "" : fold(field);
+            empty &= result[i].isEmpty();
+        }
+
+        return empty ? new String[0] : result;
+    }
+
+    private static String fold(final String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Sorted, growable list of item ids
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        private void add(final int id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+
+            if (index >= 0) {
+                return;
+            }
+
+            final int insertion = -index - 1;
+
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+
+            System.arraycopy(ids, insertion, ids, insertion + 1, size - insertion);
+            ids[insertion] = id;
+            size += 1;
+        }
+
+        private void remove(final int id) {
+            final int index = Arrays.binarySearch(ids, 0, size, id);
+
+            if (index < 0) {
+                return;
+            }
+
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size -= 1;
+        }
+
+        /**
+         * Removes all ids from the first {@code size} elements of {@code candidates} that are not in this list.
+         *
+         * @return the new number of candidates
+         */
+        private int retainAll(final int[] candidates, final int size) {
+            int result = 0;
+            int from = 0;
+
+            for (int i = 0; i < size; i++) {
+                final int index = Arrays.binarySearch(ids, from, this.size, candidates[i]);
+
+                if (index >= 0) {
+                    candidates[result] = candidates[i];
+                    result += 1;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+
+            return result;
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        private final int id;
+        private final int kind;
+        private final int field;
+        private final int length;
+
+        private Match(final int id, final int kind, final int field, final int length) {
+            this.id = id;
+            this.kind = kind;
+            this.field = field;
+            this.length = length;
+        }
+
+        @Override
+        public int compareTo(final Match o) {
+            int result = Integer.compare(kind, o.kind);
+            if (result == 0) {
+                result = Integer.compare(field, o.field);
+            }
+            if (result == 0) {
+                result = Integer.compare(length, o.length);
+            }
+            if (result == 0) {
+                result = Integer.compare(id, o.id);
+            }
+            return result;
+        }
+    }
+}
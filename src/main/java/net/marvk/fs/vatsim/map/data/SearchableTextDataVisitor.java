@@ -0,0 +1,54 @@
+package net.marvk.fs.vatsim.map.data;
+
+import javafx.beans.value.ObservableObjectValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Supplies the fields matched by {@link SimplePredicatesDataVisitor} for a {@link SearchIndex}, most important first.
+ */
+public class SearchableTextDataVisitor extends DefaultingDataVisitor<List<String>> {
+    public SearchableTextDataVisitor() {
+        super(Collections.emptyList());
+    }
+
+    @Override
+    public List<String> visit(final Controller controller) {
+        final List<String> result = new ArrayList<>(super.visit(controller));
+        result.add(controller.getFrequency());
+        return result;
+    }
+
+    @Override
+    public List<String> visit(final Airport airport) {
+        final List<String> result = new ArrayList<>();
+        result.add(airport.getIcao());
+        airport.getNames().stream().map(ObservableObjectValue::get).forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public List<String> visit(final FlightInformationRegionBoundary flightInformationRegionBoundary) {
+        final List<String> result = new ArrayList<>();
+        result.add(flightInformationRegionBoundary.getIcao());
+        flightInformationRegionBoundary
+                .getFlightInformationRegions()
+                .stream()
+                .map(FlightInformationRegion::getName)
+                .forEach(result::add);
+        return result;
+    }
+
+    @Override
+    public List<String> visit(final UpperInformationRegion upperInformationRegion) {
+        return Arrays.asList(upperInformationRegion.getIcao(), upperInformationRegion.getName());
+    }
+
+    @Override
+    public List<String> visit(final Client client) {
+        return Arrays.asList(client.getCallsign(), client.getRealName(), client.getCidString());
+    }
+}
@@ -3,18 +3,33 @@ package net.marvk.fs.vatsim.map.data;
 import com.google.inject.Inject;
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyListWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
 import net.marvk.fs.vatsim.api.VatsimApi;
 import net.marvk.fs.vatsim.api.VatsimApiException;
 
+import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+@Log4j2
 public abstract class SimpleDataRepository<ViewModel extends Settable<Model>, Model> implements ReloadableRepository<ViewModel> {
     protected final VatsimApi vatsimApi;
-    protected final Map<String, ViewModel> map = new HashMap<>();
+    protected final Map<String, ViewModel> map = new ConcurrentHashMap<>();
     protected final ReadOnlyListWrapper<ViewModel> items = new ReadOnlyListWrapper<>(FXCollections.observableArrayList());
+    private final ReadOnlyObjectWrapper<ReloadMetrics> lastReloadMetrics = new ReadOnlyObjectWrapper<>();
+    private final SearchIndex<ViewModel> searchIndex = new SearchIndex<>();
+    private volatile long generation = 0;
+    /**
+     * Set from the start of a reload until its changes were applied. Change sets are computed against the current
+     * items, so a second reload that starts before the first one was applied would add the same new items again.
+     */
+    private final AtomicBoolean reloading = new AtomicBoolean();
 
     @Inject
     public SimpleDataRepository(final VatsimApi vatsimApi) {
@@ -29,6 +44,20 @@ public abstract class SimpleDataRepository<ViewModel extends Settable<Model>, Mo
 
     protected abstract Collection<Model> extractModels(final VatsimApi api) throws VatsimApiException;
 
+    /**
+     * Extracts the models together with the version of the source they were extracted from. The version is attached to
+     * the change set of these models, so it is available when exactly these models are applied.
+     *
+     * @param api the api
+     *
+     * @return the models and the version of their source
+     *
+     * @throws VatsimApiException if extracting the models failed
+     */
+    protected Extracted<Model> extract(final VatsimApi api) throws VatsimApiException {
+        return new Extracted<>(extractModels(api), null);
+    }
+
     protected void onAdd(final ViewModel toAdd, final Model model) {
     }
 
@@ -38,6 +67,28 @@ public abstract class SimpleDataRepository<ViewModel extends Settable<Model>, Mo
     protected void onUpdate(final ViewModel toUpdate, final Model model) {
     }
 
+    /**
+     * @param viewModel the item
+     *
+     * @return the fields the item can be searched by, most important first, or an empty list if the item should not
+     * be searchable
+     */
+    protected List<String> searchableText(final ViewModel viewModel) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Called before every reload, the reload is skipped if the source did not change since the last reload that was
+     * applied. Implementations should be cheap compared to fetching the models.
+     *
+     * @return {@code true} if the models are known to be the same as the last applied models
+     *
+     * @throws VatsimApiException if checking the source failed
+     */
+    protected boolean isUnchanged() throws VatsimApiException {
+        return false;
+    }
+
     @Override
     public ViewModel getByKey(final String key) {
         return map.get(key);
@@ -45,66 +96,284 @@ public abstract class SimpleDataRepository<ViewModel extends Settable<Model>, Mo
 
     @Override
     public void reload() throws RepositoryException {
+        if (!beginReload()) {
+            return;
+        }
+
         try {
-            updateList(extractModels(vatsimApi));
-        } catch (final VatsimApiException e) {
-            throw new RepositoryException(e);
+            reloadNow();
+        } finally {
+            reloading.set(false);
         }
     }
 
+    private void reloadNow() throws RepositoryException {
+        if (skipUnchanged()) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final Extracted<Model> extracted = fetch();
+        final long fetched = System.nanoTime();
+        final ChangeSet<ViewModel, Model> changeSet = changeSet(extracted.getModels());
+        changeSet.setSourceVersion(extracted.getSourceVersion());
+        final long diffed = System.nanoTime();
+        prepare(changeSet);
+        final long prepared = System.nanoTime();
+        apply(changeSet);
+        final long applied = System.nanoTime();
+
+        publishMetrics(changeSet, fetched - start, diffed - fetched, prepared - diffed, applied - prepared);
+    }
+
     @Override
     public void reloadAsync(final Runnable onSucceed) throws RepositoryException {
+        if (!beginReload()) {
+            return;
+        }
+
+        boolean applying = false;
+
         try {
-            final Collection<Model> models = extractModels(vatsimApi);
-            Platform.runLater(() -> {
-                updateList(models);
-                if (onSucceed != null) {
-                    onSucceed.run();
-                }
-            });
+            applying = reloadAsyncNow(onSucceed);
+        } finally {
+            if (!applying) {
+                reloading.set(false);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the changes will be applied on the FX thread, which ends the reload
+     */
+    private boolean reloadAsyncNow(final Runnable onSucceed) throws RepositoryException {
+        if (skipUnchanged()) {
+            return false;
+        }
+
+        final long start = System.nanoTime();
+        final Extracted<Model> extracted = fetch();
+        final long fetched = System.nanoTime();
+        final ChangeSet<ViewModel, Model> changeSet = changeSet(extracted.getModels());
+        changeSet.setSourceVersion(extracted.getSourceVersion());
+        final long diffed = System.nanoTime();
+        prepare(changeSet);
+        final long prepared = System.nanoTime();
+
+        Platform.runLater(() -> {
+            try {
+                final long applyStart = System.nanoTime();
+                apply(changeSet);
+                final long applied = System.nanoTime();
+                publishMetrics(changeSet, fetched - start, diffed - fetched, prepared - diffed, applied - applyStart);
+            } finally {
+                reloading.set(false);
+            }
+            if (onSucceed != null) {
+                onSucceed.run();
+            }
+        });
+
+        return true;
+    }
+
+    private boolean beginReload() {
+        if (reloading.compareAndSet(false, true)) {
+            return true;
+        }
+
+        log.debug("Skipping reload of %s, previous reload not applied yet".formatted(getClass().getSimpleName()));
+        return false;
+    }
+
+    private boolean skipUnchanged() throws RepositoryException {
+        try {
+            if (isUnchanged()) {
+                log.debug("Skipping reload of %s, source unchanged".formatted(getClass().getSimpleName()));
+                return true;
+            }
+            return false;
+        } catch (final VatsimApiException e) {
+            throw new RepositoryException(e);
+        }
+    }
+
+    private Extracted<Model> fetch() throws RepositoryException {
+        try {
+            return extract(vatsimApi);
         } catch (final VatsimApiException e) {
             throw new RepositoryException(e);
         }
     }
 
     protected void updateList(final Collection<Model> updatedModels) {
-        final Set<String> keysInUpdate = updatedModels
-                .stream()
-                .map(this::keyFromModel)
-                .collect(Collectors.toSet());
+        final ChangeSet<ViewModel, Model> changeSet = changeSet(updatedModels);
+        prepare(changeSet);
+        apply(changeSet);
+    }
+
+    private void apply(final ChangeSet<ViewModel, Model> changeSet) {
+        applyChanges(changeSet);
+        updateSearchIndex(changeSet);
+        generation += 1;
+    }
 
-        items.stream()
-             .filter(e -> !keysInUpdate.contains(keyFromViewModel(e)))
-             .forEach(this::onRemove);
+    /**
+     * Called after the changes were applied so the fields reflect the new state, including relationships that are
+     * only resolved in {@link #applyChanges(ChangeSet)}. Fields that did not change are not reindexed.
+     */
+    private void updateSearchIndex(final ChangeSet<ViewModel, Model> changeSet) {
+        for (final ChangeSet.Change<ViewModel, Model> change : changeSet.getRemoved()) {
+            searchIndex.remove(change.getViewModel());
+        }
 
-        items.removeIf(e -> !keysInUpdate.contains(keyFromViewModel(e)));
-        map.keySet().removeIf(o -> !keysInUpdate.contains(o));
+        for (final ChangeSet.Change<ViewModel, Model> change : changeSet.getUpdated()) {
+            searchIndex.put(change.getViewModel(), searchableText(change.getViewModel()));
+        }
+
+        for (final ChangeSet.Change<ViewModel, Model> change : changeSet.getAdded()) {
+            searchIndex.put(change.getViewModel(), searchableText(change.getViewModel()));
+        }
+    }
+
+    /**
+     * @param query the query, matched case insensitively against the {@link #searchableText searchable text}
+     *
+     * @return the matching items, best match first
+     */
+    public List<ViewModel> search(final String query) {
+        return searchIndex.search(query);
+    }
 
-        final List<ViewModel> toAdd = new ArrayList<>();
+    private void publishMetrics(final ChangeSet<ViewModel, Model> changeSet, final long fetchNanos, final long diffNanos, final long prepareNanos, final long applyNanos) {
+        final ReloadMetrics metrics = new ReloadMetrics(
+                getClass().getSimpleName(),
+                Duration.ofNanos(fetchNanos),
+                Duration.ofNanos(diffNanos),
+                Duration.ofNanos(prepareNanos),
+                Duration.ofNanos(applyNanos),
+                changeSet.getAdded().size(),
+                changeSet.getUpdated().size(),
+                changeSet.getRemoved().size()
+        );
+        log.debug(metrics);
 
+        if (Platform.isFxApplicationThread()) {
+            lastReloadMetrics.set(metrics);
+        } else {
+            Platform.runLater(() -> lastReloadMetrics.set(metrics));
+        }
+    }
+
+    /**
+     * Computes the difference between the current items and the given models. Only reads the current state of the
+     * repository, so it is safe to call from a worker thread as long as no changes are being applied concurrently.
+     *
+     * @param updatedModels the complete set of models after the update
+     *
+     * @return the added, updated and removed items
+     */
+    protected ChangeSet<ViewModel, Model> changeSet(final Collection<Model> updatedModels) {
+        final Map<String, Model> modelsByKey = new LinkedHashMap<>((int) (updatedModels.size() / 0.75f) + 1);
         for (final Model model : updatedModels) {
-            final String key = keyFromModel(model);
+            modelsByKey.put(keyFromModel(model), model);
+        }
+
+        final ChangeSet<ViewModel, Model> result = new ChangeSet<>(map.size());
+
+        for (final Map.Entry<String, ViewModel> entry : map.entrySet()) {
+            if (!modelsByKey.containsKey(entry.getKey())) {
+                result.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (final Map.Entry<String, Model> entry : modelsByKey.entrySet()) {
+            final String key = entry.getKey();
+            final Model model = entry.getValue();
             final ViewModel viewModel = map.get(key);
+
             if (viewModel == null) {
                 final ViewModel newViewModel = newViewModelInstance(model);
-                if (newViewModel == null) {
-                    continue;
+                if (newViewModel != null) {
+                    result.add(key, newViewModel, model);
                 }
-                newViewModel.setFromModel(model);
-                map.put(key, newViewModel);
-                onAdd(newViewModel, model);
-                toAdd.add(newViewModel);
             } else {
-                viewModel.setFromModel(model);
-                onUpdate(viewModel, model);
+                result.update(key, viewModel, model);
             }
         }
 
-        items.addAll(toAdd);
+        return result;
+    }
+
+    /**
+     * Computes everything that is needed to apply the change set but does not touch observable state, such as
+     * relationships and spatial indices. Called on the reloading thread before the change set is applied on the FX
+     * thread, results should be attached to the change set.
+     *
+     * @param changeSet the change set to prepare
+     */
+    protected void prepare(final ChangeSet<ViewModel, Model> changeSet) {
+    }
+
+    protected void setFromChange(final ChangeSet.Change<ViewModel, Model> change) {
+        change.getViewModel().setFromModel(change.getModel());
+    }
+
+    protected void applyChanges(final ChangeSet<ViewModel, Model> changeSet) {
+        final List<ChangeSet.Change<ViewModel, Model>> removed = changeSet.getRemoved();
+        if (!removed.isEmpty()) {
+            final Set<ViewModel> toRemove = Collections.newSetFromMap(new IdentityHashMap<>(removed.size()));
+            for (final ChangeSet.Change<ViewModel, Model> change : removed) {
+                onRemove(change.getViewModel());
+                map.remove(change.getKey());
+                toRemove.add(change.getViewModel());
+            }
+            items.removeAll(toRemove);
+        }
+
+        for (final ChangeSet.Change<ViewModel, Model> change : changeSet.getUpdated()) {
+            setFromChange(change);
+            onUpdate(change.getViewModel(), change.getModel());
+        }
+
+        final List<ChangeSet.Change<ViewModel, Model>> added = changeSet.getAdded();
+        if (!added.isEmpty()) {
+            final List<ViewModel> toAdd = new ArrayList<>(added.size());
+            for (final ChangeSet.Change<ViewModel, Model> change : added) {
+                final ViewModel viewModel = change.getViewModel();
+                setFromChange(change);
+                map.put(change.getKey(), viewModel);
+                onAdd(viewModel, change.getModel());
+                toAdd.add(viewModel);
+            }
+            items.addAll(toAdd);
+        }
+    }
+
+    /**
+     * @return a counter that is incremented every time changes were applied, values derived from the items can be
+     * cached until it changes
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public ReloadMetrics getLastReloadMetrics() {
+        return lastReloadMetrics.get();
+    }
+
+    public ReadOnlyObjectProperty<ReloadMetrics> lastReloadMetricsProperty() {
+        return lastReloadMetrics.getReadOnlyProperty();
     }
 
     @Override
     public ObservableList<ViewModel> list() {
         return items.getReadOnlyProperty();
     }
+
+    @Value
+    protected static class Extracted<Model> {
+        Collection<Model> models;
+        String sourceVersion;
+    }
 }
@@ -1,27 +1,106 @@
 package net.marvk.fs.vatsim.map.data;
 
 import com.google.inject.Inject;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableMap;
+import lombok.extern.log4j.Log4j2;
 
-import java.util.Optional;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+/**
+ * Caches metars until the next metar is expected to be issued.
+ * <p>
+ * Metars are issued every 30 minutes, so a metar expires 30 minutes after the issuance time in its
+ * {@code DDHHMMZ} group, but not earlier than {@link #MIN_TIME_TO_LIVE} after it was fetched. Airports without a metar
+ * are cached as well. Concurrent requests for the same icao share a single fetch, prefetches fetch in batches. The
+ * cache holds at most {@link #MAX_SIZE} airports, the least recently used airport is evicted first, so a prefetch only
+ * considers the first {@link #MAX_SIZE} airports.
+ * <p>
+ * The cache may be filled from any thread, {@link #lastMetars()} is only updated on the JavaFX Application Thread.
+ */
+@Log4j2
 public class SimpleMetarService implements MetarService {
+    static final int MAX_SIZE = 512;
+    static final Duration ISSUANCE_INTERVAL = Duration.ofMinutes(30);
+    static final Duration MIN_TIME_TO_LIVE = Duration.ofMinutes(5);
+    private static final int BATCH_SIZE = 50;
+    private static final Pattern ISSUANCE_TIME = Pattern.compile("\\b(\\d{2})(\\d{2})(\\d{2})Z\\b");
+
     private final ObservableMap<String, Metar> lastMetars = FXCollections.observableHashMap();
     private final ObservableMap<String, Metar> lastMetarsUnmodifiable = FXCollections.unmodifiableObservableMap(lastMetars);
 
+    private final Map<String, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CacheEntry> eldest) {
+            if (size() > MAX_SIZE) {
+                final String icao = eldest.getKey();
+                fxExecutor.execute(() -> lastMetars.remove(icao));
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Map<String, CompletableFuture<Optional<Metar>>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean prefetching = new AtomicBoolean();
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        final Thread thread = new Thread(r, "metar-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final MetarApi metarApi;
+    private final Clock clock;
+    private final Executor fxExecutor;
 
     @Inject
     public SimpleMetarService(final MetarApi metarApi) {
+        this(metarApi, Clock.systemUTC(), Platform::runLater);
+    }
+
+    /**
+     * @param fxExecutor the executor {@link #lastMetars()} is updated on
+     */
+    SimpleMetarService(final MetarApi metarApi, final Clock clock, final Executor fxExecutor) {
         this.metarApi = metarApi;
+        this.clock = clock;
+        this.fxExecutor = fxExecutor;
     }
 
     @Override
     public Optional<Metar> latestMetar(final String icao) throws MetarServiceException {
-        final Optional<Metar> metar = tryFetchMetar(icao);
-        metar.ifPresent(e -> lastMetars.put(icao, e));
-        return metar;
+        final CacheEntry cached = freshEntry(icao);
+
+        if (cached != null) {
+            return Optional.ofNullable(cached.metar);
+        }
+
+        final CompletableFuture<Optional<Metar>> future = new CompletableFuture<>();
+        final CompletableFuture<Optional<Metar>> existing = inFlight.putIfAbsent(icao, future);
+
+        if (existing != null) {
+            return await(icao, existing);
+        }
+
+        try {
+            final Optional<Metar> metar = tryFetchMetar(icao);
+            put(icao, metar.orElse(null));
+            future.complete(metar);
+            return metar;
+        } catch (final MetarServiceException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(icao, future);
+        }
     }
 
     private Optional<Metar> tryFetchMetar(final String icao) throws MetarServiceException {
@@ -32,13 +111,206 @@ public class SimpleMetarService implements MetarService {
         }
     }
 
+    private static Optional<Metar> await(final String icao, final Future<Optional<Metar>> future) throws MetarServiceException {
+        try {
+            return future.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof MetarServiceException) {
+                throw (MetarServiceException) e.getCause();
+            }
+            throw new MetarServiceException(icao, e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetarServiceException(icao, e);
+        }
+    }
+
+    @Override
+    public void prefetch(final Collection<String> icaos) {
+        if (!prefetching.compareAndSet(false, true)) {
+            log.debug("Skipping metar prefetch, previous prefetch still running");
+            return;
+        }
+
+        final List<String> copy = List.copyOf(icaos);
+
+        prefetchExecutor.execute(() -> {
+            try {
+                prefetchNow(copy);
+            } finally {
+                prefetching.set(false);
+            }
+        });
+    }
+
+    void prefetchNow(final Collection<String> icaos) {
+        final long start = System.nanoTime();
+
+        final Map<String, CompletableFuture<Optional<Metar>>> claimed = new LinkedHashMap<>();
+        final List<String> candidates = icaos.stream().distinct().limit(MAX_SIZE).collect(Collectors.toList());
+
+        for (final String icao : candidates) {
+            if (freshEntry(icao) != null) {
+                continue;
+            }
+
+            final CompletableFuture<Optional<Metar>> future = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(icao, future) == null) {
+                claimed.put(icao, future);
+            }
+        }
+
+        final List<String> toFetch = new ArrayList<>(claimed.keySet());
+
+        for (int i = 0; i < toFetch.size(); i += BATCH_SIZE) {
+            fetchBatch(toFetch.subList(i, Math.min(toFetch.size(), i + BATCH_SIZE)), claimed);
+        }
+
+        log.debug("Prefetched %d metars in %sms".formatted(toFetch.size(), (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private void fetchBatch(final List<String> icaos, final Map<String, CompletableFuture<Optional<Metar>>> futures) {
+        try {
+            final Map<String, Metar> metars = metarApi.fetchMetars(icaos);
+
+            for (final String icao : icaos) {
+                final Metar metar = metars.get(icao);
+                put(icao, metar);
+                complete(icao, futures.get(icao), Optional.ofNullable(metar));
+            }
+        } catch (final MetarApiException | RuntimeException e) {
+            log.warn("Failed to prefetch metars for %s".formatted(icaos), e);
+
+            for (final String icao : icaos) {
+                final CompletableFuture<Optional<Metar>> future = futures.get(icao);
+                future.completeExceptionally(new MetarServiceException(icao, e));
+                inFlight.remove(icao, future);
+            }
+        }
+    }
+
+    private void complete(final String icao, final CompletableFuture<Optional<Metar>> future, final Optional<Metar> metar) {
+        future.complete(metar);
+        inFlight.remove(icao, future);
+    }
+
     @Override
     public Optional<Metar> lastMetar(final String icao) {
-        return Optional.ofNullable(lastMetars.get(icao));
+        synchronized (cache) {
+            final CacheEntry entry = cache.get(icao);
+            return entry == null ? Optional.empty() : Optional.ofNullable(entry.metar);
+        }
     }
 
     @Override
     public ObservableMap<String, Metar> lastMetars() {
         return lastMetarsUnmodifiable;
     }
+
+    private CacheEntry freshEntry(final String icao) {
+        synchronized (cache) {
+            final CacheEntry entry = cache.get(icao);
+
+            if (entry == null || !clock.instant().isBefore(entry.expiresAt)) {
+                return null;
+            }
+
+            return entry;
+        }
+    }
+
+    private void put(final String icao, final Metar metar) {
+        final CacheEntry entry = new CacheEntry(metar, expiresAt(metar));
+
+        synchronized (cache) {
+            cache.put(icao, entry);
+        }
+
+        fxExecutor.execute(() -> {
+            if (metar == null) {
+                lastMetars.remove(icao);
+            } else {
+                lastMetars.put(icao, metar);
+            }
+        });
+    }
+
+    private Instant expiresAt(final Metar metar) {
+        final Instant now = clock.instant();
+        final Instant earliest = now.plus(MIN_TIME_TO_LIVE);
+        final Instant latest = now.plus(ISSUANCE_INTERVAL);
+
+        if (metar == null) {
+            return latest;
+        }
+
+        final Instant issued = issuanceTime(metar.getMetar(), now);
+
+        if (issued == null) {
+            return latest;
+        }
+
+        final Instant result = issued.plus(ISSUANCE_INTERVAL);
+
+        if (result.isBefore(earliest)) {
+            return earliest;
+        }
+
+        if (result.isAfter(latest)) {
+            return latest;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the issuance time of the metar, assuming it was issued within the last month, or {@code null} if the
+     * metar has no valid {@code DDHHMMZ} group
+     */
+    static Instant issuanceTime(final String metar, final Instant now) {
+        if (metar == null) {
+            return null;
+        }
+
+        final Matcher matcher = ISSUANCE_TIME.matcher(metar);
+
+        if (!matcher.find()) {
+            return null;
+        }
+
+        final int day = Integer.parseInt(matcher.group(1));
+        final int hour = Integer.parseInt(matcher.group(2));
+        final int minute = Integer.parseInt(matcher.group(3));
+
+        if (day < 1 || day > 31 || hour > 23 || minute > 59) {
+            return null;
+        }
+
+        final YearMonth currentMonth = YearMonth.from(now.atZone(ZoneOffset.UTC));
+
+        // A metar issued on the last days of the previous month may be fetched in the first hours of the next one
+        for (final YearMonth month : List.of(currentMonth, currentMonth.minusMonths(1))) {
+            if (!month.isValidDay(day)) {
+                continue;
+            }
+
+            final Instant result = month.atDay(day).atTime(hour, minute).toInstant(ZoneOffset.UTC);
+
+            if (!result.isAfter(now.plus(Duration.ofHours(1)))) {
+                return result;
+            }
+        }
+
+        return null;
+    }
+
+    private static final class CacheEntry {
+        private final Metar metar;
+        private final Instant expiresAt;
+
+        private CacheEntry(final Metar metar, final Instant expiresAt) {
+            this.metar = metar;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
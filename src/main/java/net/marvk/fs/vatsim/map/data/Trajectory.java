@@ -0,0 +1,181 @@
+package net.marvk.fs.vatsim.map.data;
+
+import javafx.geometry.Point2D;
+
+/**
+ * Bounded position history backed by a primitive ring buffer. When full, the oldest positions are dropped.
+ * <p>
+ * Positions are decimated on append: the most recent position is replaced by the new one if it and every position
+ * replaced since the last kept position lie within {@code tolerance} degrees of the line between that last kept
+ * position and the new one. Straight legs and parked aircraft therefore only occupy a couple of slots, and no recorded
+ * position is further than {@code tolerance} from the stored track. At most {@link #MAX_REPLACED} replaced positions
+ * are remembered, once they are exhausted the most recent position is kept.
+ */
+public class Trajectory {
+    static final int MAX_REPLACED = 32;
+
+    private final float[] xs;
+    private final float[] ys;
+    private final int capacity;
+    private final double squareTolerance;
+
+    private final float[] replacedXs = new float[MAX_REPLACED];
+    private final float[] replacedYs = new float[MAX_REPLACED];
+    private int replaced = 0;
+
+    private int start = 0;
+    private int size = 0;
+
+    public Trajectory(final int capacity, final double tolerance) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2, was %d".formatted(capacity));
+        }
+
+        this.capacity = capacity;
+        this.squareTolerance = tolerance * tolerance;
+        this.xs = new float[capacity];
+        this.ys = new float[capacity];
+    }
+
+    void append(final Point2D point) {
+        if (point != null) {
+            append(point.getX(), point.getY());
+        }
+    }
+
+    void append(final double x, final double y) {
+        if (size >= 2 && isRedundant(x, y)) {
+            remember(getX(size - 1), getY(size - 1));
+            set(size - 1, x, y);
+            return;
+        }
+
+        replaced = 0;
+
+        if (size == capacity) {
+            start = (start + 1) % capacity;
+            size -= 1;
+        }
+
+        size += 1;
+        set(size - 1, x, y);
+    }
+
+    void clear() {
+        start = 0;
+        size = 0;
+        replaced = 0;
+    }
+
+    /**
+     * @return {@code true} if the most recent position and all positions it replaced are within the tolerance of the
+     * line between the last kept position and the new position
+     */
+    private boolean isRedundant(final double x, final double y) {
+        if (replaced == MAX_REPLACED) {
+            return false;
+        }
+
+        final double x0 = getX(size - 2);
+        final double y0 = getY(size - 2);
+
+        if (!isWithinTolerance(x0, y0, x, y, getX(size - 1), getY(size - 1))) {
+            return false;
+        }
+
+        for (int i = 0; i < replaced; i++) {
+            if (!isWithinTolerance(x0, y0, x, y, replacedXs[i], replacedYs[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void remember(final double x, final double y) {
+        final boolean duplicate = replaced == 0
+                ? x == getX(size - 2) && y == getY(size - 2)
+                : x == replacedXs[replaced - 1] && y == replacedYs[replaced - 1];
+
+        // Parked aircraft report the same position over and over, which does not need to be checked again
+        if (!duplicate) {
+            replacedXs[replaced] = (float) x;
+            replacedYs[replaced] = (float) y;
+            replaced += 1;
+        }
+    }
+
+    private boolean isWithinTolerance(final double x0, final double y0, final double x, final double y, final double x1, final double y1) {
+        final double dx = x - x0;
+        final double dy = y - y0;
+        final double squareLength = dx * dx + dy * dy;
+
+        if (squareLength == 0) {
+            return (x1 - x0) * (x1 - x0) + (y1 - y0) * (y1 - y0) <= squareTolerance;
+        }
+
+        final double t = ((x1 - x0) * dx + (y1 - y0) * dy) / squareLength;
+
+        // Only drop points that lie between the last kept and the new position, turning back must be kept
+        if (t < 0 || t > 1) {
+            return false;
+        }
+
+        final double px = x0 + t * dx - x1;
+        final double py = y0 + t * dy - y1;
+
+        return px * px + py * py <= squareTolerance;
+    }
+
+    private void set(final int index, final double x, final double y) {
+        final int i = (start + index) % capacity;
+        xs[i] = (float) x;
+        ys[i] = (float) y;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getX(final int index) {
+        return xs[physicalIndex(index)];
+    }
+
+    public double getY(final int index) {
+        return ys[physicalIndex(index)];
+    }
+
+    public Point2D get(final int index) {
+        final int i = physicalIndex(index);
+        return new Point2D(xs[i], ys[i]);
+    }
+
+    /**
+     * @return the positions from oldest to most recent
+     */
+    public Point2D[] toArray() {
+        final Point2D[] result = new Point2D[size];
+
+        for (int i = 0; i < size; i++) {
+            result[i] = get(i);
+        }
+
+        return result;
+    }
+
+    private int physicalIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index %d out of bounds for size %d".formatted(index, size));
+        }
+
+        return (start + index) % capacity;
+    }
+}
@@ -1,17 +1,27 @@
 package net.marvk.fs.vatsim.map.data;
 
+import com.github.davidmoten.rtree2.Entry;
+import com.github.davidmoten.rtree2.RTree;
+import com.github.davidmoten.rtree2.geometry.Geometries;
+import com.github.davidmoten.rtree2.geometry.Rectangle;
+import com.github.davidmoten.rtree2.internal.EntryDefault;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import javafx.geometry.Rectangle2D;
 import net.marvk.fs.vatsim.api.VatsimApi;
 import net.marvk.fs.vatsim.api.VatsimApiException;
 import net.marvk.fs.vatsim.api.data.VatsimUpperInformationRegion;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class UpperInformationRegionRepository extends ProviderRepository<UpperInformationRegion, VatsimUpperInformationRegion> {
     private final FlightInformationRegionBoundaryRepository flightInformationRegionBoundaryRepository;
+    private volatile RTree<UpperInformationRegion, Rectangle> rTree = RTree.create();
+    private final DataVisitor<List<String>> searchableTextVisitor = new SearchableTextDataVisitor();
 
     @Inject
     public UpperInformationRegionRepository(
@@ -33,6 +43,11 @@ public class UpperInformationRegionRepository extends ProviderRepository<UpperIn
         return upperInformationRegion.getIcao();
     }
 
+    @Override
+    protected List<String> searchableText(final UpperInformationRegion upperInformationRegion) {
+        return searchableTextVisitor.visit(upperInformationRegion);
+    }
+
     @Override
     protected Collection<VatsimUpperInformationRegion> extractModels(final VatsimApi api) throws VatsimApiException {
         return api.vatSpy().getUpperInformationRegions();
@@ -48,6 +63,40 @@ public class UpperInformationRegionRepository extends ProviderRepository<UpperIn
                 .forEach(e -> toAdd.getFlightInformationRegionBoundariesWritable().add(e));
     }
 
+    @Override
+    protected void applyChanges(final ChangeSet<UpperInformationRegion, VatsimUpperInformationRegion> changeSet) {
+        super.applyChanges(changeSet);
+        createRTree();
+    }
+
+    private void createRTree() {
+        final List<Entry<UpperInformationRegion, Rectangle>> entries = list()
+                .stream()
+                .filter(e -> e.getBounds() != null && Double.isFinite(e.getBounds().getMinX()))
+                .map(UpperInformationRegionRepository::entry)
+                .collect(Collectors.toList());
+
+        rTree = RTree.star().create(entries);
+    }
+
+    private static Entry<UpperInformationRegion, Rectangle> entry(final UpperInformationRegion e) {
+        return new EntryDefault<>(e, rectangle(e.getBounds()));
+    }
+
+    public List<UpperInformationRegion> searchByRectangle(final Rectangle2D rectangle) {
+        final List<UpperInformationRegion> result = new ArrayList<>();
+
+        for (final Entry<UpperInformationRegion, Rectangle> entry : rTree.search(rectangle(rectangle))) {
+            result.add(entry.value());
+        }
+
+        return result;
+    }
+
+    private static Rectangle rectangle(final Rectangle2D rectangle) {
+        return Geometries.rectangle(rectangle.getMinX(), rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY());
+    }
+
     public List<UpperInformationRegion> getByIcao(final String identifier) {
         return Collections.singletonList(getByKey(identifier));
     }
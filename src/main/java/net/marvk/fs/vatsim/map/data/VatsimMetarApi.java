@@ -5,7 +5,7 @@ import com.google.inject.name.Named;
 import net.marvk.fs.vatsim.api.VatsimApi;
 import net.marvk.fs.vatsim.api.VatsimApiException;
 
-import java.util.Optional;
+import java.util.*;
 
 public class VatsimMetarApi implements MetarApi {
     private final VatsimApi vatsimApi;
@@ -30,6 +30,47 @@ public class VatsimMetarApi implements MetarApi {
         }
     }
 
+    /**
+     * The metar endpoint accepts a comma separated list of icaos and responds with one metar per line
+     */
+    @Override
+    public Map<String, Metar> fetchMetars(final Collection<String> icaos) throws MetarApiException {
+        if (icaos.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final String joinedIcaos = String.join(",", icaos);
+        final String metars = fetchMetarFromApi(joinedIcaos);
+
+        if (metars == null || metars.isBlank()) {
+            return Collections.emptyMap();
+        }
+
+        final Set<String> requested = new HashSet<>(icaos);
+        final Map<String, Metar> result = new HashMap<>();
+
+        try {
+            for (final String line : metars.split("\\R")) {
+                final String metar = line.strip();
+                final int separator = metar.indexOf(' ');
+
+                if (separator <= 0) {
+                    continue;
+                }
+
+                final String icao = metar.substring(0, separator);
+
+                if (requested.contains(icao)) {
+                    result.put(icao, vatsimMetarDeserializer.deserialize(metar));
+                }
+            }
+        } catch (final Exception e) {
+            throw new MetarApiException(joinedIcaos, e);
+        }
+
+        return result;
+    }
+
     private String fetchMetarFromApi(final String icao) throws MetarApiException {
         try {
             return vatsimApi.metar(icao).getMetar();
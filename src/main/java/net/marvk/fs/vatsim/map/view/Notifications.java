@@ -11,6 +11,10 @@ public final class Notifications {
     public static final DataNotification<Integer> SWITCH_TO_TAB = new DataNotification<>("SWITCH_TO_TAB");
     public static final DataNotification<String> SET_THEME = new DataNotification<>("SET_THEME");
     public static final VoidNotification REPAINT = new VoidNotification("REPAINT");
+    /**
+     * Repaints the map including the cached layers, for changes to the data or to how it is painted
+     */
+    public static final VoidNotification REPAINT_ALL = new VoidNotification("REPAINT_ALL");
     public static final VoidNotification RELOAD_CLIENTS = new VoidNotification("RELOAD_CLIENTS");
     public static final VoidNotification CLIENTS_RELOADED = new VoidNotification("CLIENTS_RELOADED");
     public static final VoidNotification SEARCH = new VoidNotification("SEARCH");
@@ -57,7 +57,7 @@ public class FilterOutlineViewModel implements ViewModel {
         } catch (final RepositoryException e) {
             log.error("Failed to create filter file", e);
         } finally {
-            Notifications.REPAINT.publish();
+            Notifications.REPAINT_ALL.publish();
         }
     }
 
@@ -68,7 +68,7 @@ public class FilterOutlineViewModel implements ViewModel {
         } catch (final RepositoryException e) {
             log.error("Failed to update filter file", e);
         } finally {
-            Notifications.REPAINT.publish();
+            Notifications.REPAINT_ALL.publish();
         }
     }
 
@@ -87,7 +87,7 @@ public class FilterOutlineViewModel implements ViewModel {
         } catch (final RepositoryException e) {
             log.error("Failed to delete filter file", e);
         } finally {
-            Notifications.REPAINT.publish();
+            Notifications.REPAINT_ALL.publish();
         }
     }
 
@@ -5,14 +5,11 @@ import de.saxsys.mvvmfx.InjectScope;
 import de.saxsys.mvvmfx.ScopeProvider;
 import de.saxsys.mvvmfx.ViewModel;
 import de.saxsys.mvvmfx.utils.commands.Action;
-import de.saxsys.mvvmfx.utils.commands.Command;
 import de.saxsys.mvvmfx.utils.commands.DelegateCommand;
-import javafx.application.Platform;
+import javafx.animation.PauseTransition;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.beans.value.ObservableValue;
-import javafx.concurrent.ScheduledService;
-import javafx.concurrent.Task;
 import javafx.scene.paint.Color;
 import javafx.util.Duration;
 import lombok.extern.log4j.Log4j2;
@@ -23,9 +20,11 @@ import net.marvk.fs.vatsim.map.view.StatusScope;
 import net.marvk.fs.vatsim.map.view.ToolbarScope;
 import net.marvk.fs.vatsim.map.view.filter.FilterScope;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -37,9 +36,15 @@ public class MainViewModel implements ViewModel {
     private final DelegateCommand loadClientsAsync;
 
     private final Preferences preferences;
+    private final ClientRepository clientRepository;
+    private final AirportRepository airportRepository;
+    private final MetarService metarService;
 
-    private static final Duration RELOAD_PERIOD = Duration.seconds(30);
-    private final ReloadService clientReloadService;
+    private static final java.time.Duration FEED_CADENCE = java.time.Duration.ofSeconds(15);
+    private static final java.time.Duration MIN_RELOAD_INTERVAL = java.time.Duration.ofSeconds(30);
+    private final ReloadScheduler reloadScheduler = new ReloadScheduler(FEED_CADENCE, MIN_RELOAD_INTERVAL);
+    private final PauseTransition nextReload = new PauseTransition();
+    private boolean autoReload = false;
 
     private final ReadOnlyBooleanWrapper onboarding = new ReadOnlyBooleanWrapper();
 
@@ -49,17 +54,29 @@ public class MainViewModel implements ViewModel {
     @Inject
     public MainViewModel(
             final ClientRepository clientRepository,
+            final AirportRepository airportRepository,
+            final MetarService metarService,
             final Preferences preferences,
             final VersionProvider versionProvider
     ) {
         this.preferences = preferences;
+        this.clientRepository = clientRepository;
+        this.airportRepository = airportRepository;
+        this.metarService = metarService;
 
         Notifications.RELOAD_CLIENTS.subscribe(this::reloadClients);
 
         this.loadClientsAsync = new ReloadRepositoryCommand(clientRepository, this::clientReloadCompleted);
-        clientReloadService = new ReloadService(loadClientsAsync);
-        clientReloadService.setPeriod(RELOAD_PERIOD);
-        clientReloadService.setDelay(RELOAD_PERIOD);
+        loadClientsAsync.runningProperty().addListener((observable, oldValue, newValue) -> {
+            if (!newValue) {
+                clientReloadFinished();
+            }
+        });
+        nextReload.setOnFinished(e -> {
+            if (autoReload) {
+                reloadClients();
+            }
+        });
 
         final StringProperty version = preferences.stringProperty("meta.version");
         if (version.get() == null || "0.0.0".equals(version.get())) {
@@ -70,8 +87,44 @@ public class MainViewModel implements ViewModel {
     }
 
     private void clientReloadCompleted() {
-        Notifications.REPAINT.publish();
+        Notifications.REPAINT_ALL.publish();
         Notifications.CLIENTS_RELOADED.publish();
+        prefetchMetars();
+    }
+
+    /**
+     * Called after every reload, including reloads that failed or found the feed unchanged
+     */
+    private void clientReloadFinished() {
+        final java.time.Duration delay;
+        if (loadClientsAsync.exceptionProperty().get() == null) {
+            delay = reloadScheduler.reloaded(Instant.now(), clientRepository.getUpdateTimestamp());
+        } else {
+            delay = reloadScheduler.failed();
+        }
+
+        log.debug("Next reload in %sms, feed cadence %sms".formatted(delay.toMillis(), reloadScheduler.cadence().toMillis()));
+
+        if (autoReload) {
+            nextReload.setDuration(Duration.millis(delay.toMillis()));
+            nextReload.playFromStart();
+        }
+    }
+
+    private void prefetchMetars() {
+        final List<String> icaos = airportRepository
+                .list()
+                .stream()
+                .filter(e -> e.hasControllers() || e.hasArrivals())
+                .sorted(Comparator
+                        .comparing(Airport::hasControllers)
+                        .thenComparingInt(e -> e.getArriving().size())
+                        .reversed()
+                )
+                .map(Airport::getIcao)
+                .collect(Collectors.toList());
+
+        metarService.prefetch(icaos);
     }
 
     private void reloadClients() {
@@ -94,15 +147,12 @@ public class MainViewModel implements ViewModel {
     }
 
     private void setServiceRunning(final boolean running) {
+        autoReload = running;
         if (running) {
-            clientReloadService.setStopping(false);
-            if (!clientReloadService.isRunning()) {
-                log.info("Starting reload service");
-                clientReloadService.start();
-            }
+            log.info("Starting automatic reload");
         } else {
-            log.info("Resetting reload service");
-            clientReloadService.setStopping(true);
+            log.info("Stopping automatic reload");
+            nextReload.stop();
         }
     }
 
@@ -122,35 +172,6 @@ public class MainViewModel implements ViewModel {
         return onboarding.getReadOnlyProperty();
     }
 
-    private static class ReloadService extends ScheduledService<Void> {
-        private final Command command;
-
-        private boolean stopping = false;
-
-        public ReloadService(final Command command) {
-            this.command = command;
-        }
-
-        @Override
-        protected Task<Void> createTask() {
-            return new ReloadTask();
-        }
-
-        public void setStopping(final boolean stopping) {
-            this.stopping = stopping;
-        }
-
-        private class ReloadTask extends Task<Void> {
-            @Override
-            protected Void call() {
-                if (!stopping) {
-                    Platform.runLater(command::execute);
-                }
-                return null;
-            }
-        }
-    }
-
     @Log4j2
     public static final class ReloadRepositoryCommand extends DelegateCommand {
         public ReloadRepositoryCommand(final ReloadableRepository<?> repository) {
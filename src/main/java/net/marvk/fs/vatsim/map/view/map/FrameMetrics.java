@@ -1,5 +1,6 @@
 package net.marvk.fs.vatsim.map.view.map;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -27,18 +28,68 @@ public class FrameMetrics {
         return maxFrames;
     }
 
+    /**
+     * Writes the retained frame times in nanoseconds as CSV, one column per metric and one row per frame, oldest first.
+     */
+    public void writeCsv(final Appendable appendable) throws IOException {
+        appendable.append("frame");
+        for (final Metric metric : metrics) {
+            appendable.append(',').append(metric.getName());
+        }
+        appendable.append('\n');
+
+        final int frames = metrics.stream().mapToInt(Metric::size).min().orElse(0);
+
+        for (int i = 0; i < frames; i++) {
+            appendable.append(String.valueOf(i));
+            for (final Metric metric : metrics) {
+                appendable.append(',').append(String.valueOf(metric.get(metric.size() - frames + i)));
+            }
+            appendable.append('\n');
+        }
+    }
+
+    public String summary() {
+        return metrics
+                .stream()
+                .map(Metric::summary)
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Frame times of the last {@code maxFrames} frames in a primitive ring buffer.
+     * <p>
+     * Appending, the rolling mean and the rolling max are O(1) and do not allocate. Percentiles are read from a
+     * log-linear histogram with {@value #SUB_BUCKETS} buckets per power of two, so they are accurate to about 3%.
+     * There is a single writer, the render thread, readers on other threads may observe a frame that is being
+     * appended.
+     */
     public static class Metric {
-        private final String name;
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
 
-        private final List<Long> frameTimes;
-        private final List<Long> unmodifiableFrameTimes;
+        private final String name;
         private final int maxFrames;
 
+        private final long[] frameTimes;
+        private final int[] histogram = new int[BUCKETS];
+
+        /**
+         * Sequence numbers of the frames that are candidates for the rolling max, with descending frame times
+         */
+        private final long[] maxCandidates;
+        private int maxCandidatesStart = 0;
+        private int maxCandidatesSize = 0;
+
+        private long sum = 0;
+        private volatile long appended = 0;
+
         public Metric(final String name, final int maxFrames) {
             this.name = name;
             this.maxFrames = maxFrames;
-            this.frameTimes = new LinkedList<>();
-            this.unmodifiableFrameTimes = Collections.unmodifiableList(frameTimes);
+            this.frameTimes = new long[maxFrames];
+            this.maxCandidates = new long[maxFrames];
         }
 
         public String getName() {
@@ -46,27 +97,100 @@ public class FrameMetrics {
         }
 
         public double getLast() {
-            return frameTimes.isEmpty() ? Double.NaN : frameTimes.get(frameTimes.size() - 1);
+            final long appended = this.appended;
+            return appended == 0 ? Double.NaN : frameTimes[index(appended - 1)];
         }
 
         public void append(final long frameTime) {
-            while (frameTimes.size() >= maxFrames) {
-                frameTimes.remove(0);
+            final long sequence = appended;
+            final int index = index(sequence);
+
+            if (sequence >= maxFrames) {
+                final long evicted = frameTimes[index];
+                sum -= evicted;
+                histogram[bucket(evicted)] -= 1;
             }
 
-            frameTimes.add(frameTime);
+            frameTimes[index] = frameTime;
+            sum += frameTime;
+            histogram[bucket(frameTime)] += 1;
+
+            updateMaxCandidates(sequence, frameTime);
+
+            appended = sequence + 1;
+        }
+
+        private void updateMaxCandidates(final long sequence, final long frameTime) {
+            if (maxCandidatesSize > 0 && maxCandidates[maxCandidatesStart] <= sequence - maxFrames) {
+                maxCandidatesStart = (maxCandidatesStart + 1) % maxFrames;
+                maxCandidatesSize -= 1;
+            }
+
+            while (maxCandidatesSize > 0 && frameTimes[index(lastMaxCandidate())] <= frameTime) {
+                maxCandidatesSize -= 1;
+            }
+
+            maxCandidates[(maxCandidatesStart + maxCandidatesSize) % maxFrames] = sequence;
+            maxCandidatesSize += 1;
+        }
+
+        private long lastMaxCandidate() {
+            return maxCandidates[(maxCandidatesStart + maxCandidatesSize - 1) % maxFrames];
         }
 
         public long max() {
-            return frameTimes.stream().mapToLong(e -> e).max().orElse(0);
+            if (appended == 0) {
+                return 0;
+            }
+
+            return frameTimes[index(maxCandidates[maxCandidatesStart])];
         }
 
         public double average() {
-            return frameTimes.stream().mapToLong(e -> e).average().orElse(0);
+            final int size = size();
+            return size == 0 ? 0 : (double) sum / size;
         }
 
-        public List<Long> getFrameTimes() {
-            return unmodifiableFrameTimes;
+        /**
+         * @param percentile the percentile in {@code [0, 1]}
+         *
+         * @return the approximate frame time at the percentile, or {@code 0} if no frames were recorded
+         */
+        public long percentile(final double percentile) {
+            final int size = size();
+
+            if (size == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(percentile * size));
+
+            long count = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                count += histogram[bucket];
+                if (count >= rank) {
+                    return Math.min(bucketMidpoint(bucket), max());
+                }
+            }
+
+            return max();
+        }
+
+        /**
+         * @param i the index of the frame, {@code 0} being the oldest retained frame
+         */
+        public long get(final int i) {
+            final int size = size();
+
+            if (i < 0 || i >= size) {
+                throw new IndexOutOfBoundsException("Index %d out of bounds for size %d".formatted(i, size));
+            }
+
+            return frameTimes[index(appended - size + i)];
+        }
+
+        public int size() {
+            return (int) Math.min(appended, maxFrames);
         }
 
         public int getMaxFrames() {
@@ -74,7 +198,44 @@ public class FrameMetrics {
         }
 
         public int getCurrentNumberOfFrameTimes() {
-            return frameTimes.size();
+            return size();
+        }
+
+        public String summary() {
+            return "%s: mean %.2fms, max %.2fms, p50 %.2fms, p95 %.2fms, p99 %.2fms".formatted(
+                    name,
+                    average() / 1e6,
+                    max() / 1e6,
+                    percentile(0.5) / 1e6,
+                    percentile(0.95) / 1e6,
+                    percentile(0.99) / 1e6
+            );
+        }
+
+        private int index(final long sequence) {
+            return (int) (sequence % maxFrames);
+        }
+
+        private static int bucket(final long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) Math.max(0, value);
+            }
+
+            final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+            final int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+
+            return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+        }
+
+        private static long bucketMidpoint(final int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+
+            final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+            final long lowerBound = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+
+            return lowerBound + ((1L << shift) >> 1);
         }
     }
 }
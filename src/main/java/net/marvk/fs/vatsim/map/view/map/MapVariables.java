@@ -2,9 +2,7 @@ package net.marvk.fs.vatsim.map.view.map;
 
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
-import lombok.extern.log4j.Log4j2;
 
-@Log4j2
 public class MapVariables {
     public static final double WORLD_WIDTH = 360;
     public static final double WORLD_HALF_WIDTH = 180;
@@ -25,9 +23,6 @@ public class MapVariables {
     private double worldCenterX = 0;
     private double worldCenterY = 0;
 
-    private double[] xBuf;
-    private double[] yBuf;
-
     private double aspectScaleY;
 
     private Rectangle2D worldView = new Rectangle2D(0, 0, 0, 0);
@@ -35,14 +30,12 @@ public class MapVariables {
 
     private Rectangle2D canvasView;
 
-    public MapVariables() {
-        this(512);
-    }
+    /**
+     * Incremented whenever the map has to be painted again for reasons other than a viewport change
+     */
+    private long generation = 0;
 
-    public MapVariables(final int bufferSize) {
-        this.xBuf = new double[bufferSize];
-        this.yBuf = new double[bufferSize];
-    }
+    private double fontSize = 12;
 
     public Point2D toWorld(final Point2D canvas) {
         return toWorld(canvas.getX(), canvas.getY());
@@ -108,6 +101,27 @@ public class MapVariables {
         return worldViewExpanded.contains(x, y);
     }
 
+    public Rectangle2D getWorldView() {
+        return worldView;
+    }
+
+    /**
+     * @param canvasMargin the margin in canvas pixels
+     *
+     * @return the world view grown by the margin on all sides
+     */
+    public Rectangle2D worldViewExpandedBy(final double canvasMargin) {
+        final double marginX = canvasMargin * WORLD_WIDTH / (viewWidth * scale);
+        final double marginY = canvasMargin * WORLD_HEIGHT / (viewHeight * scale * aspectScaleY);
+
+        return new Rectangle2D(
+                worldView.getMinX() - marginX,
+                worldView.getMinY() - marginY,
+                worldView.getWidth() + marginX + marginX,
+                worldView.getHeight() + marginY + marginY
+        );
+    }
+
     public boolean isRectIntersectingWorldView(final Rectangle2D worldRectangle) {
         return worldView.intersects(worldRectangle);
     }
@@ -211,6 +225,26 @@ public class MapVariables {
         return scale;
     }
 
+    public long getGeneration() {
+        return generation;
+    }
+
+    void setGeneration(final long generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * @return the size of the map font, painters that are prepared off the JavaFX application thread must read it here
+     * instead of from the graphics context
+     */
+    public double getFontSize() {
+        return fontSize;
+    }
+
+    void setFontSize(final double fontSize) {
+        this.fontSize = fontSize;
+    }
+
     public double getViewWidth() {
         return viewWidth;
     }
@@ -234,41 +268,4 @@ public class MapVariables {
     public double getWorldCenterY() {
         return worldCenterY;
     }
-
-    public double[] getXBuf() {
-        return xBuf;
-    }
-
-    public double[] getYBuf() {
-        return yBuf;
-    }
-
-    public void setBuf(final int i, final double x, final double y) {
-        setXBuf(i, x);
-        setYBuf(i, y);
-    }
-
-    public void setXBuf(final int i, final double value) {
-        if (i >= xBuf.length) {
-            log.debug("Increasing xBuf size from " + xBuf.length + " to " + xBuf.length * 2);
-            xBuf = doubleSize(xBuf);
-        }
-
-        xBuf[i] = value;
-    }
-
-    public void setYBuf(final int i, final double value) {
-        if (i >= yBuf.length) {
-            log.debug("Increasing yBuf size from " + yBuf.length + " to " + yBuf.length * 2);
-            yBuf = doubleSize(yBuf);
-        }
-
-        yBuf[i] = value;
-    }
-
-    private static double[] doubleSize(final double[] array) {
-        final double[] newXBuf = new double[array.length * 2];
-        System.arraycopy(array, 0, newXBuf, 0, array.length);
-        return newXBuf;
-    }
 }
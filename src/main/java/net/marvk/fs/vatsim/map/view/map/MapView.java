@@ -34,7 +34,10 @@ import net.marvk.fs.vatsim.map.data.*;
 import net.marvk.fs.vatsim.map.view.datadetail.DataDetailView;
 import net.marvk.fs.vatsim.map.view.datadetail.DataDetailViewModel;
 import net.marvk.fs.vatsim.map.view.painter.PainterExecutor;
+import net.marvk.fs.vatsim.map.view.painter.PainterHelper;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
 
 @Log4j2
@@ -60,6 +63,8 @@ public class MapView implements FxmlView<MapViewModel> {
 
     private final Renderer renderer = new Renderer();
 
+    private StaticLayerCache staticLayerCache;
+
     private MapContextMenu contextMenu;
 
     private ViewTuple<DataDetailView, DataDetailViewModel> detailView;
@@ -96,6 +101,7 @@ public class MapView implements FxmlView<MapViewModel> {
 
     public void initialize() {
         this.contextMenu = new MapContextMenu();
+        this.staticLayerCache = new StaticLayerCache(viewModel.getMapVariables());
 
         this.viewModel.viewWidthProperty().bind(this.canvas.widthProperty());
         this.viewModel.viewHeightProperty().bind(this.canvas.heightProperty());
@@ -477,6 +483,14 @@ public class MapView implements FxmlView<MapViewModel> {
 
     private final class Renderer {
         private final ExecutorService executor = Executors.newSingleThreadExecutor();
+        private final ExecutorService preparationExecutor = Executors.newFixedThreadPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                r -> {
+                    final Thread thread = new Thread(r, "Painter Preparation");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
         private final Semaphore renderSemaphore = new Semaphore(1);
 
         private final DoubleProperty lastFrameTimeMillis = new SimpleDoubleProperty();
@@ -511,17 +525,77 @@ public class MapView implements FxmlView<MapViewModel> {
 
         private RunnableFuture<Void> redraw() {
             final FutureTask<Void> task = new FutureTask<>(() -> {
-                for (final PainterExecutor<?> painterExecutor : viewModel.getPainterExecutors()) {
-                    painterExecutor.paint(canvas.getGraphicsContext2D());
-                    log.trace(painterExecutor.getName() + " finished in " + (painterExecutor.getLastDurationNanos() / 1000000.0) + "ms");
-                }
-            }, null);
+                final GraphicsContext c = canvas.getGraphicsContext2D();
+                staticLayerCache.paint(c, viewModel.getStaticPainterExecutors(), viewModel.getStaticLayersGeneration());
+
+                paintDynamicLayers(c, viewModel.getDynamicPainterExecutors());
+
+                PainterHelper.placeLabels(canvas.getWidth(), canvas.getHeight());
+
+                paintDynamicLayers(c, viewModel.getOverlayPainterExecutors());
+
+                PainterHelper.renderPendingLabels();
+                return null;
+            });
 
             Platform.runLater(task);
 
             return task;
         }
 
+        /**
+         * Prepares the buffered painters in parallel while the other painters paint, the buffered draw calls are
+         * submitted in the order of the painters. The JavaFX application thread is occupied by the frame until all
+         * preparations finished, so the map variables and the data do not change while they run.
+         */
+        private void paintDynamicLayers(final GraphicsContext c, final List<PainterExecutor<?>> executors) throws InterruptedException, ExecutionException {
+            final List<Future<?>> preparations = new ArrayList<>(executors.size());
+
+            for (final PainterExecutor<?> painterExecutor : executors) {
+                if (painterExecutor.isBuffered()) {
+                    preparations.add(preparationExecutor.submit(painterExecutor::prepare));
+                } else {
+                    preparations.add(null);
+                }
+            }
+
+            try {
+                for (int i = 0; i < executors.size(); i++) {
+                    final PainterExecutor<?> painterExecutor = executors.get(i);
+                    final Future<?> preparation = preparations.get(i);
+
+                    if (preparation == null) {
+                        painterExecutor.paint(c);
+                    } else {
+                        preparation.get();
+                        painterExecutor.submit(c);
+                    }
+
+                    log.trace(painterExecutor.getName() + " finished in " + (painterExecutor.getLastDurationNanos() / 1000000.0) + "ms");
+                }
+            } finally {
+                // Painters must not be prepared for the next frame while a failed frame is still preparing them
+                awaitAll(preparations);
+            }
+        }
+
+        private void awaitAll(final List<Future<?>> futures) {
+            for (final Future<?> future : futures) {
+                if (future == null) {
+                    continue;
+                }
+
+                try {
+                    future.get();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (final ExecutionException e) {
+                    log.error("Failed to prepare painter", e);
+                }
+            }
+        }
+
         public void invalidate() {
             incrementSemaphore();
         }
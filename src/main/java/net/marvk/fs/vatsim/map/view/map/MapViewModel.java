@@ -9,6 +9,7 @@ import javafx.animation.Transition;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
@@ -21,15 +22,22 @@ import net.marvk.fs.vatsim.map.view.SettingsScope;
 import net.marvk.fs.vatsim.map.view.StatusScope;
 import net.marvk.fs.vatsim.map.view.painter.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Log4j2
 public class MapViewModel implements ViewModel {
     private static final int SELECTION_DISTANCE = 8;
+    private static final int CULLING_MARGIN = 100;
     private final DoubleProperty scale = new SimpleDoubleProperty(1);
     private final ReadOnlyObjectWrapper<Point2D> worldCenter = new ReadOnlyObjectWrapper<>(new Point2D(0, 0));
     private final DoubleProperty viewWidth = new SimpleDoubleProperty();
@@ -65,8 +73,15 @@ public class MapViewModel implements ViewModel {
     private final FilterRepository filterRepository;
 
     private ObservableList<PainterExecutor<?>> painterExecutors;
+    private List<PainterExecutor<?>> staticPainterExecutors;
+    private List<PainterExecutor<?>> dynamicPainterExecutors;
+    private List<PainterExecutor<?>> overlayPainterExecutors;
+
+    private long staticLayersGeneration = 0L;
+    private long searchedDataVersion = 0L;
 
     private FrameMetrics frameMetrics;
+    private long frame = 0;
 
     @InjectScope
     private StatusScope statusScope;
@@ -115,7 +130,7 @@ public class MapViewModel implements ViewModel {
         this.viewHeight.addListener((observable, oldValue, newValue) -> mapVariables.setViewHeight(newValue.doubleValue()));
         this.mapVariables.setViewHeight(viewHeight.get());
 
-        this.selectedItem.addListener((observable, oldValue, newValue) -> triggerRepaint());
+        this.selectedItem.addListener((observable, oldValue, newValue) -> invalidateStaticLayers());
         this.viewHeight.addListener((observable, oldValue, newValue) -> triggerRepaint());
         this.viewWidth.addListener((observable, oldValue, newValue) -> triggerRepaint());
         this.worldCenter.addListener((observable, oldValue, newValue) -> triggerRepaint());
@@ -134,6 +149,10 @@ public class MapViewModel implements ViewModel {
         });
         this.distanceMeasureWorld.addListener((observable, oldValue, newValue) -> triggerRepaint());
 
+        this.fontSize.addListener((observable, oldValue, newValue) -> {
+            mapVariables.setFontSize(newValue.doubleValue());
+            invalidateStaticLayers();
+        });
         this.fontSize.bind(preferences.integerProperty("general.map_font_size"));
     }
 
@@ -142,7 +161,12 @@ public class MapViewModel implements ViewModel {
     }
 
     public void initialize() {
-        this.painterExecutors = executors(upperInformationRegionRepository);
+        this.staticPainterExecutors = staticExecutors();
+        this.dynamicPainterExecutors = dynamicExecutors(upperInformationRegionRepository);
+        this.overlayPainterExecutors = overlayExecutors();
+        this.painterExecutors = FXCollections.observableArrayList(staticPainterExecutors);
+        this.painterExecutors.addAll(dynamicPainterExecutors);
+        this.painterExecutors.addAll(overlayPainterExecutors);
 
         final ArrayList<String> names = painterExecutors
                 .stream()
@@ -155,10 +179,12 @@ public class MapViewModel implements ViewModel {
 //        Bindings.bindContent(statusScope.highlightedFirs(), contextMenu.getFirbs().getItems());
         statusScope.mouseViewPositionProperty().bind(mouseViewPosition);
         statusScope.mouseWorldPositionProperty().bind(mouseWorldPosition);
+        statusScope.getSearchedData().addListener((ListChangeListener<Data>) c -> searchedDataVersion += 1);
 
         Bindings.bindContent(settingsScope.getPainters(), painterExecutors);
 
         Notifications.REPAINT.subscribe(this::triggerRepaint);
+        Notifications.REPAINT_ALL.subscribe(this::invalidateStaticLayers);
         Notifications.PAN_TO_DATA.subscribe(this::panToData);
     }
 
@@ -230,23 +256,39 @@ public class MapViewModel implements ViewModel {
         return SELECTION_DISTANCE / scale.get();
     }
 
-    private ObservableList<PainterExecutor<?>> executors(final UpperInformationRegionRepository upperInformationRegionRepository) {
-        return FXCollections.observableArrayList(
+    /**
+     * Layers that only change with the viewport or on global repaints, rendered into a cached image by the view.
+     */
+    private List<PainterExecutor<?>> staticExecutors() {
+        return List.of(
                 PainterExecutor.of("Background", new BackgroundPainter(mapVariables, Color.valueOf("291e0f"))),
                 PainterExecutor.ofCollection("World", new WorldPainter(mapVariables, Color.valueOf("1a130a")), this::world),
                 PainterExecutor.ofCollection("Lakes", new WorldPainter(mapVariables, Color.valueOf("291e0f")), this::lakes),
                 PainterExecutor.ofItem("Date Line", new IdlPainter(mapVariables, Color.valueOf("3b3b3b")), this::internationalDateLine),
+                PainterExecutor.ofCollection("Inactive Firs", new InactiveFirbPainter(mapVariables), this::visibleFlightInformationRegionBoundaries, this::isNotSelected)
+        );
+    }
+
+    private List<PainterExecutor<?>> dynamicExecutors(final UpperInformationRegionRepository upperInformationRegionRepository) {
+        return List.of(
                 PainterExecutor.of("Scale", new ScalePainter(mapVariables)),
-                PainterExecutor.ofCollection("Inactive Firs", new InactiveFirbPainter(mapVariables), this::flightInformationRegionBoundaries, this::isNotSelected),
-                PainterExecutor.ofCollection("Inactive Uirs", new InactiveUirPainter(mapVariables), upperInformationRegionRepository::list, this::isNotSelected),
-                PainterExecutor.ofCollection("Active Uirs", new ActiveUirPainter(mapVariables), upperInformationRegionRepository::list, this::isNotSelected),
-                PainterExecutor.ofCollection("Active Firs", new ActiveFirbPainter(mapVariables), this::flightInformationRegionBoundaries, this::isNotSelected),
+                PainterExecutor.ofCollection("Inactive Uirs", new InactiveUirPainter(mapVariables), this::visibleUpperInformationRegions, this::isNotSelected),
+                PainterExecutor.ofCollection("Active Uirs", new ActiveUirPainter(mapVariables), this::visibleUpperInformationRegions, this::isNotSelected),
+                PainterExecutor.ofCollection("Active Firs", new ActiveFirbPainter(mapVariables), this::visibleFlightInformationRegionBoundaries, this::isNotSelected),
                 PainterExecutor.ofItem("Connections", new ConnectionsPainter(mapVariables), this.selectedItemProperty()::get),
-                PainterExecutor.ofCollection("Pilots", new PilotPainter(mapVariables), this::pilots, this::isNotSelected),
-                PainterExecutor.ofCollection("Filters", new FilterPainter(mapVariables, filterRepository.list()), this::pilots, this::isNotSelected),
-                PainterExecutor.ofCollection("Airports", new AirportPainter(mapVariables), this::airports, this::isNotSelected),
-                PainterExecutor.ofCollection("Search Items", new SelectedPainter(mapVariables, Color.DEEPSKYBLUE, true), statusScope::getSearchedData, this::isNotSelected),
-                PainterExecutor.ofItem("Selected Item", new SelectedPainter(mapVariables), selectedItem::get),
+                PainterExecutor.ofCollection("Pilots", new PilotPainter(mapVariables), this::visiblePilots, this::isNotSelected),
+                PainterExecutor.ofCollection("Filters", new FilterPainter(mapVariables, filterRepository.list(), clientRepository::getGeneration), this::visiblePilots, this::isNotSelected),
+                PainterExecutor.ofCollection("Airports", new AirportPainter(mapVariables), this::visibleAirports, this::isNotSelected),
+                PainterExecutor.ofCollection("Search Items", new SelectedPainter(mapVariables, Color.DEEPSKYBLUE, true, () -> searchedDataVersion), statusScope::getSearchedData, this::isNotSelected),
+                PainterExecutor.ofItem("Selected Item", new SelectedPainter(mapVariables), selectedItem::get)
+        );
+    }
+
+    /**
+     * Tools drawn on top of the map, painted after the labels of the map layers were placed.
+     */
+    private List<PainterExecutor<?>> overlayExecutors() {
+        return List.of(
                 PainterExecutor.ofItem("Selection Shape", new SelectionShapePainter(mapVariables), selectionShape::get),
                 PainterExecutor.ofItem("Distance Measure", new DistanceMeasurePainter(mapVariables), distanceMeasureWorld::get),
                 PainterExecutor.ofItem("Metrics", new FrameMetricsPainter(mapVariables), () -> frameMetrics)
@@ -261,6 +303,12 @@ public class MapViewModel implements ViewModel {
         publish("REPAINT");
     }
 
+    private void invalidateStaticLayers() {
+        staticLayersGeneration += 1;
+        mapVariables.setGeneration(staticLayersGeneration);
+        triggerRepaint();
+    }
+
     public DoubleProperty scaleProperty() {
         return scale;
     }
@@ -305,6 +353,63 @@ public class MapViewModel implements ViewModel {
         return airportRepository.list();
     }
 
+    private Collection<Pilot> visiblePilots() {
+        return visible(clientRepository::searchByRectangle, pilots());
+    }
+
+    private Collection<Airport> visibleAirports() {
+        return visible(airportRepository::searchByRectangle, airports());
+    }
+
+    private Collection<FlightInformationRegionBoundary> visibleFlightInformationRegionBoundaries() {
+        return visible(flightInformationRegionBoundaryRepository::searchByRectangle, flightInformationRegionBoundaries());
+    }
+
+    private Collection<UpperInformationRegion> visibleUpperInformationRegions() {
+        return visible(upperInformationRegionRepository::searchByRectangle, upperInformationRegionRepository.list());
+    }
+
+    /**
+     * Queries the spatial index with the expanded world view and its copies shifted by 360 degrees, since painters
+     * draw items wrapping around the antimeridian.
+     */
+    private <T> Collection<T> visible(final Function<Rectangle2D, List<T>> search, final Collection<T> all) {
+        final Rectangle2D view = mapVariables.worldViewExpandedBy(CULLING_MARGIN);
+
+        if (!(view.getWidth() < MapVariables.WORLD_WIDTH)) {
+            return all;
+        }
+
+        final List<T> result = search.apply(view);
+        final List<T> east = search.apply(shifted(view, MapVariables.WORLD_WIDTH));
+        final List<T> west = search.apply(shifted(view, -MapVariables.WORLD_WIDTH));
+
+        if (east.isEmpty() && west.isEmpty()) {
+            return result;
+        }
+
+        final Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.addAll(result);
+
+        for (final T t : east) {
+            if (seen.add(t)) {
+                result.add(t);
+            }
+        }
+
+        for (final T t : west) {
+            if (seen.add(t)) {
+                result.add(t);
+            }
+        }
+
+        return result;
+    }
+
+    private static Rectangle2D shifted(final Rectangle2D rectangle, final double offsetX) {
+        return new Rectangle2D(rectangle.getMinX() + offsetX, rectangle.getMinY(), rectangle.getWidth(), rectangle.getHeight());
+    }
+
     public List<Polygon> world() {
         return world;
     }
@@ -325,6 +430,29 @@ public class MapViewModel implements ViewModel {
         return painterExecutors;
     }
 
+    public List<PainterExecutor<?>> getStaticPainterExecutors() {
+        return staticPainterExecutors;
+    }
+
+    public List<PainterExecutor<?>> getDynamicPainterExecutors() {
+        return dynamicPainterExecutors;
+    }
+
+    public List<PainterExecutor<?>> getOverlayPainterExecutors() {
+        return overlayPainterExecutors;
+    }
+
+    /**
+     * Incremented whenever the static layers have to be repainted for reasons other than a viewport change.
+     */
+    public long getStaticLayersGeneration() {
+        return staticLayersGeneration;
+    }
+
+    MapVariables getMapVariables() {
+        return mapVariables;
+    }
+
     public ObjectProperty<Point2D> mouseViewPositionProperty() {
         return mouseViewPosition;
     }
@@ -382,11 +510,31 @@ public class MapViewModel implements ViewModel {
             frameMetrics.getMetric(painterExecutor.getName()).append(painterExecutor.getLastDurationNanos());
         }
 
-        frameMetrics.getMetric("Total").append(totalFrameTimeNanos);
+        final FrameMetrics.Metric total = frameMetrics.getMetric("Total");
+        total.append(totalFrameTimeNanos);
+
+        if (log.isDebugEnabled() && (frame += 1) % frameMetrics.getMaxFrames() == 0) {
+            log.debug("Frame metrics of the last %d frames:\n%s".formatted(frameMetrics.getMaxFrames(), frameMetrics.summary()));
+            logFrameMetricsCsv();
+        }
 
         painterMetricsSnapshot().forEach(this::logCounter);
     }
 
+    private void logFrameMetricsCsv() {
+        if (!log.isTraceEnabled()) {
+            return;
+        }
+
+        final StringBuilder csv = new StringBuilder();
+        try {
+            frameMetrics.writeCsv(csv);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.trace("Frame metrics CSV:\n" + csv);
+    }
+
     private void logCounter(final PainterMetric.Counter counter) {
         log.trace("%d calls to %s".formatted(counter.getCount(), counter.getName()));
     }
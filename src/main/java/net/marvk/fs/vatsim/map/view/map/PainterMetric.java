@@ -20,6 +20,8 @@ public class PainterMetric implements Iterable<PainterMetric.Counter> {
     Counter strokeLine = new Counter("strokeLine");
     Counter strokeRect = new Counter("strokeRect");
     Counter fillRect = new Counter("fillRect");
+    Counter drawImage = new Counter("drawImage");
+    Counter stateChanges = new Counter("stateChanges");
 
     @Getter(AccessLevel.PRIVATE)
     List<Counter> counters = List.of(
@@ -31,7 +33,9 @@ public class PainterMetric implements Iterable<PainterMetric.Counter> {
             strokeOval,
             strokeLine,
             strokeRect,
-            fillRect
+            fillRect,
+            drawImage,
+            stateChanges
     );
 
     @Override
@@ -70,6 +74,8 @@ public class PainterMetric implements Iterable<PainterMetric.Counter> {
             result.strokeLine.increment(metric.strokeLine);
             result.strokeRect.increment(metric.strokeRect);
             result.fillRect.increment(metric.fillRect);
+            result.drawImage.increment(metric.drawImage);
+            result.stateChanges.increment(metric.stateChanges);
         }
 
         return result;
@@ -0,0 +1,144 @@
+package net.marvk.fs.vatsim.map.view.map;
+
+import javafx.geometry.Point2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import lombok.extern.log4j.Log4j2;
+import net.marvk.fs.vatsim.map.view.painter.PainterExecutor;
+import net.marvk.fs.vatsim.map.view.painter.PainterHelper;
+
+import java.util.List;
+
+/**
+ * Caches the output of the static painters in an image that is larger than the view by {@link #MARGIN} pixels on
+ * each side. Pans within the margin only translate the cached image, the painters are run again only when the scale,
+ * the view size or the generation changes, or when a pan uncovers an area outside of the cached image.
+ * <p>
+ * Must only be used on the JavaFX application thread.
+ */
+@Log4j2
+final class StaticLayerCache {
+    private static final int MARGIN = 256;
+
+    private final MapVariables mapVariables;
+    private final Canvas canvas = new Canvas();
+    private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+
+    private WritableImage image;
+
+    private long generation;
+    private double scale;
+    private double viewWidth;
+    private double viewHeight;
+
+    /**
+     * World position of the top left pixel of the view at the time the cache was rendered
+     */
+    private Point2D origin;
+
+    StaticLayerCache(final MapVariables mapVariables) {
+        this.mapVariables = mapVariables;
+        this.snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+
+    void paint(final GraphicsContext c, final List<PainterExecutor<?>> executors, final long generation) {
+        if (mapVariables.getViewWidth() <= 0 || mapVariables.getViewHeight() <= 0) {
+            return;
+        }
+
+        if (isStale(generation)) {
+            render(c, executors, generation);
+        } else {
+            executors.forEach(PainterExecutor::skip);
+        }
+
+        c.drawImage(image, imageX(), imageY());
+    }
+
+    private boolean isStale(final long generation) {
+        if (image == null) {
+            return true;
+        }
+
+        if (this.generation != generation
+                || Double.compare(scale, mapVariables.getScale()) != 0
+                || Double.compare(viewWidth, mapVariables.getViewWidth()) != 0
+                || Double.compare(viewHeight, mapVariables.getViewHeight()) != 0) {
+            return true;
+        }
+
+        final double x = imageX();
+        final double y = imageY();
+
+        return x > 0 || y > 0 || x + image.getWidth() < viewWidth || y + image.getHeight() < viewHeight;
+    }
+
+    private double imageX() {
+        final double x = mapVariables.toCanvasX(origin.getX());
+        final double xEast = mapVariables.toCanvasX(origin.getX() + MapVariables.WORLD_WIDTH);
+        final double xWest = mapVariables.toCanvasX(origin.getX() - MapVariables.WORLD_WIDTH);
+
+        // The world center wraps around the antimeridian, use the copy of the origin closest to the view
+        double result = x;
+        if (Math.abs(xEast) < Math.abs(result)) {
+            result = xEast;
+        }
+        if (Math.abs(xWest) < Math.abs(result)) {
+            result = xWest;
+        }
+
+        return Math.round(result - MARGIN);
+    }
+
+    private double imageY() {
+        return Math.round(mapVariables.toCanvasY(origin.getY()) - MARGIN);
+    }
+
+    private void render(final GraphicsContext c, final List<PainterExecutor<?>> executors, final long generation) {
+        final long start = System.nanoTime();
+
+        this.generation = generation;
+        this.scale = mapVariables.getScale();
+        this.viewWidth = mapVariables.getViewWidth();
+        this.viewHeight = mapVariables.getViewHeight();
+        this.origin = mapVariables.toWorld(0, 0);
+
+        final double width = viewWidth + 2 * MARGIN;
+        final double height = viewHeight + 2 * MARGIN;
+
+        canvas.setWidth(width);
+        canvas.setHeight(height);
+
+        final GraphicsContext cacheContext = canvas.getGraphicsContext2D();
+        cacheContext.clearRect(0, 0, width, height);
+        cacheContext.setFont(c.getFont());
+
+        // Enlarge the view around the same center while keeping pixels per degree constant
+        mapVariables.setViewSize(width, height);
+        mapVariables.setScale(scale * viewWidth / width);
+
+        try {
+            for (final PainterExecutor<?> executor : executors) {
+                executor.paint(cacheContext);
+            }
+            PainterHelper.placeLabels(width, height);
+        } finally {
+            mapVariables.setViewSize(viewWidth, viewHeight);
+            mapVariables.setScale(scale);
+        }
+
+        final int imageWidth = (int) Math.ceil(width);
+        final int imageHeight = (int) Math.ceil(height);
+
+        if (image == null || image.getWidth() != imageWidth || image.getHeight() != imageHeight) {
+            image = new WritableImage(imageWidth, imageHeight);
+        }
+
+        canvas.snapshot(snapshotParameters, image);
+
+        log.trace("Rendered static layers in %sms".formatted((System.nanoTime() - start) / 1000000.0));
+    }
+}
@@ -12,11 +12,20 @@ import net.marvk.fs.vatsim.map.view.map.MapVariables;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 public class AirportPainter extends MapPainter<Airport> {
     private static final int TYPES_WIDTH = 9;
 
+    private static final int LAYER_APPROACH_CIRCLES = 0;
+    private static final int LAYER_APPROACH_LABELS = 1;
+    private static final int LAYER_AIRPORTS = 2;
+    private static final int LAYER_TYPES = 3;
+    private static final int LAYER_TYPE_LABELS = 4;
+    private static final int LAYER_TYPE_BORDERS = 5;
+    private static final int LAYER_APPROACH_PLACEHOLDERS = 6;
+
     @Parameter("Paint Uncontrolled Airports")
     private boolean paintAll = false;
 
@@ -31,6 +40,9 @@ public class AirportPainter extends MapPainter<Airport> {
     @Parameter("Label Color")
     private Color textColor = Color.web("80334d");
 
+    @Parameter("Declutter Labels")
+    private boolean declutter = true;
+
     @Parameter("Background")
     private boolean paintBackground = true;
     @Parameter("Background Color")
@@ -57,6 +69,20 @@ public class AirportPainter extends MapPainter<Airport> {
     @Parameter("Controller Border Color")
     private Color typesBorderColor = Color.BLACK.brighter();
 
+    /**
+     * Priority of all labels, {@code null} to prioritize controlled airports
+     */
+    private LabelPriority labelPriority = null;
+
+    private final DrawCommandBuffer buffer = new DrawCommandBuffer(mapVariables);
+
+    private boolean replaying = false;
+
+    /**
+     * Version of the painted items, for painters whose items change without a new map generation
+     */
+    private LongSupplier inputVersion = () -> 0;
+
     public AirportPainter(final MapVariables mapVariables) {
         super(mapVariables);
         setBackgroundColor();
@@ -76,8 +102,32 @@ public class AirportPainter extends MapPainter<Airport> {
         backgroundColor = textColor.deriveColor(0, 1, 0.5, 1);
     }
 
+    @Override
+    public void beforeAllRender() {
+        replaying = buffer.beginFrame(inputVersion.getAsLong());
+    }
+
+    @Override
+    public boolean canReplay() {
+        return replaying;
+    }
+
+    @Override
+    public boolean isBuffered() {
+        return true;
+    }
+
+    @Override
+    public void flush(final GraphicsContext context) {
+        painterHelper.replay(context, buffer);
+    }
+
     @Override
     public void paint(final GraphicsContext c, final Airport airport) {
+        if (replaying) {
+            return;
+        }
+
         final Point2D position = airport.getPosition();
         final double xOffset = xOffset(position);
 
@@ -92,10 +142,10 @@ public class AirportPainter extends MapPainter<Airport> {
             return;
         }
 
-        draw(c, airport, xOffset);
+        draw(airport, xOffset);
     }
 
-    private void draw(final GraphicsContext c, final Airport airport, final double xOffset) {
+    private void draw(final Airport airport, final double xOffset) {
         final Point2D point = airport.getPosition();
         final double x = (int) mapVariables.toCanvasX(point.getX() + xOffset);
         final double y = (int) mapVariables.toCanvasY(point.getY());
@@ -108,41 +158,45 @@ public class AirportPainter extends MapPainter<Airport> {
                 .sorted(ControllerType.COMPARATOR)
                 .collect(Collectors.toCollection(ArrayList::new));
 
-        c.setLineDashes(null);
-        c.setLineWidth(1);
+        buffer.setLineDashes();
+        buffer.setLineWidth(1);
 
         final String icao = airport.getIcao();
 
-        final double textScale = c.getFont().getSize() / 12.0;
+        final double textScale = mapVariables.getFontSize() / 12.0;
         final boolean paintApproachCircle = mapVariables.getScale() > (40 / approachRadius) * textScale;
         final boolean paintApproachLabel = paintApproachCircle;
         final boolean paintApproach = types.remove(ControllerType.DEP) | types.remove(ControllerType.APP);
 
         if (paintControllers) {
-            c.setTextAlign(TextAlignment.CENTER);
+            buffer.setTextAlign(TextAlignment.CENTER);
             if (paintApproach) {
                 final double r = approachRadius * mapVariables.getScale();
                 final double rHalf = r / 2.0;
 
                 if (paintApproachCircle) {
-                    c.setStroke(appColor);
-                    painterHelper.strokeOval(c, x - rHalf, y - rHalf, r, r);
+                    buffer.setLayer(LAYER_APPROACH_CIRCLES);
+                    buffer.setStroke(appColor);
+                    buffer.strokeOval(x - rHalf, y - rHalf, r, r);
                 }
 
                 if (paintApproachLabel && text) {
-                    c.setFill(appColor);
-                    c.setTextBaseline(VPos.BOTTOM);
-                    painterHelper.fillText(c, icao, x, y - rHalf);
+                    buffer.setLayer(LAYER_APPROACH_LABELS);
+                    buffer.setFill(appColor);
+                    buffer.setTextBaseline(VPos.BOTTOM);
+                    buffer.fillText(icao, x, y - rHalf);
                 }
             }
         }
 
-        c.setFill(airportColor);
-        painterHelper.fillRect(c, x - 2, y, 5, 1);
-        painterHelper.fillRect(c, x, y - 2, 1, 5);
+        buffer.setLayer(LAYER_AIRPORTS);
+        buffer.setFill(airportColor);
+        buffer.fillRect(x - 2, y, 5, 1);
+        buffer.fillRect(x, y - 2, 1, 5);
 
         if (paintControllers) {
-            c.setTextBaseline(VPos.TOP);
+            buffer.setTextBaseline(VPos.TOP);
+            buffer.setStroke(typesBorderColor);
             if (paintApproach && types.isEmpty() && !paintApproachCircle) {
                 types.add(ControllerType.APP);
             }
@@ -152,37 +206,42 @@ public class AirportPainter extends MapPainter<Airport> {
             final int typesWidth = (int) Math.ceil(textScale * TYPES_WIDTH);
             for (int i = 0; i < n; i++) {
                 final ControllerType type = types.get(i);
-                c.setFill(color(type));
-                c.setStroke(typesBorderColor);
                 final double xCur = typeLabelX(x, n, i, typesWidth);
                 final double yCur = typeLabelY(y);
-                painterHelper.fillRect(c, xCur, yCur, typesWidth, typesWidth);
+
+                buffer.setLayer(LAYER_TYPES);
+                buffer.setFill(color(type));
+                buffer.fillRect(xCur, yCur, typesWidth, typesWidth);
 
                 if (type != ControllerType.APP) {
-                    c.setFill(typesLabelColor);
-                    painterHelper.fillText(
-                            c,
+                    buffer.setLayer(LAYER_TYPE_LABELS);
+                    buffer.setFill(typesLabelColor);
+                    buffer.fillText(
                             type.toString().substring(0, 1),
                             xCur + typesWidth / 2.0,
                             yCur - 3
                     );
                 }
 
-                painterHelper.strokeRect(c, xCur - 0.5, yCur - 0.5, typesWidth + 1, typesWidth + 1);
+                buffer.setLayer(LAYER_TYPE_BORDERS);
+                buffer.strokeRect(xCur - 0.5, yCur - 0.5, typesWidth + 1, typesWidth + 1);
             }
 
             if (paintApproach && !paintApproachCircle) {
-                c.setStroke(appColor);
+                buffer.setLayer(LAYER_APPROACH_PLACEHOLDERS);
+                buffer.setStroke(appColor);
                 final double xCur = typeLabelX(x, n, 0, typesWidth);
                 final double yCur = typeLabelY(y);
 
-                painterHelper.strokeRect(c, xCur - 1.5, yCur - 1.5, n * (typesWidth + 1) + 2, typesWidth + 3);
+                buffer.strokeRect(xCur - 1.5, yCur - 1.5, n * (typesWidth + 1) + 2, typesWidth + 3);
             }
         }
 
         if (text) {
-            painterHelper.fillTextWithBackground(
-                    c,
+            final LabelPriority priority = labelPriority(airport);
+
+            buffer.defer(context -> painterHelper.fillLabel(
+                    context,
                     x,
                     labelY(y),
                     icao,
@@ -190,9 +249,30 @@ public class AirportPainter extends MapPainter<Airport> {
                     TextAlignment.CENTER,
                     VPos.BOTTOM,
                     textColor,
-                    backgroundColor
-            );
+                    backgroundColor,
+                    priority
+            ));
+        }
+    }
+
+    void setLabelPriority(final LabelPriority labelPriority) {
+        this.labelPriority = labelPriority;
+    }
+
+    void setInputVersion(final LongSupplier inputVersion) {
+        this.inputVersion = inputVersion;
+    }
+
+    private LabelPriority labelPriority(final Airport airport) {
+        if (!declutter) {
+            return null;
+        }
+
+        if (labelPriority != null) {
+            return labelPriority;
         }
+
+        return airport.hasControllers() ? LabelPriority.CONTROLLED_AIRPORT : LabelPriority.AIRPORT;
     }
 
     private double xOffset(final Point2D point) {
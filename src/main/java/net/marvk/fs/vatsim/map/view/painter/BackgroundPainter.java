@@ -15,7 +15,7 @@ public class BackgroundPainter extends AlwaysOnMapPainter<Void> {
 
     @Override
     public void paint(final GraphicsContext c, final Void unused) {
-        c.setFill(Color.color(color.getRed(), color.getGreen(), color.getBlue()));
+        painterHelper.setFill(c, Color.color(color.getRed(), color.getGreen(), color.getBlue()));
         painterHelper.fillRect(c, 0, 0, mapVariables.getViewWidth(), mapVariables.getViewHeight());
     }
 
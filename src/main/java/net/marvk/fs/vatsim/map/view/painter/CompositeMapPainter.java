@@ -1,5 +1,6 @@
 package net.marvk.fs.vatsim.map.view.painter;
 
+import javafx.scene.canvas.GraphicsContext;
 import net.marvk.fs.vatsim.map.view.map.PainterMetric;
 
 import java.util.Collection;
@@ -56,4 +57,24 @@ public abstract class CompositeMapPainter<T> extends DisableablePainter<T> {
             painter.afterAllRender();
         }
     }
+
+    @Override
+    public void flush(final GraphicsContext context) {
+        for (final Painter<?> painter : getPainters()) {
+            painter.flush(context);
+        }
+    }
+
+    @Override
+    public boolean canReplay() {
+        return getPainters().stream().allMatch(Painter::canReplay);
+    }
+
+    /**
+     * A composite is buffered if all of its painters are, so its own paint method must only delegate to its painters.
+     */
+    @Override
+    public boolean isBuffered() {
+        return getPainters().stream().allMatch(Painter::isBuffered);
+    }
 }
@@ -77,7 +77,6 @@ public class ConnectionsPainter extends CompositeMapPainter<Data> {
 
     @Override
     public void paint(final GraphicsContext c, final Data data) {
-        c.setLineWidth(strokeWidth);
         painterVisitor.visit(data).accept(c);
     }
 
@@ -139,6 +138,10 @@ public class ConnectionsPainter extends CompositeMapPainter<Data> {
         private final Supplier<Color> departureColorSupplier;
         private final Supplier<Color> arrivalColorSupplier;
 
+        private final DrawCommandBuffer buffer = new DrawCommandBuffer(mapVariables);
+
+        private boolean replaying = false;
+
         public ConnectionPainter(
                 final MapVariables mapVariables,
                 final boolean history,
@@ -155,69 +158,91 @@ public class ConnectionsPainter extends CompositeMapPainter<Data> {
             this.arrivalColorSupplier = arrivalColorSupplier;
         }
 
+        @Override
+        public void beforeAllRender() {
+            replaying = buffer.beginFrame();
+        }
+
+        @Override
+        public boolean canReplay() {
+            return replaying;
+        }
+
+        @Override
+        public boolean isBuffered() {
+            return true;
+        }
+
+        @Override
+        public void flush(final GraphicsContext context) {
+            painterHelper.replay(context, buffer);
+        }
+
         @Override
         public void paint(final GraphicsContext c, final Connection connection) {
-            if (!enabled) {
+            if (!enabled || replaying) {
                 return;
             }
 
+            buffer.setLineWidth(strokeWidth);
+
             final Airport departureAirport = connection.getDeparture();
             final Pilot pilot = connection.getPilot();
             final Airport arrivalAirport = connection.getArrival();
 
             if (arrival && arrivalAirport != null) {
-                setArrivalStroke(c);
-                connect(c, pilot.getPosition(), arrivalAirport.getPosition());
+                setArrivalStroke();
+                connect(pilot.getPosition(), arrivalAirport.getPosition());
             }
 
             if (history) {
-                setHistoryStroke(c);
-                painterHelper.strokePolyline(c, pilot.getHistory().toArray(Point2D[]::new));
+                setHistoryStroke();
+                painterHelper.strokePolyline(buffer, pilot.getHistory());
             }
 
             if (departure && departureAirport != null) {
-                setDepartureStroke(c);
-                if (history) {
-                    connect(c, departureAirport.getPosition(), pilot.getHistory().get(0));
+                setDepartureStroke();
+                if (history && !pilot.getHistory().isEmpty()) {
+                    connect(departureAirport.getPosition(), pilot.getHistory().get(0));
                 } else {
-                    connect(c, departureAirport.getPosition(), pilot.getPosition());
+                    connect(departureAirport.getPosition(), pilot.getPosition());
                 }
             }
         }
 
-        private void setArrivalStroke(final GraphicsContext c) {
-            c.setLineDashes(1, 5);
-            c.setStroke(arrivalColorSupplier.get());
+        private void setArrivalStroke() {
+            buffer.setLineDashes(1, 5);
+            buffer.setStroke(arrivalColorSupplier.get());
         }
 
-        private void setDepartureStroke(final GraphicsContext c) {
-            c.setLineDashes(1, 10);
-            c.setStroke(departureColorSupplier.get());
+        private void setDepartureStroke() {
+            buffer.setLineDashes(1, 10);
+            buffer.setStroke(departureColorSupplier.get());
         }
 
-        private void setHistoryStroke(final GraphicsContext c) {
-            c.setLineDashes(null);
-            c.setStroke(departureColorSupplier.get());
+        private void setHistoryStroke() {
+            buffer.setLineDashes();
+            buffer.setStroke(departureColorSupplier.get());
         }
 
-        private void connect(final GraphicsContext c, final Point2D p1, final Point2D p2) {
+        private void connect(final Point2D p1, final Point2D p2) {
             if (greatCircle) {
-                greatCircleLine(c, p1, p2);
+                greatCircleLine(p1, p2);
             } else {
-                line(c, p1, p2, 0);
-                line(c, p1, p2, (int) (Math.signum(p2.getX()) * -360));
+                line(p1, p2, 0);
+                line(p1, p2, (int) (Math.signum(p2.getX()) * -360));
             }
         }
 
-        private void greatCircleLine(final GraphicsContext c, final Point2D p1, final Point2D p2) {
+        private void greatCircleLine(final Point2D p1, final Point2D p2) {
             final Point2D[] points = GeomUtil.greatCirclePolyline(p1, p2, getGreatCircleBufferArray());
-            painterHelper.strokePolyline(c, points);
+            painterHelper.strokePolyline(buffer, points);
         }
 
-        private void line(final GraphicsContext c, final Point2D p1, final Point2D p2, final int offsetX) {
+        private void line(final Point2D p1, final Point2D p2, final int offsetX) {
             final Point2D c1 = mapVariables.toCanvas(p1.add(offsetX, 0));
             final Point2D c2 = mapVariables.toCanvas(p2.add(offsetX, 0));
-            painterHelper.strokeLine(c, c1.getX(), c1.getY(), c2.getX(), c2.getY());
+            buffer.strokeLine(c1.getX(), c1.getY(), c2.getX(), c2.getY());
         }
 
     }
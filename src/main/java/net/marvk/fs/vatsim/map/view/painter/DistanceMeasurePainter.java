@@ -48,10 +48,10 @@ public class DistanceMeasurePainter extends MapPainter<DistanceMeasure> {
         final double x2 = mapVariables.toCanvasX(distanceMeasure.getTo().getX());
         final double y2 = mapVariables.toCanvasY(distanceMeasure.getTo().getY());
 
-        c.setLineDashes(null);
-        c.setLineWidth(1);
-        c.setStroke(color);
-        c.setFill(color);
+        painterHelper.setLineDashes(c, null);
+        painterHelper.setLineWidth(c, 1);
+        painterHelper.setStroke(c, color);
+        painterHelper.setFill(c, color);
         paintCircles(c, distanceMeasure.getFrom(), W, false);
         if (distanceMeasure.isReleased()) {
             paintCircles(c, distanceMeasure.getTo(), W, false);
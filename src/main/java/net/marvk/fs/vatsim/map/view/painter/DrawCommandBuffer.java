@@ -0,0 +1,443 @@
+package net.marvk.fs.vatsim.map.view.painter;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.TextAlignment;
+import lombok.Value;
+import net.marvk.fs.vatsim.map.view.map.MapVariables;
+import net.marvk.fs.vatsim.map.view.map.PainterMetric;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Retained draw commands of a painter, grouped by graphics state.
+ * <p>
+ * Painters set the state and emit primitives into the buffer instead of the graphics context. Primitives are stored in
+ * one group per layer and graphics state. On replay the groups are submitted by layer and within a layer in the order
+ * of their first use, so every state is set once per group instead of once per primitive. Primitives of the same layer
+ * must not depend on the order in which they are drawn. Deferred calls, for example labels, run after all groups.
+ * <p>
+ * If neither the viewport, the font size, the generation of the map variables nor the input version passed by the
+ * painter changed since the last frame was recorded, the last frame can be replayed without painting again. The storage of the groups is kept between frames.
+ * <p>
+ * Draw calls may be recorded on any thread, but only by one thread at a time. The buffer must be replayed on the JavaFX
+ * application thread once recording finished.
+ */
+public final class DrawCommandBuffer {
+    private static final byte STROKE_RECT = 0;
+    private static final byte FILL_RECT = 1;
+    private static final byte STROKE_LINE = 2;
+    private static final byte STROKE_OVAL = 3;
+    private static final byte FILL_TEXT = 4;
+    private static final byte DRAW_IMAGE = 5;
+    private static final byte STROKE_POLYLINE = 6;
+
+    private final MapVariables mapVariables;
+
+    private final Map<State, Group> groups = new HashMap<>();
+    private final List<Group> frameGroups = new ArrayList<>();
+    private final List<Consumer<GraphicsContext>> deferred = new ArrayList<>();
+
+    private int layer = 0;
+    private Paint fill;
+    private Paint stroke;
+    private double lineWidth = 1;
+    private double[] lineDashes;
+    private TextAlignment textAlign = TextAlignment.LEFT;
+    private VPos textBaseline = VPos.BASELINE;
+
+    private Group current;
+
+    private double[] xPoints = new double[64];
+    private double[] yPoints = new double[64];
+
+    private boolean recorded = false;
+    private long generation;
+    private long inputVersion;
+    private double scale;
+    private double worldCenterX;
+    private double worldCenterY;
+    private double viewWidth;
+    private double viewHeight;
+    private double fontSize;
+
+    public DrawCommandBuffer(final MapVariables mapVariables) {
+        this.mapVariables = mapVariables;
+    }
+
+    /**
+     * Starts a frame, the buffer is cleared unless the last frame can be replayed.
+     *
+     * @return {@code true} if the last frame can be replayed without painting again
+     */
+    public boolean beginFrame() {
+        return beginFrame(0);
+    }
+
+    /**
+     * Starts a frame, the buffer is cleared unless the last frame can be replayed.
+     *
+     * @param inputVersion the version of the painter input that is not covered by the generation of the map variables
+     *
+     * @return {@code true} if the last frame can be replayed without painting again
+     */
+    public boolean beginFrame(final long inputVersion) {
+        if (recorded
+                && generation == mapVariables.getGeneration()
+                && this.inputVersion == inputVersion
+                && Double.compare(scale, mapVariables.getScale()) == 0
+                && Double.compare(worldCenterX, mapVariables.getWorldCenterX()) == 0
+                && Double.compare(worldCenterY, mapVariables.getWorldCenterY()) == 0
+                && Double.compare(viewWidth, mapVariables.getViewWidth()) == 0
+                && Double.compare(viewHeight, mapVariables.getViewHeight()) == 0
+                && Double.compare(fontSize, mapVariables.getFontSize()) == 0) {
+            return true;
+        }
+
+        recorded = false;
+        generation = mapVariables.getGeneration();
+        this.inputVersion = inputVersion;
+        scale = mapVariables.getScale();
+        worldCenterX = mapVariables.getWorldCenterX();
+        worldCenterY = mapVariables.getWorldCenterY();
+        viewWidth = mapVariables.getViewWidth();
+        viewHeight = mapVariables.getViewHeight();
+        fontSize = mapVariables.getFontSize();
+
+        clear();
+
+        return false;
+    }
+
+    private void clear() {
+        // Groups of states that were not used in the last frame are dropped, the others keep their storage
+        groups.values().removeIf(e -> !frameGroups.contains(e));
+        frameGroups.forEach(Group::clear);
+        frameGroups.clear();
+        deferred.clear();
+        current = null;
+
+        layer = 0;
+        fill = null;
+        stroke = null;
+        lineWidth = 1;
+        lineDashes = null;
+        textAlign = TextAlignment.LEFT;
+        textBaseline = VPos.BASELINE;
+    }
+
+    public void setLayer(final int layer) {
+        if (this.layer != layer) {
+            this.layer = layer;
+            current = null;
+        }
+    }
+
+    public void setFill(final Paint fill) {
+        if (!Objects.equals(this.fill, fill)) {
+            this.fill = fill;
+            current = null;
+        }
+    }
+
+    public void setStroke(final Paint stroke) {
+        if (!Objects.equals(this.stroke, stroke)) {
+            this.stroke = stroke;
+            current = null;
+        }
+    }
+
+    public void setLineWidth(final double lineWidth) {
+        if (Double.compare(this.lineWidth, lineWidth) != 0) {
+            this.lineWidth = lineWidth;
+            current = null;
+        }
+    }
+
+    public void setLineDashes(final double... lineDashes) {
+        final double[] normalized = lineDashes == null || lineDashes.length == 0 ? null : lineDashes;
+        if (!Arrays.equals(this.lineDashes, normalized)) {
+            this.lineDashes = normalized == null ? null : normalized.clone();
+            current = null;
+        }
+    }
+
+    public void setTextAlign(final TextAlignment textAlign) {
+        if (this.textAlign != textAlign) {
+            this.textAlign = textAlign;
+            current = null;
+        }
+    }
+
+    public void setTextBaseline(final VPos textBaseline) {
+        if (this.textBaseline != textBaseline) {
+            this.textBaseline = textBaseline;
+            current = null;
+        }
+    }
+
+    public void strokeRect(final double x, final double y, final double w, final double h) {
+        if (mapVariables.isRectIntersectingCanvasView(x, y, w, h)) {
+            group().add(STROKE_RECT, null, x, y, w, h);
+        }
+    }
+
+    public void fillRect(final double x, final double y, final double w, final double h) {
+        if (mapVariables.isRectIntersectingCanvasView(x, y, w, h)) {
+            group().add(FILL_RECT, null, x, y, w, h);
+        }
+    }
+
+    public void strokeLine(final double x1, final double y1, final double x2, final double y2) {
+        if (mapVariables.isLineIntersectingCanvasView(x1, y1, x2, y2)) {
+            group().add(STROKE_LINE, null, x1, y1, x2, y2);
+        }
+    }
+
+    public void strokeOval(final double x, final double y, final double w, final double h) {
+        group().add(STROKE_OVAL, null, x, y, w, h);
+    }
+
+    public void fillText(final String text, final double x, final double y) {
+        if (mapVariables.isRectIntersectingCanvasView(x - 150, y - 150, 300, 300)) {
+            group().add(FILL_TEXT, text, x, y);
+        }
+    }
+
+    public void drawImage(
+            final Image image,
+            final double sx,
+            final double sy,
+            final double sw,
+            final double sh,
+            final double dx,
+            final double dy,
+            final double dw,
+            final double dh
+    ) {
+        if (mapVariables.isRectIntersectingCanvasView(dx, dy, dw, dh)) {
+            group().add(DRAW_IMAGE, image, new double[]{sx, sy, sw, sh, dx, dy, dw, dh});
+        }
+    }
+
+    public void strokePolyline(final double[] xPoints, final double[] yPoints, final int nPoints) {
+        group().add(STROKE_POLYLINE, xPoints, yPoints, nPoints);
+    }
+
+    /**
+     * Runs the call with the graphics context of the replay after all groups were replayed.
+     */
+    public void defer(final Consumer<GraphicsContext> call) {
+        deferred.add(call);
+    }
+
+    private Group group() {
+        if (current == null) {
+            final State state = new State(layer, fill, stroke, lineWidth, lineDashes, textAlign, textBaseline);
+            current = groups.computeIfAbsent(state, Group::new);
+            if (current.isEmpty()) {
+                frameGroups.add(current);
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Submits the groups to the graphics context and marks the frame as recorded.
+     */
+    void replay(final GraphicsContext c, final PainterMetric metric) {
+        recorded = true;
+
+        frameGroups.sort(Comparator.comparingInt((Group e) -> e.state.layer));
+
+        State applied = null;
+
+        for (final Group group : frameGroups) {
+            applied = apply(c, metric, applied, group.state);
+            group.replay(c, metric);
+        }
+
+        for (final Consumer<GraphicsContext> call : deferred) {
+            call.accept(c);
+        }
+    }
+
+    private static State apply(final GraphicsContext c, final PainterMetric metric, final State applied, final State state) {
+        if (applied == null || !Objects.equals(applied.fill, state.fill)) {
+            c.setFill(state.fill);
+            metric.getStateChanges().increment();
+        }
+        if (applied == null || !Objects.equals(applied.stroke, state.stroke)) {
+            c.setStroke(state.stroke);
+            metric.getStateChanges().increment();
+        }
+        if (applied == null || Double.compare(applied.lineWidth, state.lineWidth) != 0) {
+            c.setLineWidth(state.lineWidth);
+            metric.getStateChanges().increment();
+        }
+        if (applied == null || !Arrays.equals(applied.lineDashes, state.lineDashes)) {
+            c.setLineDashes(state.lineDashes);
+            metric.getStateChanges().increment();
+        }
+        if (applied == null || applied.textAlign != state.textAlign) {
+            c.setTextAlign(state.textAlign);
+            metric.getStateChanges().increment();
+        }
+        if (applied == null || applied.textBaseline != state.textBaseline) {
+            c.setTextBaseline(state.textBaseline);
+            metric.getStateChanges().increment();
+        }
+        return state;
+    }
+
+    @Value
+    private static class State {
+        int layer;
+        Paint fill;
+        Paint stroke;
+        double lineWidth;
+        double[] lineDashes;
+        TextAlignment textAlign;
+        VPos textBaseline;
+    }
+
+    private final class Group {
+        private final State state;
+
+        private byte[] ops = new byte[64];
+        private double[] args = new double[256];
+        private Object[] refs = new Object[64];
+        private int opCount = 0;
+        private int argCount = 0;
+
+        private Group(final State state) {
+            this.state = state;
+        }
+
+        private boolean isEmpty() {
+            return opCount == 0;
+        }
+
+        private void clear() {
+            Arrays.fill(refs, 0, opCount, null);
+            opCount = 0;
+            argCount = 0;
+        }
+
+        private void add(final byte op, final Object ref, final double a0, final double a1) {
+            ensureCapacity(2);
+            addOp(op, ref);
+            args[argCount++] = a0;
+            args[argCount++] = a1;
+        }
+
+        private void add(final byte op, final Object ref, final double a0, final double a1, final double a2, final double a3) {
+            ensureCapacity(4);
+            addOp(op, ref);
+            args[argCount++] = a0;
+            args[argCount++] = a1;
+            args[argCount++] = a2;
+            args[argCount++] = a3;
+        }
+
+        private void add(final byte op, final Object ref, final double[] values) {
+            ensureCapacity(values.length);
+            addOp(op, ref);
+            System.arraycopy(values, 0, args, argCount, values.length);
+            argCount += values.length;
+        }
+
+        private void add(final byte op, final double[] xPoints, final double[] yPoints, final int nPoints) {
+            ensureCapacity(1 + 2 * nPoints);
+            addOp(op, null);
+            args[argCount++] = nPoints;
+            System.arraycopy(xPoints, 0, args, argCount, nPoints);
+            argCount += nPoints;
+            System.arraycopy(yPoints, 0, args, argCount, nPoints);
+            argCount += nPoints;
+        }
+
+        private void ensureCapacity(final int argLength) {
+            if (opCount == ops.length) {
+                ops = Arrays.copyOf(ops, ops.length * 2);
+                refs = Arrays.copyOf(refs, refs.length * 2);
+            }
+
+            if (argCount + argLength > args.length) {
+                args = Arrays.copyOf(args, Math.max(args.length * 2, argCount + argLength));
+            }
+        }
+
+        private void addOp(final byte op, final Object ref) {
+            ops[opCount] = op;
+            refs[opCount] = ref;
+            opCount += 1;
+        }
+
+        private void replay(final GraphicsContext c, final PainterMetric metric) {
+            int a = 0;
+
+            for (int i = 0; i < opCount; i++) {
+                switch (ops[i]) {
+                    case STROKE_RECT -> {
+                        metric.getStrokeRect().increment();
+                        c.strokeRect(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                        a += 4;
+                    }
+                    case FILL_RECT -> {
+                        metric.getFillRect().increment();
+                        c.fillRect(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                        a += 4;
+                    }
+                    case STROKE_LINE -> {
+                        metric.getStrokeLine().increment();
+                        c.strokeLine(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                        a += 4;
+                    }
+                    case STROKE_OVAL -> {
+                        metric.getStrokeOval().increment();
+                        c.strokeOval(args[a], args[a + 1], args[a + 2], args[a + 3]);
+                        a += 4;
+                    }
+                    case FILL_TEXT -> {
+                        metric.getFillText().increment();
+                        c.fillText((String) refs[i], args[a], args[a + 1]);
+                        a += 2;
+                    }
+                    case DRAW_IMAGE -> {
+                        metric.getDrawImage().increment();
+                        c.drawImage(
+                                (Image) refs[i],
+                                args[a],
+                                args[a + 1],
+                                args[a + 2],
+                                args[a + 3],
+                                args[a + 4],
+                                args[a + 5],
+                                args[a + 6],
+                                args[a + 7]
+                        );
+                        a += 8;
+                    }
+                    case STROKE_POLYLINE -> {
+                        metric.getStrokePolyline().increment();
+                        final int n = (int) args[a];
+                        if (xPoints.length < n) {
+                            xPoints = new double[Math.max(n, xPoints.length * 2)];
+                            yPoints = new double[xPoints.length];
+                        }
+                        System.arraycopy(args, a + 1, xPoints, 0, n);
+                        System.arraycopy(args, a + 1 + n, yPoints, 0, n);
+                        c.strokePolyline(xPoints, yPoints, n);
+                        a += 1 + 2 * n;
+                    }
+                    default -> throw new IllegalStateException("Unknown op " + ops[i]);
+                }
+            }
+        }
+    }
+}
@@ -6,19 +6,30 @@ import javafx.scene.canvas.GraphicsContext;
 import net.marvk.fs.vatsim.map.data.Filter;
 import net.marvk.fs.vatsim.map.data.Pilot;
 import net.marvk.fs.vatsim.map.view.map.MapVariables;
+import net.marvk.fs.vatsim.map.view.map.PainterMetric;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
+/**
+ * Paints pilots in the colors of the filters they match.
+ * <p>
+ * Filter results only change when the pilots are reloaded or the filters change, so the indices of the matching
+ * filters are cached per pilot until the generation supplied by the client repository changes.
+ */
 public class FilterPainter extends CompositeMapPainter<Pilot> {
 
     private final List<FilteredPilotPainter> filterPainters;
+    private final Map<Pilot, BitSet> matches = new IdentityHashMap<>();
+    private final LongSupplier generation;
+    private long cachedGeneration;
     private MapVariables mapVariables;
 
-    public FilterPainter(final MapVariables mapVariables, final ObservableList<Filter> filters) {
+    public FilterPainter(final MapVariables mapVariables, final ObservableList<Filter> filters, final LongSupplier generation) {
         this.mapVariables = mapVariables;
+        this.generation = generation;
+        this.cachedGeneration = generation.getAsLong();
         filterPainters = filters
                 .stream()
                 .map(FilteredPilotPainter::new)
@@ -29,6 +40,7 @@ public class FilterPainter extends CompositeMapPainter<Pilot> {
                 filterPainters.removeIf(e -> c.getRemoved().contains(e.filter));
                 c.getAddedSubList().forEach(e -> filterPainters.add(new FilteredPilotPainter(e)));
             }
+            matches.clear();
         });
     }
 
@@ -42,11 +54,36 @@ public class FilterPainter extends CompositeMapPainter<Pilot> {
         return filterPainters;
     }
 
+    @Override
+    public void beforeAllRender() {
+        super.beforeAllRender();
+
+        final long currentGeneration = generation.getAsLong();
+        if (currentGeneration != cachedGeneration) {
+            matches.clear();
+            cachedGeneration = currentGeneration;
+        }
+    }
+
     @Override
     public void paint(final GraphicsContext context, final Pilot pilot) {
-        for (final FilteredPilotPainter painter : filterPainters) {
-            painter.paint(context, pilot);
+        final BitSet pilotMatches = matches.computeIfAbsent(pilot, this::match);
+
+        for (int i = pilotMatches.nextSetBit(0); i >= 0; i = pilotMatches.nextSetBit(i + 1)) {
+            filterPainters.get(i).paint(context, pilot);
+        }
+    }
+
+    private BitSet match(final Pilot pilot) {
+        final BitSet result = new BitSet(filterPainters.size());
+
+        for (int i = 0; i < filterPainters.size(); i++) {
+            if (filterPainters.get(i).filter.test(pilot)) {
+                result.set(i);
+            }
         }
+
+        return result;
     }
 
     private class FilteredPilotPainter extends MapPainter<Pilot> {
@@ -60,11 +97,39 @@ public class FilterPainter extends CompositeMapPainter<Pilot> {
             this.filter = filter;
         }
 
+        @Override
+        public void beforeAllRender() {
+            painter.beforeAllRender();
+        }
+
+        @Override
+        public void afterAllRender() {
+            painter.afterAllRender();
+        }
+
+        @Override
+        public void flush(final GraphicsContext context) {
+            painter.flush(context);
+        }
+
+        @Override
+        public boolean canReplay() {
+            return painter.canReplay();
+        }
+
+        @Override
+        public boolean isBuffered() {
+            return painter.isBuffered();
+        }
+
+        @Override
+        public PainterMetric getMetricsSnapshot() {
+            return painter.getMetricsSnapshot();
+        }
+
         @Override
         public void paint(final GraphicsContext c, final Pilot pilot) {
-            if (filter.test(pilot)) {
-                painter.paint(c, pilot);
-            }
+            painter.paint(c, pilot);
         }
     }
 }
@@ -1,5 +1,6 @@
 package net.marvk.fs.vatsim.map.view.painter;
 
+import javafx.application.Platform;
 import javafx.geometry.Point2D;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.GraphicsContext;
@@ -7,13 +8,16 @@ import javafx.scene.paint.*;
 import javafx.scene.text.TextAlignment;
 import net.marvk.fs.vatsim.map.data.FlightInformationRegionBoundary;
 import net.marvk.fs.vatsim.map.data.Polygon;
+import net.marvk.fs.vatsim.map.view.Notifications;
 import net.marvk.fs.vatsim.map.view.map.MapVariables;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class FirbPainter extends MapPainter<FlightInformationRegionBoundary> {
     private static final int MULTI_DRAW_BOUND = 20;
+    private static final double POLY_LABEL_PIXEL_PRECISION = 4;
     @Parameter("Fill")
     private final boolean fill;
     @Parameter("Fill Color")
@@ -28,8 +32,13 @@ public class FirbPainter extends MapPainter<FlightInformationRegionBoundary> {
     private final boolean label;
     @Parameter("Label Color")
     private final Color textColor;
+    @Parameter("Declutter Labels")
+    private boolean declutter = true;
+
+    private LabelPriority labelPriority = LabelPriority.FIR;
 
     private final Set<FlightInformationRegionBoundary> paintedFirbs = new HashSet<>();
+    private final AtomicBoolean repaintPending = new AtomicBoolean();
 
     public FirbPainter(final MapVariables mapVariables, final Color strokeColor, final double lineWidth, final boolean fill, final boolean stroke, final boolean label) {
         super(mapVariables);
@@ -46,6 +55,10 @@ public class FirbPainter extends MapPainter<FlightInformationRegionBoundary> {
         this(mapVariables, strokeColor, lineWidth, false, true, false);
     }
 
+    void setLabelPriority(final LabelPriority labelPriority) {
+        this.labelPriority = labelPriority;
+    }
+
     @Override
     public void afterAllRender() {
         paintedFirbs.clear();
@@ -64,47 +77,72 @@ public class FirbPainter extends MapPainter<FlightInformationRegionBoundary> {
         final Polygon polygon = firb.getPolygon();
 
         if (fill) {
-            c.setFill(fillColor);
+            painterHelper.setFill(c, fillColor);
             painterHelper.fillPolygons(c, polygon);
         }
 
         if (stroke) {
-            c.setStroke(strokeColor);
-            c.setLineWidth(lineWidth);
-            c.setLineDashes(null);
+            painterHelper.setStroke(c, strokeColor);
+            painterHelper.setLineWidth(c, lineWidth);
+            painterHelper.setLineDashes(c, null);
             painterHelper.strokePolygons(c, polygon);
         }
 
         if (label) {
-            final double centerX = mapVariables.toCanvasX(firb.getPolygon().getExteriorRing().getPolyLabel().getX());
+            final Point2D polyLabel = firb.getPolygon().getExteriorRing().getPolyLabel(polyLabelPrecision(), this::polyLabelComputed);
+
+            if (polyLabel == null) {
+                return;
+            }
+
+            final double centerX = mapVariables.toCanvasX(polyLabel.getX());
             if (centerX - MULTI_DRAW_BOUND < 0) {
-                drawLabel(c, firb, 360);
+                drawLabel(c, firb, polyLabel, 360);
             }
 
             if (centerX + MULTI_DRAW_BOUND > mapVariables.getViewWidth()) {
-                drawLabel(c, firb, -360);
+                drawLabel(c, firb, polyLabel, -360);
             }
 
-            drawLabel(c, firb, 0);
+            drawLabel(c, firb, polyLabel, 0);
         }
     }
 
-    private void drawLabel(final GraphicsContext c, final FlightInformationRegionBoundary firb, final double offsetX) {
-        final Point2D polyLabel = firb.getPolygon().getExteriorRing().getPolyLabel();
-
-        if (polyLabel != null) {
-            c.setFill(textColor);
-            c.setTextAlign(TextAlignment.CENTER);
-            c.setTextBaseline(VPos.CENTER);
-            painterHelper.fillText(
-                    c,
-                    "%s%s".formatted(firb.getIcao(), firb.isOceanic() ? " Oceanic" : ""),
-                    mapVariables.toCanvasX(polyLabel.getX() + offsetX),
-                    mapVariables.toCanvasY(polyLabel.getY())
-            );
+    /**
+     * Labels may be painted into the cached static layers, so these have to be painted again to move the label from
+     * the preliminary position to the computed one.
+     */
+    private void polyLabelComputed() {
+        if (repaintPending.compareAndSet(false, true)) {
+            Platform.runLater(() -> {
+                repaintPending.set(false);
+                Notifications.REPAINT_ALL.publish();
+            });
         }
     }
 
+    /**
+     * Labels only need to be accurate to a few pixels, so the precision increases when zooming in
+     */
+    private double polyLabelPrecision() {
+        return POLY_LABEL_PIXEL_PRECISION / mapVariables.worldWidthToViewWidth(1);
+    }
+
+    private void drawLabel(final GraphicsContext c, final FlightInformationRegionBoundary firb, final Point2D polyLabel, final double offsetX) {
+        painterHelper.fillLabel(
+                c,
+                mapVariables.toCanvasX(polyLabel.getX() + offsetX),
+                mapVariables.toCanvasY(polyLabel.getY()),
+                "%s%s".formatted(firb.getIcao(), firb.isOceanic() ? " Oceanic" : ""),
+                false,
+                TextAlignment.CENTER,
+                VPos.CENTER,
+                textColor,
+                null,
+                declutter ? labelPriority : null
+        );
+    }
+
     private Paint hatched(final FlightInformationRegionBoundary firb) {
         final double cx = mapVariables.toCanvasX(firb.getPolygon().boundary().getMinX());
         final double cy = mapVariables.toCanvasY(firb.getPolygon().boundary().getMinY());
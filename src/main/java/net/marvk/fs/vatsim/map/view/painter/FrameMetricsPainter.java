@@ -75,7 +75,7 @@ public class FrameMetricsPainter extends MapPainter<FrameMetrics> {
         final double xOffset = x + borderWidth;
         final double yOffset = y + borderWidth;
 
-        c.setFill(Color.GRAY.darker().darker());
+        painterHelper.setFill(c, Color.GRAY.darker().darker());
         final int chartWidth = chartWidth(chartColumns);
         final int width = averageListWidth() + chartWidth;
         painterHelper.fillRect(c, x, y, width, getChartHeight() + borderWidth * 2);
@@ -107,31 +107,31 @@ public class FrameMetricsPainter extends MapPainter<FrameMetrics> {
                     }
                 }
 
-                c.setTextAlign(TextAlignment.RIGHT);
+                painterHelper.setTextAlign(c, TextAlignment.RIGHT);
                 if (totalMetric && !residualMetric) {
-                    c.setFill(TOTAL_COLOR);
+                    painterHelper.setFill(c, TOTAL_COLOR);
                 } else {
-                    c.setFill(COLORS[i]);
+                    painterHelper.setFill(c, COLORS[i]);
                 }
                 final double yCur = yOffset - 20 + n * 20 - i * 20;
                 final double xCur = xOffset + AVERAGES_X_OFFSET + chartWidth;
                 painterHelper.fillText(c, name, xCur, yCur);
 
-                c.setTextAlign(TextAlignment.LEFT);
-                c.setFill(color);
+                painterHelper.setTextAlign(c, TextAlignment.LEFT);
+                painterHelper.setFill(c, color);
                 painterHelper.fillText(c, nanoString(value), xCur + 2, yCur);
             }
         }
 
         if (showChart) {
-            c.setFill(Color.GRAY);
+            painterHelper.setFill(c, Color.GRAY);
             painterHelper.fillRect(c, xOffset, yOffset, chartColumns, getChartHeight());
 
-            final List<Long> frameTimes = total.getFrameTimes();
-            for (int i = 0; i < frameTimes.size(); i++) {
-                final long totalNanos = frameTimes.get(i);
+            final int frames = total.size();
+            for (int i = 0; i < frames; i++) {
+                final long totalNanos = total.get(i);
                 final double totalHeight = height(maxNanos, totalNanos);
-                c.setFill(COLORS[0]);
+                painterHelper.setFill(c, COLORS[0]);
                 painterHelper.fillRect(
                         c,
                         xOffset + offset + i,
@@ -147,10 +147,15 @@ public class FrameMetricsPainter extends MapPainter<FrameMetrics> {
                     if ("Total".equals(metric.getName())) {
                         continue;
                     }
-                    final long currentNanos = metric.getFrameTimes().get(i);
+                    // Metrics are appended one after another, the latest frame might be missing for some of them
+                    final int index = metric.size() - frames + i;
+                    if (index < 0 || index >= metric.size()) {
+                        continue;
+                    }
+                    final long currentNanos = metric.get(index);
                     final double currentHeight = height(maxNanos, currentNanos);
 
-                    c.setFill(COLORS[j]);
+                    painterHelper.setFill(c, COLORS[j]);
                     painterHelper.fillRect(
                             c,
                             xOffset + offset + i,
@@ -163,9 +168,9 @@ public class FrameMetricsPainter extends MapPainter<FrameMetrics> {
                 }
             }
 
-            c.setFill(Color.GRAY);
-            c.setTextAlign(TextAlignment.LEFT);
-            c.setTextBaseline(VPos.CENTER);
+            painterHelper.setFill(c, Color.GRAY);
+            painterHelper.setTextAlign(c, TextAlignment.LEFT);
+            painterHelper.setTextBaseline(c, VPos.CENTER);
 
             final boolean isHuge = maxNanos > 100 * NANOS_IN_MILLI;
             final double delta = (isHuge ? 100 : 10) * NANOS_IN_MILLI;
@@ -185,6 +190,7 @@ public class FrameMetricsPainter extends MapPainter<FrameMetrics> {
                     yOffset
             );
 
+            drawLine(c, total.percentile(0.99), maxNanos, xOffset, yOffset, chartColumns, Color.DARKRED);
             drawLine(c, total.average(), maxNanos, xOffset, yOffset, chartColumns, Color.BLACK);
             drawLine(c, averageDrawNanos, maxNanos, xOffset, yOffset, chartColumns, Color.BLACK);
         }
@@ -210,7 +216,7 @@ public class FrameMetricsPainter extends MapPainter<FrameMetrics> {
     }
 
     private void drawLine(final GraphicsContext c, final double value, final long max, final double xOffset, final double yOffset, final int width, final Color color) {
-        c.setFill(color);
+        painterHelper.setFill(c, color);
         final double averageY = heightInCanvas(yOffset, height(max, value));
         painterHelper.fillRect(
                 c,
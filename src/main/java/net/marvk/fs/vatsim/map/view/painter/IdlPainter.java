@@ -19,9 +19,9 @@ public class IdlPainter extends MapPainter<InternationalDateLine> {
     public void paint(final GraphicsContext c, final InternationalDateLine internationalDateLineViewModel) {
         final Polygon points = internationalDateLineViewModel.getPolygon();
 
-        c.setLineWidth(1);
-        c.setStroke(color);
-        c.setLineDashes(1, 10);
+        painterHelper.setLineWidth(c, 1);
+        painterHelper.setStroke(c, color);
+        painterHelper.setLineDashes(c, 1, 10);
 
         painterHelper.strokePolylines(c, points);
     }
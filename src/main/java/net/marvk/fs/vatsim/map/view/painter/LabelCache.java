@@ -0,0 +1,337 @@
+package net.marvk.fs.vatsim.map.view.painter;
+
+import com.sun.javafx.tk.FontMetrics;
+import com.sun.javafx.tk.Toolkit;
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import lombok.Value;
+
+import java.util.*;
+
+/**
+ * Caches rendered labels and text widths.
+ * <p>
+ * Labels are rendered into pages that are packed in rows. A label is only rendered once it was requested in two
+ * different frames, so labels that change every frame do not displace the others. Requested labels are rendered in one
+ * batch at the end of the frame, so every page is snapshotted at most once per frame, until then the label has to be
+ * drawn directly. If all pages are full, the least recently used page is cleared. The colors are part of the key, so
+ * labels of a previous theme are evicted over time, a change of the font clears the cache.
+ * <p>
+ * Must only be used on the JavaFX application thread.
+ */
+final class LabelCache {
+    private static final int PAGE_SIZE = 1024;
+    private static final int MAX_PAGES = 4;
+    private static final int PADDING = 2;
+    private static final int MAX_WIDTHS = 8192;
+    private static final int MAX_SEEN = 8192;
+
+    private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+    private final Map<Key, Long> seen = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Long> eldest) {
+            return size() > MAX_SEEN;
+        }
+    };
+    private final Map<String, Integer> widths = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Integer> eldest) {
+            return size() > MAX_WIDTHS;
+        }
+    };
+    private final List<Page> pages = new ArrayList<>();
+
+    private Font font;
+    private FontMetrics fontMetrics;
+    private long frame = 0;
+
+    LabelCache() {
+        snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+
+    FontMetrics fontMetrics(final Font font) {
+        if (!font.equals(this.font)) {
+            clear();
+            this.font = font;
+            this.fontMetrics = Toolkit.getToolkit().getFontLoader().getFontMetrics(font);
+        }
+
+        return fontMetrics;
+    }
+
+    int textWidth(final Font font, final String text) {
+        final FontMetrics fm = fontMetrics(font);
+
+        return widths.computeIfAbsent(text, s -> (int) Math.round(s.chars().mapToDouble(e -> fm.getCharWidth((char) e)).sum()));
+    }
+
+    /**
+     * Draws the label from the cache, or requests it to be rendered at the end of the frame.
+     *
+     * @return {@code true} if the label was drawn
+     */
+    boolean draw(
+            final PainterHelper painterHelper,
+            final GraphicsContext c,
+            final int x,
+            final int y,
+            final String text,
+            final boolean background,
+            final TextAlignment align,
+            final VPos baseline,
+            final Color textColor,
+            final Color backgroundColor
+    ) {
+        if (align == null || !isSupported(align, baseline)) {
+            return false;
+        }
+
+        fontMetrics(c.getFont());
+
+        final Key key = new Key(text, align, baseline, textColor, background ? backgroundColor : null);
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            final Long lastSeen = seen.put(key, frame);
+            if (lastSeen != null && lastSeen < frame) {
+                seen.remove(key);
+                allocate(key);
+            }
+            return false;
+        }
+
+        final Page page = entry.page;
+
+        if (page.image == null || !entry.rendered) {
+            return false;
+        }
+
+        page.lastUsed = frame;
+
+        painterHelper.drawImage(
+                c,
+                page.image,
+                entry.x,
+                entry.y,
+                entry.width,
+                entry.height,
+                x + entry.left,
+                y + entry.top,
+                entry.width,
+                entry.height
+        );
+
+        return true;
+    }
+
+    static boolean isSupported(final TextAlignment align, final VPos baseline) {
+        return align != TextAlignment.JUSTIFY && (baseline == VPos.TOP || baseline == VPos.CENTER || baseline == VPos.BOTTOM);
+    }
+
+    private void allocate(final Key key) {
+        final int width = textWidth(font, key.text);
+        final int height = Math.round(fontMetrics.getLineHeight());
+
+        final double horizontalOffset = horizontalOffset(key.align, width);
+        final double baselineOffset = baselineOffset(key.baseline, height);
+
+        final int left = (int) Math.floor(horizontalOffset - 1) - PADDING;
+        final int top = (int) Math.floor(baselineOffset) - PADDING;
+        final int right = (int) Math.ceil(horizontalOffset + width + 1) + PADDING;
+        final int bottom = (int) Math.ceil(baselineOffset + height) + PADDING;
+
+        final Entry entry = new Entry(key, left, top, right - left, bottom - top);
+
+        if (entry.width > PAGE_SIZE || entry.height > PAGE_SIZE) {
+            return;
+        }
+
+        for (final Page page : pages) {
+            if (page.add(entry)) {
+                entries.put(key, entry);
+                page.lastUsed = frame;
+                return;
+            }
+        }
+
+        final Page page;
+
+        if (pages.size() < MAX_PAGES) {
+            page = new Page();
+            pages.add(page);
+        } else {
+            page = pages.stream().min(Comparator.comparingLong(e -> e.lastUsed)).orElseThrow();
+            page.entries.forEach(e -> entries.remove(e.key));
+            page.clear();
+        }
+
+        if (page.add(entry)) {
+            entries.put(key, entry);
+            page.lastUsed = frame;
+        }
+    }
+
+    /**
+     * Renders all requested labels and ends the frame.
+     */
+    void renderPending() {
+        for (final Page page : pages) {
+            if (page.pending.isEmpty()) {
+                continue;
+            }
+
+            final GraphicsContext c = page.canvas.getGraphicsContext2D();
+            c.setFont(font);
+
+            for (final Entry entry : page.pending) {
+                render(c, entry);
+                entry.rendered = true;
+            }
+
+            page.pending.clear();
+            page.image = page.canvas.snapshot(snapshotParameters, page.image);
+        }
+
+        frame += 1;
+    }
+
+    private void render(final GraphicsContext c, final Entry entry) {
+        final Key key = entry.key;
+
+        final int x = entry.x - entry.left;
+        final int y = entry.y - entry.top;
+
+        if (key.backgroundColor != null) {
+            final int width = textWidth(font, key.text);
+            final int height = Math.round(fontMetrics.getLineHeight());
+
+            c.setFill(key.backgroundColor);
+            c.fillRect(
+                    Math.round(x + horizontalOffset(key.align, width) - 1),
+                    Math.round(y + baselineOffset(key.baseline, height)),
+                    Math.ceil(width + 1),
+                    Math.ceil(height)
+            );
+        }
+
+        c.setTextAlign(key.align);
+        c.setTextBaseline(key.baseline);
+        c.setFill(key.textColor);
+        c.fillText(key.text, x, y);
+    }
+
+    static double horizontalOffset(final TextAlignment align, final int width) {
+        return switch (align) {
+            case RIGHT -> -width;
+            case CENTER -> -width / 2.0;
+            case LEFT -> 0;
+            default -> throw new IllegalArgumentException("Illegal alignment " + align);
+        };
+    }
+
+    static double baselineOffset(final VPos baseline, final int height) {
+        return switch (baseline) {
+            case TOP -> 0;
+            case CENTER -> -height / 2.0 - 1;
+            case BOTTOM -> -height;
+            default -> throw new IllegalArgumentException("Illegal baseline " + baseline);
+        };
+    }
+
+    private void clear() {
+        entries.clear();
+        seen.clear();
+        widths.clear();
+        pages.clear();
+    }
+
+    @Value
+    private static class Key {
+        String text;
+        TextAlignment align;
+        VPos baseline;
+        Color textColor;
+        Color backgroundColor;
+    }
+
+    private static final class Entry {
+        private final Key key;
+
+        /**
+         * Offset of the label image from the anchor of the text
+         */
+        private final int left;
+        private final int top;
+        private final int width;
+        private final int height;
+
+        private Page page;
+        private int x;
+        private int y;
+        private boolean rendered;
+
+        private Entry(final Key key, final int left, final int top, final int width, final int height) {
+            this.key = key;
+            this.left = left;
+            this.top = top;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static final class Page {
+        private final Canvas canvas = new Canvas(PAGE_SIZE, PAGE_SIZE);
+        private final List<Entry> entries = new ArrayList<>();
+        private final List<Entry> pending = new ArrayList<>();
+
+        private WritableImage image;
+        private long lastUsed;
+
+        private int rowX;
+        private int rowY;
+        private int rowHeight;
+
+        private boolean add(final Entry entry) {
+            if (rowX + entry.width > PAGE_SIZE) {
+                rowX = 0;
+                rowY += rowHeight;
+                rowHeight = 0;
+            }
+
+            if (rowY + entry.height > PAGE_SIZE) {
+                return false;
+            }
+
+            entry.page = this;
+            entry.x = rowX;
+            entry.y = rowY;
+
+            rowX += entry.width;
+            rowHeight = Math.max(rowHeight, entry.height);
+
+            entries.add(entry);
+            pending.add(entry);
+
+            return true;
+        }
+
+        private void clear() {
+            canvas.getGraphicsContext2D().clearRect(0, 0, PAGE_SIZE, PAGE_SIZE);
+            entries.clear();
+            pending.clear();
+            // Draw calls of previous frames may still reference the old image
+            image = null;
+            rowX = 0;
+            rowY = 0;
+            rowHeight = 0;
+        }
+    }
+}
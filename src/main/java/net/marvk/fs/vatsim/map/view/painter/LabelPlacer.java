@@ -0,0 +1,229 @@
+package net.marvk.fs.vatsim.map.view.painter;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the labels of all painters during a frame and draws them in order of their {@link LabelPriority}, skipping
+ * labels that would overlap a label that was already placed.
+ * <p>
+ * Placed labels are stored in a spatial hash grid over the view, so every label is only tested against the labels in
+ * the cells it covers. Labels are drawn on top of the layers they were collected from and are counted in the metrics of
+ * their painter in the next frame.
+ * <p>
+ * Must only be used on the JavaFX application thread.
+ */
+final class LabelPlacer {
+    private static final int CELL_SIZE = 64;
+    private static final int MARGIN = 1;
+    private static final Comparator<Label> PRIORITY_DESCENDING = Comparator.comparing((Label e) -> e.priority).reversed();
+
+    private final LabelCache labelCache;
+
+    private final List<Label> labels = new ArrayList<>();
+    private int labelCount = 0;
+
+    private int columns;
+    private int rows;
+    private int[][] cells = new int[0][];
+    private int[] cellSizes = new int[0];
+
+    private double[] rects = new double[4 * 256];
+    private int rectCount = 0;
+
+    LabelPlacer(final LabelCache labelCache) {
+        this.labelCache = labelCache;
+    }
+
+    void add(
+            final PainterHelper painterHelper,
+            final GraphicsContext c,
+            final LabelPriority priority,
+            final double x,
+            final double y,
+            final String text,
+            final boolean background,
+            final TextAlignment align,
+            final VPos baseline,
+            final Color textColor,
+            final Color backgroundColor
+    ) {
+        if (labelCount == labels.size()) {
+            labels.add(new Label());
+        }
+
+        final Label label = labels.get(labelCount);
+        labelCount += 1;
+
+        label.painterHelper = painterHelper;
+        label.c = c;
+        label.priority = priority;
+        label.x = (int) Math.round(x);
+        label.y = (int) Math.round(y);
+        label.text = text;
+        label.background = background;
+        label.align = align == null ? c.getTextAlign() : align;
+        label.baseline = baseline;
+        label.textColor = textColor;
+        label.backgroundColor = backgroundColor;
+    }
+
+    /**
+     * Draws the collected labels that do not collide with labels of a higher priority.
+     *
+     * @param viewWidth  the width of the view the labels were collected for
+     * @param viewHeight the height of the view the labels were collected for
+     */
+    void place(final double viewWidth, final double viewHeight) {
+        if (labelCount == 0) {
+            return;
+        }
+
+        resetGrid(viewWidth, viewHeight);
+
+        final List<Label> frameLabels = labels.subList(0, labelCount);
+        frameLabels.sort(PRIORITY_DESCENDING);
+
+        for (final Label label : frameLabels) {
+            if (claim(label, viewWidth, viewHeight)) {
+                label.painterHelper.fillTextWithBackground(
+                        label.c,
+                        label.x,
+                        label.y,
+                        label.text,
+                        label.background,
+                        label.align,
+                        label.baseline,
+                        label.textColor,
+                        label.backgroundColor
+                );
+            }
+
+            label.clear();
+        }
+
+        labelCount = 0;
+    }
+
+    private boolean claim(final Label label, final double viewWidth, final double viewHeight) {
+        if (!LabelCache.isSupported(label.align, label.baseline)) {
+            return true;
+        }
+
+        final int width = labelCache.textWidth(label.c.getFont(), label.text);
+        final int height = Math.round(labelCache.fontMetrics(label.c.getFont()).getLineHeight());
+
+        final double minX = label.x + LabelCache.horizontalOffset(label.align, width) - 1 - MARGIN;
+        final double minY = label.y + LabelCache.baselineOffset(label.baseline, height) - MARGIN;
+        final double maxX = minX + width + 1 + 2 * MARGIN;
+        final double maxY = minY + height + 2 * MARGIN;
+
+        if (maxX < 0 || maxY < 0 || minX > viewWidth || minY > viewHeight) {
+            return false;
+        }
+
+        final int minColumn = clamp((int) Math.floor(minX / CELL_SIZE), columns);
+        final int maxColumn = clamp((int) Math.floor(maxX / CELL_SIZE), columns);
+        final int minRow = clamp((int) Math.floor(minY / CELL_SIZE), rows);
+        final int maxRow = clamp((int) Math.floor(maxY / CELL_SIZE), rows);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = row * columns + column;
+                final int[] cellRects = cells[cell];
+                for (int i = 0; i < cellSizes[cell]; i++) {
+                    final int rect = 4 * cellRects[i];
+                    if (minX < rects[rect + 2] && maxX > rects[rect] && minY < rects[rect + 3] && maxY > rects[rect + 1]) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        final int rect = addRect(minX, minY, maxX, maxY);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                addToCell(row * columns + column, rect);
+            }
+        }
+
+        return true;
+    }
+
+    private void resetGrid(final double viewWidth, final double viewHeight) {
+        columns = Math.max(1, (int) Math.ceil(viewWidth / CELL_SIZE) + 1);
+        rows = Math.max(1, (int) Math.ceil(viewHeight / CELL_SIZE) + 1);
+
+        final int size = columns * rows;
+
+        if (cells.length < size) {
+            cells = Arrays.copyOf(cells, size);
+            cellSizes = new int[size];
+        } else {
+            Arrays.fill(cellSizes, 0);
+        }
+
+        rectCount = 0;
+    }
+
+    private int addRect(final double minX, final double minY, final double maxX, final double maxY) {
+        if (4 * (rectCount + 1) > rects.length) {
+            rects = Arrays.copyOf(rects, rects.length * 2);
+        }
+
+        final int rect = 4 * rectCount;
+        rects[rect] = minX;
+        rects[rect + 1] = minY;
+        rects[rect + 2] = maxX;
+        rects[rect + 3] = maxY;
+
+        return rectCount++;
+    }
+
+    private void addToCell(final int cell, final int rect) {
+        int[] cellRects = cells[cell];
+
+        if (cellRects == null) {
+            cellRects = new int[8];
+            cells[cell] = cellRects;
+        } else if (cellSizes[cell] == cellRects.length) {
+            cellRects = Arrays.copyOf(cellRects, cellRects.length * 2);
+            cells[cell] = cellRects;
+        }
+
+        cellRects[cellSizes[cell]] = rect;
+        cellSizes[cell] += 1;
+    }
+
+    private static int clamp(final int value, final int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    private static final class Label {
+        private PainterHelper painterHelper;
+        private GraphicsContext c;
+        private LabelPriority priority;
+        private int x;
+        private int y;
+        private String text;
+        private boolean background;
+        private TextAlignment align;
+        private VPos baseline;
+        private Color textColor;
+        private Color backgroundColor;
+
+        private void clear() {
+            painterHelper = null;
+            c = null;
+            text = null;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package net.marvk.fs.vatsim.map.view.painter;
+
+/**
+ * Priority of a label when labels collide, in ascending order.
+ */
+public enum LabelPriority {
+    PILOT,
+    AIRPORT,
+    FIR,
+    CONTROLLED_AIRPORT,
+    SELECTED
+}
@@ -38,6 +38,31 @@ public interface Painter<T> {
     default void afterAllRender() {
     }
 
+    /**
+     * Called after all paintables were painted, painters that buffer their draw calls submit them here.
+     */
+    default void flush(final GraphicsContext context) {
+    }
+
+    /**
+     * Called after {@link #beforeAllRender()}.
+     *
+     * @return {@code true} if the draw calls of the last frame are submitted again on {@link #flush(GraphicsContext)},
+     * so the paintables do not have to be painted
+     */
+    default boolean canReplay() {
+        return false;
+    }
+
+    /**
+     * @return {@code true} if {@link #paint} only records draw calls that are submitted on {@link #flush(GraphicsContext)},
+     * so the paintables can be painted off the JavaFX application thread. The graphics context passed to {@link #paint}
+     * may be {@code null} and must not be used.
+     */
+    default boolean isBuffered() {
+        return false;
+    }
+
     boolean isEnabled();
 
     PainterMetric getMetricsSnapshot();
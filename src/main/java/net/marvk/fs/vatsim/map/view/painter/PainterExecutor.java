@@ -16,6 +16,7 @@ public final class PainterExecutor<T> {
     private final Predicate<T> filter;
 
     private long lastDurationNanos = 0L;
+    private long lastPrepareDurationNanos = 0L;
     private PainterMetric lastPainterMetric = new PainterMetric();
 
     private PainterExecutor(final String name, final Painter<T> painter) {
@@ -30,9 +31,27 @@ public final class PainterExecutor<T> {
     }
 
     public void paint(final GraphicsContext c) {
+        paintAll(c);
+        submit(c);
+    }
+
+    /**
+     * Records the draw calls of a {@link Painter#isBuffered() buffered} painter, which are submitted on
+     * {@link #submit(GraphicsContext)}. May run on a worker thread while the JavaFX application thread waits for it or
+     * paints other layers, so the painter is not given a graphics context.
+     */
+    public void prepare() {
+        if (!painter.isBuffered()) {
+            throw new IllegalStateException("Painter " + name + " is not buffered");
+        }
+
+        paintAll(null);
+    }
+
+    private void paintAll(final GraphicsContext c) {
         final long start = System.nanoTime();
         painter.beforeAllRender();
-        if (painter.isEnabled()) {
+        if (painter.isEnabled() && !painter.canReplay()) {
             for (final T t : paintablesSupplier.get()) {
                 if (filter.test(t)) {
                     painter.beforeEachRender();
@@ -41,9 +60,32 @@ public final class PainterExecutor<T> {
                 }
             }
         }
+        lastPrepareDurationNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Submits the draw calls recorded by {@link #prepare()}, must run on the JavaFX application thread.
+     */
+    public void submit(final GraphicsContext c) {
+        final long start = System.nanoTime();
+        if (painter.isEnabled()) {
+            painter.flush(c);
+        }
         painter.afterAllRender();
         lastPainterMetric = painter.getMetricsSnapshot();
-        lastDurationNanos = System.nanoTime() - start;
+        lastDurationNanos = lastPrepareDurationNanos + System.nanoTime() - start;
+    }
+
+    public boolean isBuffered() {
+        return painter.isBuffered();
+    }
+
+    /**
+     * Records an empty run for frames in which the painter output was reused from a cache.
+     */
+    public void skip() {
+        lastPainterMetric = new PainterMetric();
+        lastDurationNanos = 0L;
     }
 
     public String getName() {
@@ -2,32 +2,40 @@ package net.marvk.fs.vatsim.map.view.painter;
 
 import com.sun.javafx.geom.Line2D;
 import com.sun.javafx.tk.FontMetrics;
-import com.sun.javafx.tk.Toolkit;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
 import javafx.geometry.VPos;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
 import javafx.scene.text.TextAlignment;
-import net.marvk.fs.vatsim.map.GeomUtil;
 import net.marvk.fs.vatsim.map.data.Polygon;
+import net.marvk.fs.vatsim.map.data.Trajectory;
 import net.marvk.fs.vatsim.map.view.map.MapVariables;
 import net.marvk.fs.vatsim.map.view.map.PainterMetric;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
 
 public class PainterHelper {
-    private static final double MIN_DISTANCE = 2;
-    private static final double MIN_SQUARE_DISTANCE = squareThreshold(MIN_DISTANCE);
+    private static final double LOD_PIXEL_TOLERANCE = 1;
+    private static final LabelCache LABEL_CACHE = new LabelCache();
+    private static final LabelPlacer LABEL_PLACER = new LabelPlacer(LABEL_CACHE);
 
     private PainterMetric metric = new PainterMetric();
 
-    private static double squareThreshold(final double value) {
-        return value <= 0 ? Integer.MIN_VALUE : value * value;
-    }
-
     private final MapVariables mapVariables;
 
+    /**
+     * Canvas coordinates of the polygon or polyline that is currently drawn, every painter has its own buffers so
+     * painters can be prepared concurrently
+     */
+    private double[] xBuf = new double[512];
+    private double[] yBuf = new double[512];
+
     public PainterHelper(final MapVariables mapVariables) {
         this.mapVariables = mapVariables;
     }
@@ -38,6 +46,40 @@ public class PainterHelper {
         return result;
     }
 
+    public void replay(final GraphicsContext c, final DrawCommandBuffer buffer) {
+        buffer.replay(c, metric);
+    }
+
+    public void setFill(final GraphicsContext c, final Paint fill) {
+        metric.getStateChanges().increment();
+        c.setFill(fill);
+    }
+
+    public void setStroke(final GraphicsContext c, final Paint stroke) {
+        metric.getStateChanges().increment();
+        c.setStroke(stroke);
+    }
+
+    public void setLineWidth(final GraphicsContext c, final double lineWidth) {
+        metric.getStateChanges().increment();
+        c.setLineWidth(lineWidth);
+    }
+
+    public void setLineDashes(final GraphicsContext c, final double... lineDashes) {
+        metric.getStateChanges().increment();
+        c.setLineDashes(lineDashes);
+    }
+
+    public void setTextAlign(final GraphicsContext c, final TextAlignment textAlign) {
+        metric.getStateChanges().increment();
+        c.setTextAlign(textAlign);
+    }
+
+    public void setTextBaseline(final GraphicsContext c, final VPos textBaseline) {
+        metric.getStateChanges().increment();
+        c.setTextBaseline(textBaseline);
+    }
+
     public void strokePolygons(final GraphicsContext c, final Polygon polygon) {
         drawPolygons(c, polygon, false, false, true);
     }
@@ -51,35 +93,42 @@ public class PainterHelper {
     }
 
     public void strokePolyline(final GraphicsContext c, final Point2D[] polyline) {
-        if (polyline.length == 0) {
+        strokePolyline(polyline.length, i -> polyline[i].getX(), i -> polyline[i].getY(), n -> strokePolyline(c, n));
+    }
+
+    public void strokePolyline(final DrawCommandBuffer buffer, final Point2D[] polyline) {
+        strokePolyline(polyline.length, i -> polyline[i].getX(), i -> polyline[i].getY(), n -> buffer.strokePolyline(xBuf, yBuf, n));
+    }
+
+    public void strokePolyline(final DrawCommandBuffer buffer, final Trajectory trajectory) {
+        strokePolyline(trajectory.size(), trajectory::getX, trajectory::getY, n -> buffer.strokePolyline(xBuf, yBuf, n));
+    }
+
+    private void strokePolyline(final int length, final IntToDoubleFunction xs, final IntToDoubleFunction ys, final IntConsumer stroke) {
+        if (length == 0) {
             return;
         }
 
         double minX = Double.MAX_VALUE;
         double maxX = -Double.MAX_VALUE;
 
-        strokePolyline(c, polyline, 0);
+        stroke.accept(writePolylineToBuffer(length, xs, ys, 0));
 
         // TODO I don't think this is right for wrapping paths
-        for (final Point2D p : polyline) {
-            minX = Math.min(p.getX(), minX);
-            maxX = Math.max(p.getX(), maxX);
+        for (int i = 0; i < length; i++) {
+            minX = Math.min(xs.applyAsDouble(i), minX);
+            maxX = Math.max(xs.applyAsDouble(i), maxX);
         }
 
         if (mapVariables.toCanvasX(minX) > 0) {
-            strokePolyline(c, polyline, -360);
+            stroke.accept(writePolylineToBuffer(length, xs, ys, -360));
         }
 
         if (mapVariables.toCanvasX(maxX) < mapVariables.getViewWidth()) {
-            strokePolyline(c, polyline, 360);
+            stroke.accept(writePolylineToBuffer(length, xs, ys, 360));
         }
     }
 
-    private void strokePolyline(final GraphicsContext c, final Point2D[] polyline, final double offsetX) {
-        final int n = writePolylineToBuffer(polyline, offsetX);
-        strokePolyline(c, n);
-    }
-
     private void drawPolygons(final GraphicsContext c, final Polygon polygon, final boolean polyline, final boolean fill, final boolean simplify) {
         if (mapVariables.toCanvasX(polygon.boundary().getMinX()) < 0) {
             drawPolygon(c, polygon, 360, polyline, fill, simplify);
@@ -119,27 +168,26 @@ public class PainterHelper {
 
     private void strokePolygon(final GraphicsContext c, final int numPoints) {
         metric.getStrokePolygon().increment();
-        c.strokePolygon(mapVariables.getXBuf(), mapVariables.getYBuf(), numPoints);
+        c.strokePolygon(xBuf, yBuf, numPoints);
     }
 
     private void fillPolygon(final GraphicsContext c, final int numPoints) {
         metric.getFillPolygon().increment();
-        c.fillPolygon(mapVariables.getXBuf(), mapVariables.getYBuf(), numPoints);
+        c.fillPolygon(xBuf, yBuf, numPoints);
     }
 
     private void strokePolyline(final GraphicsContext c, final int numPoints) {
         metric.getStrokePolyline().increment();
-        c.strokePolyline(mapVariables.getXBuf(), mapVariables.getYBuf(), numPoints);
+        c.strokePolyline(xBuf, yBuf, numPoints);
     }
 
-    private int writePolylineToBuffer(final Point2D[] polyline, final double offsetX) {
-        double lastX = polyline[0].getX();
+    private int writePolylineToBuffer(final int length, final IntToDoubleFunction xs, final IntToDoubleFunction ys, final double offsetX) {
+        double lastX = xs.applyAsDouble(0);
 
         double offset = 0;
 
-        for (int i = 0; i < polyline.length; i++) {
-            final Point2D p = polyline[i];
-            final double curX = p.getX();
+        for (int i = 0; i < length; i++) {
+            final double curX = xs.applyAsDouble(i);
             if (Math.abs(curX - lastX) >= 180) {
                 if (curX < 0) {
                     offset += 360;
@@ -148,26 +196,33 @@ public class PainterHelper {
                 }
             }
 
-            final double x = mapVariables.toCanvasX(p.getX() + offsetX + offset);
-            final double y = mapVariables.toCanvasY(p.getY());
-            mapVariables.setBuf(i, x, y);
+            final double x = mapVariables.toCanvasX(curX + offsetX + offset);
+            final double y = mapVariables.toCanvasY(ys.applyAsDouble(i));
+            setBuf(i, x, y);
             lastX = curX;
         }
-        return polyline.length;
+        return length;
     }
 
     private int writePolygonToBuffer(final Polygon polygon, final double offsetX) {
-        int numPoints = writeRingToBuffer(polygon.getExteriorRing(), offsetX, 0);
+        final int levelOfDetail = Polygon.levelOfDetail(LOD_PIXEL_TOLERANCE / mapVariables.worldWidthToViewWidth(1));
+
+        final double scaleX = mapVariables.toCanvasX(1) - mapVariables.toCanvasX(0);
+        final double scaleY = mapVariables.toCanvasY(1) - mapVariables.toCanvasY(0);
+        final double translateX = mapVariables.toCanvasX(offsetX);
+        final double translateY = mapVariables.toCanvasY(0);
+
+        int numPoints = writeRingToBuffer(polygon.getExteriorRing(), levelOfDetail, scaleX, scaleY, translateX, translateY, 0);
 
         final List<Polygon.Ring> holeRings = polygon.getHoleRings();
 
         for (final Polygon.Ring hole : holeRings) {
-            numPoints += writeRingToBuffer(hole, offsetX, numPoints);
+            numPoints += writeRingToBuffer(hole, levelOfDetail, scaleX, scaleY, translateX, translateY, numPoints);
         }
 
         for (int i = 0; i < holeRings.size() - 1; i++) {
             final Polygon.Ring hole = holeRings.get(holeRings.size() - 2 - i);
-            mapVariables.setBuf(numPoints, mapVariables.toCanvasX(hole.getPointsX()[0] + offsetX), mapVariables.toCanvasY(hole
+            setBuf(numPoints, mapVariables.toCanvasX(hole.getPointsX()[0] + offsetX), mapVariables.toCanvasY(hole
                     .getPointsY()[0]));
             numPoints += 1;
         }
@@ -175,29 +230,33 @@ public class PainterHelper {
         return numPoints;
     }
 
-    private int writeRingToBuffer(final Polygon.Ring ring, final double offsetX, final int indexOffset) {
-        double lastDrawnX = Double.MAX_VALUE;
-        double lastDrawnY = Double.MAX_VALUE;
-
-        int numPoints = 0;
-
-        for (int i = 0; i < ring.numPoints(); i++) {
-            final double x = mapVariables.toCanvasX(ring.getPointsX()[i] + offsetX);
-            final double y = mapVariables.toCanvasY(ring.getPointsY()[i]);
-
-            final double squareDistance = GeomUtil.squareDistance(lastDrawnX, lastDrawnY, x, y);
+    private int writeRingToBuffer(
+            final Polygon.Ring ring,
+            final int levelOfDetail,
+            final double scaleX,
+            final double scaleY,
+            final double translateX,
+            final double translateY,
+            final int indexOffset
+    ) {
+        final double[] pointsX = ring.getPointsX(levelOfDetail);
+        final double[] pointsY = ring.getPointsY(levelOfDetail);
 
-            if (i == 0 || i == ring.numPoints() - 1 || squareDistance > MIN_SQUARE_DISTANCE) {
-                mapVariables.setBuf(indexOffset + numPoints, x, y);
+        for (int i = 0; i < pointsX.length; i++) {
+            setBuf(indexOffset + i, pointsX[i] * scaleX + translateX, pointsY[i] * scaleY + translateY);
+        }
 
-                numPoints += 1;
+        return pointsX.length;
+    }
 
-                lastDrawnX = x;
-                lastDrawnY = y;
-            }
+    private void setBuf(final int i, final double x, final double y) {
+        if (i >= xBuf.length) {
+            xBuf = Arrays.copyOf(xBuf, xBuf.length * 2);
+            yBuf = Arrays.copyOf(yBuf, yBuf.length * 2);
         }
 
-        return numPoints;
+        xBuf[i] = x;
+        yBuf[i] = y;
     }
 
     private static Rectangle2D shiftedBounds(final Polygon polygon, final double offsetX) {
@@ -228,6 +287,44 @@ public class PainterHelper {
         );
     }
 
+    /**
+     * Draws the labels collected by {@link #fillLabel} since the last call, must be called after all painters of a view
+     * painted.
+     */
+    public static void placeLabels(final double viewWidth, final double viewHeight) {
+        LABEL_PLACER.place(viewWidth, viewHeight);
+    }
+
+    /**
+     * Ends the frame for the label cache shared by all painters, must be called after all painters painted.
+     */
+    public static void renderPendingLabels() {
+        LABEL_CACHE.renderPending();
+    }
+
+    /**
+     * Draws a label once all painters painted if it does not collide with a label of a higher priority, or immediately
+     * if the priority is {@code null}.
+     */
+    public void fillLabel(
+            final GraphicsContext c,
+            final double x,
+            final double y,
+            final String text,
+            final boolean background,
+            final TextAlignment align,
+            final VPos baseline,
+            final Color textColor,
+            final Color backgroundColor,
+            final LabelPriority priority
+    ) {
+        if (priority == null) {
+            fillTextWithBackground(c, x, y, text, background, align, baseline, textColor, backgroundColor);
+        } else {
+            LABEL_PLACER.add(this, c, priority, x, y, text, background, align, baseline, textColor, backgroundColor);
+        }
+    }
+
     public void fillTextWithBackground(
             final GraphicsContext c,
             final double x,
@@ -242,27 +339,25 @@ public class PainterHelper {
         final int _x = (int) Math.round(x);
         final int _y = (int) Math.round(y);
 
+        if (!mapVariables.isRectIntersectingCanvasView(_x - 150, _y - 150, 300, 300)) {
+            return;
+        }
+
+        final TextAlignment actualAlign = align == null ? c.getTextAlign() : align;
+        if (LABEL_CACHE.draw(this, c, _x, _y, text, background, actualAlign, baseline, textColor, backgroundColor)) {
+            return;
+        }
+
         if (background) {
-            c.setTextBaseline(baseline);
-            final FontMetrics fm = Toolkit.getToolkit().getFontLoader().getFontMetrics(c.getFont());
+            setTextBaseline(c, baseline);
+            final FontMetrics fm = LABEL_CACHE.fontMetrics(c.getFont());
 
-            c.setFill(backgroundColor);
-            final int width = (int) Math.round(text.chars().mapToDouble(e -> fm.getCharWidth((char) e)).sum());
+            setFill(c, backgroundColor);
+            final int width = LABEL_CACHE.textWidth(c.getFont(), text);
             final int height = Math.round(fm.getLineHeight());
 
-            final double baselineOffset = switch (baseline) {
-                case TOP -> 0;
-                case CENTER -> -height / 2.0 - 1;
-                case BOTTOM -> -height;
-                default -> throw new IllegalArgumentException("Illegal baseline " + baseline);
-            };
-
-            final double horizontalOffset = switch (align) {
-                case RIGHT -> -width;
-                case CENTER -> -width / 2.0;
-                case LEFT -> 0;
-                default -> throw new IllegalArgumentException("Illegal alignment " + align);
-            };
+            final double baselineOffset = LabelCache.baselineOffset(baseline, height);
+            final double horizontalOffset = LabelCache.horizontalOffset(align, width);
 
             final double xRect = _x + horizontalOffset - 1;
             final double yRect = _y + baselineOffset;
@@ -270,10 +365,10 @@ public class PainterHelper {
         }
 
         if (align != null) {
-            c.setTextAlign(align);
+            setTextAlign(c, align);
         }
-        c.setTextBaseline(baseline);
-        c.setFill(textColor);
+        setTextBaseline(c, baseline);
+        setFill(c, textColor);
         fillText(c, text, _x, _y);
     }
 
@@ -331,4 +426,24 @@ public class PainterHelper {
         metric.getFillRect().increment();
         c.fillRect(x, y, w, h);
     }
+
+    public void drawImage(
+            final GraphicsContext c,
+            final Image image,
+            final double sx,
+            final double sy,
+            final double sw,
+            final double sh,
+            final double dx,
+            final double dy,
+            final double dw,
+            final double dh
+    ) {
+        if (!mapVariables.isRectIntersectingCanvasView(dx, dy, dw, dh)) {
+            return;
+        }
+
+        metric.getDrawImage().increment();
+        c.drawImage(image, sx, sy, sw, sh, dx, dy, dw, dh);
+    }
 }
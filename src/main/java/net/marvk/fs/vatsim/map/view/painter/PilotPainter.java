@@ -9,13 +9,15 @@ import net.marvk.fs.vatsim.map.data.Eta;
 import net.marvk.fs.vatsim.map.data.Pilot;
 import net.marvk.fs.vatsim.map.view.map.MapVariables;
 
+import java.util.function.LongSupplier;
+
 public class PilotPainter extends MapPainter<Pilot> {
     private static final int HEAD_SPEED_THRESHOLD = 5;
     private static final int TAIL_SPEED_THRESHOLD = 50;
 
     private static final int MULTI_DRAW_BOUND = 10;
     private static final int TEXT_OFFSET = 4;
-    private static final int RECT_SIZE = 4;
+    static final int RECT_SIZE = 4;
     private static final int SPEED_THRESHOLD = 25;
     private static final double MAX_SPEED = 600.0;
     private static final double SCALE_SCALE = 64.0;
@@ -51,7 +53,24 @@ public class PilotPainter extends MapPainter<Pilot> {
     @Parameter(value = "Head/Tail length scaled with speed")
     private boolean headTailScaledWithSpeed = true;
 
+    @Parameter("Sprites")
+    private boolean sprites = true;
+
+    @Parameter("Declutter Labels")
+    private boolean declutter = true;
+
+    private LabelPriority labelPriority = LabelPriority.PILOT;
+
     private final TextAngleResolver textAngleResolver = new TextAngleResolver();
+    private final PilotSpriteAtlas spriteAtlas = new PilotSpriteAtlas();
+    private final DrawCommandBuffer buffer = new DrawCommandBuffer(mapVariables);
+
+    private boolean replaying = false;
+
+    /**
+     * Version of the painted items, for painters whose items change without a new map generation
+     */
+    private LongSupplier inputVersion = () -> 0;
 
     public PilotPainter(final MapVariables mapVariables, final Color labelColor, final Color backgroundColor) {
         super(mapVariables);
@@ -72,12 +91,55 @@ public class PilotPainter extends MapPainter<Pilot> {
         setBackgroundColor();
     }
 
+    void setLabelPriority(final LabelPriority labelPriority) {
+        this.labelPriority = labelPriority;
+    }
+
+    void setInputVersion(final LongSupplier inputVersion) {
+        this.inputVersion = inputVersion;
+    }
+
     private void setBackgroundColor() {
         backgroundColor = labelColor.deriveColor(0, 1, 0.5, 1);
     }
 
+    @Override
+    public void beforeAllRender() {
+        if (sprites) {
+            spriteAtlas.validate(labelColor, tail ? tailDashScale() : 1);
+        }
+
+        replaying = buffer.beginFrame(inputVersion.getAsLong());
+    }
+
+    @Override
+    public boolean canReplay() {
+        return replaying;
+    }
+
+    @Override
+    public boolean isBuffered() {
+        return true;
+    }
+
+    @Override
+    public void flush(final GraphicsContext context) {
+        painterHelper.replay(context, buffer);
+    }
+
+    @Override
+    public void afterAllRender() {
+        if (sprites) {
+            spriteAtlas.renderPending();
+        }
+    }
+
     @Override
     public void paint(final GraphicsContext c, final Pilot pilot) {
+        if (replaying) {
+            return;
+        }
+
         if (pilot.getEta().is(Eta.Status.GROUND) && !onGround) {
             return;
         }
@@ -87,43 +149,52 @@ public class PilotPainter extends MapPainter<Pilot> {
         final double centerX = mapVariables.toCanvasX(position.getX());
 
         if (centerX - MULTI_DRAW_BOUND < 0) {
-            draw(c, pilot, 360);
+            draw(pilot, 360);
         }
 
         if (centerX + MULTI_DRAW_BOUND > mapVariables.getViewWidth()) {
-            draw(c, pilot, -360);
+            draw(pilot, -360);
         }
 
-        draw(c, pilot, 0);
+        draw(pilot, 0);
     }
 
-    private void draw(final GraphicsContext c, final Pilot pilot, final int xOffset) {
+    private void draw(final Pilot pilot, final int xOffset) {
         final Point2D point = pilot.getPosition();
 
         final double x = mapVariables.toCanvasX(point.getX() + xOffset);
         final double y = mapVariables.toCanvasY(point.getY());
 
-        c.setLineDashes();
-        c.setStroke(labelColor);
-        c.setFill(labelColor);
-        c.setLineWidth(1);
-        painterHelper.strokeRect(c, (int) x - 1.5, (int) y - 1.5, RECT_SIZE, RECT_SIZE);
         final double heading = pilot.getHeading();
 
-        if ((head || tail) && pilot.getGroundSpeed() > HEAD_SPEED_THRESHOLD) {
+        final boolean moving = (head || tail) && pilot.getGroundSpeed() > HEAD_SPEED_THRESHOLD;
+        final double actualHeadLength;
+        final double actualTailLength;
+
+        if (moving) {
             final double speedScale = speedScale(pilot);
-            final double actualHeadLength = getActualHeadLength(this.headLength, speedScale);
-            final double actualTailLength = getActualHeadLength(this.tailLength, speedScale);
+            actualHeadLength = head ? getActualHeadLength(this.headLength, speedScale) : 0;
+            actualTailLength = tail && pilot.getGroundSpeed() > TAIL_SPEED_THRESHOLD ? getActualHeadLength(this.tailLength, speedScale) : 0;
+        } else {
+            actualHeadLength = 0;
+            actualTailLength = 0;
+        }
+
+        if (!drawSprite(x, y, heading, actualHeadLength, actualTailLength)) {
+            buffer.setLineDashes();
+            buffer.setStroke(labelColor);
+            buffer.setLineWidth(1);
+            buffer.strokeRect((int) x - 1.5, (int) y - 1.5, RECT_SIZE, RECT_SIZE);
 
-            if (head && actualHeadLength > 0) {
-                paintLine(c, x, y, heading, actualHeadLength);
+            if (actualHeadLength > 0) {
+                paintLine(x, y, heading, actualHeadLength);
             }
 
-            if (tail && pilot.getGroundSpeed() > TAIL_SPEED_THRESHOLD && actualTailLength > 0) {
-                final double scale = mapVariables.getScale() / 64.;
-                c.setLineDashes((double) 1 / 16 * scale, 1 * scale);
-                c.setLineWidth(Math.min(1, (1.0 / 8) * scale));
-                paintLine(c, x, y, 180 + heading, actualTailLength);
+            if (actualTailLength > 0) {
+                final double scale = tailDashScale();
+                buffer.setLineDashes((double) 1 / 16 * scale, 1 * scale);
+                buffer.setLineWidth(Math.min(1, (1.0 / 8) * scale));
+                paintLine(x, y, 180 + heading, actualTailLength);
             }
         }
 
@@ -136,19 +207,37 @@ public class PilotPainter extends MapPainter<Pilot> {
             final VPos vPos = textAngleResolver.vPos(quadrant);
             final TextAlignment hPos = textAngleResolver.align(quadrant);
 
-            c.setTextAlign(TextAlignment.CENTER);
-            painterHelper.fillTextWithBackground(
+            final int labelX = (int) (x + xShift);
+            final int labelY = (int) (y + yShift);
+            final String callsign = pilot.getCallsign();
+            final LabelPriority priority = declutter ? labelPriority : null;
+
+            buffer.defer(c -> painterHelper.fillLabel(
                     c,
-                    (int) (x + xShift),
-                    (int) (y + yShift),
-                    pilot.getCallsign(),
+                    labelX,
+                    labelY,
+                    callsign,
                     paintBackground,
                     hPos,
                     vPos,
                     labelColor,
-                    backgroundColor
-            );
+                    backgroundColor,
+                    priority
+            ));
+        }
+    }
+
+    private boolean drawSprite(final double x, final double y, final double heading, final double headLength, final double tailLength) {
+        if (!sprites || !PilotSpriteAtlas.fits(headLength, tailLength)) {
+            return false;
         }
+
+        final int key = PilotSpriteAtlas.key(heading, headLength, tailLength);
+        return spriteAtlas.draw(buffer, key, (int) x, (int) y);
+    }
+
+    private double tailDashScale() {
+        return mapVariables.getScale() / 64.;
     }
 
     private double speedScale(final Pilot pilot) {
@@ -168,11 +257,11 @@ public class PilotPainter extends MapPainter<Pilot> {
         return speedScale * mapVariables.getScale() * headLength / SCALE_SCALE;
     }
 
-    private void paintLine(final GraphicsContext c, final double x, final double y, final double heading, final double length) {
+    private void paintLine(final double x, final double y, final double heading, final double length) {
         final double rad = Math.toRadians(heading);
         final double x2 = ((int) x + Math.sin(rad) * length);
         final double y2 = ((int) y - Math.cos(rad) * length);
 
-        painterHelper.strokeLine(c, x2 + 0.5, y2 + 0.5, (int) x + 0.5, (int) y + 0.5);
+        buffer.strokeLine(x2 + 0.5, y2 + 0.5, (int) x + 0.5, (int) y + 0.5);
     }
 }
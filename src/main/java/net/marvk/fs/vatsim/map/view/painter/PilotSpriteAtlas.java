@@ -0,0 +1,181 @@
+package net.marvk.fs.vatsim.map.view.painter;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pre-rendered pilot symbols in a single image, keyed by heading bucket and head and tail length in pixels.
+ * <p>
+ * Sprites are requested while painting and rendered in one batch after painting, so the atlas is snapshotted at most
+ * once per frame. Pilots whose sprite is not rendered yet are painted as vectors in that frame. The atlas is cleared
+ * when the color or the tail dash pattern changes, sprites that do not fit once the atlas is full are not rendered
+ * until it is cleared.
+ * <p>
+ * Sprites may be requested while the pilot painter is prepared off the JavaFX application thread, rendering the
+ * requested sprites must happen on the JavaFX application thread.
+ */
+final class PilotSpriteAtlas {
+    private static final int MAX_LENGTH = 16;
+    private static final int HEADING_BUCKETS = 72;
+    private static final double HEADING_BUCKET_SIZE = 360.0 / HEADING_BUCKETS;
+    private static final int PADDING = 3;
+    private static final int ANCHOR = MAX_LENGTH + PADDING;
+    private static final int CELL_SIZE = 2 * ANCHOR;
+    private static final int ATLAS_SIZE = 1024;
+    private static final int CELLS_PER_ROW = ATLAS_SIZE / CELL_SIZE;
+    private static final int CAPACITY = CELLS_PER_ROW * CELLS_PER_ROW;
+
+    /**
+     * Tail dash scales are bucketed in steps of a quarter power of two
+     */
+    private static final double DASH_LEVELS_PER_OCTAVE = 4;
+
+    private final SnapshotParameters snapshotParameters = new SnapshotParameters();
+
+    private final Map<Integer, Integer> cells = new HashMap<>();
+    private final Set<Integer> pending = new LinkedHashSet<>();
+
+    private Canvas canvas;
+    private WritableImage image;
+    private Color color;
+    private long dashLevel;
+
+    PilotSpriteAtlas() {
+        snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+
+    /**
+     * Clears the atlas if the sprites were rendered with a different color or tail dash scale.
+     */
+    void validate(final Color color, final double dashScale) {
+        final long dashLevel = Math.round(Math.log(dashScale) / Math.log(2) * DASH_LEVELS_PER_OCTAVE);
+
+        if (!color.equals(this.color) || dashLevel != this.dashLevel) {
+            this.color = color;
+            this.dashLevel = dashLevel;
+            cells.clear();
+            pending.clear();
+            // Draw calls of previous frames may still reference the old image
+            image = null;
+        }
+    }
+
+    static boolean fits(final double headLength, final double tailLength) {
+        return Math.round(headLength) <= MAX_LENGTH && Math.round(tailLength) <= MAX_LENGTH;
+    }
+
+    static int key(final double heading, final double headLength, final double tailLength) {
+        final int headingBucket = Math.floorMod((int) Math.round(heading / HEADING_BUCKET_SIZE), HEADING_BUCKETS);
+        return headingBucket | (int) Math.round(headLength) << 8 | (int) Math.round(tailLength) << 16;
+    }
+
+    /**
+     * Draws the sprite anchored at the given pixel, or requests it to be rendered after painting.
+     *
+     * @return {@code true} if the sprite was drawn
+     */
+    boolean draw(final DrawCommandBuffer buffer, final int key, final int x, final int y) {
+        if (color == null) {
+            return false;
+        }
+
+        final Integer cell = cells.get(key);
+
+        if (cell == null || image == null) {
+            if (cell == null && cells.size() + pending.size() < CAPACITY) {
+                pending.add(key);
+            }
+            return false;
+        }
+
+        buffer.drawImage(
+                image,
+                cellX(cell),
+                cellY(cell),
+                CELL_SIZE,
+                CELL_SIZE,
+                x - ANCHOR,
+                y - ANCHOR,
+                CELL_SIZE,
+                CELL_SIZE
+        );
+
+        return true;
+    }
+
+    /**
+     * Renders all requested sprites into the atlas.
+     */
+    void renderPending() {
+        if (pending.isEmpty() || color == null) {
+            return;
+        }
+
+        if (canvas == null) {
+            canvas = new Canvas(ATLAS_SIZE, ATLAS_SIZE);
+        }
+
+        final GraphicsContext c = canvas.getGraphicsContext2D();
+
+        if (cells.isEmpty()) {
+            c.clearRect(0, 0, ATLAS_SIZE, ATLAS_SIZE);
+        }
+
+        for (final Integer key : pending) {
+            final int cell = cells.size();
+            render(c, key, cellX(cell) + ANCHOR, cellY(cell) + ANCHOR);
+            cells.put(key, cell);
+        }
+
+        pending.clear();
+        c.setLineDashes();
+
+        image = canvas.snapshot(snapshotParameters, image);
+    }
+
+    private void render(final GraphicsContext c, final int key, final int x, final int y) {
+        final double heading = (key & 0xFF) * HEADING_BUCKET_SIZE;
+        final int headLength = (key >> 8) & 0xFF;
+        final int tailLength = (key >> 16) & 0xFF;
+
+        c.setLineDashes();
+        c.setStroke(color);
+        c.setLineWidth(1);
+        c.strokeRect(x - 1.5, y - 1.5, PilotPainter.RECT_SIZE, PilotPainter.RECT_SIZE);
+
+        if (headLength > 0) {
+            strokeLine(c, x, y, heading, headLength);
+        }
+
+        if (tailLength > 0) {
+            final double dashScale = Math.pow(2, dashLevel / DASH_LEVELS_PER_OCTAVE);
+            c.setLineDashes(dashScale / 16, dashScale);
+            c.setLineWidth(Math.min(1, dashScale / 8));
+            strokeLine(c, x, y, 180 + heading, tailLength);
+        }
+    }
+
+    private static void strokeLine(final GraphicsContext c, final int x, final int y, final double heading, final double length) {
+        final double rad = Math.toRadians(heading);
+        final double x2 = x + Math.sin(rad) * length;
+        final double y2 = y - Math.cos(rad) * length;
+
+        c.strokeLine(x2 + 0.5, y2 + 0.5, x + 0.5, y + 0.5);
+    }
+
+    private static int cellX(final int cell) {
+        return (cell % CELLS_PER_ROW) * CELL_SIZE;
+    }
+
+    private static int cellY(final int cell) {
+        return (cell / CELLS_PER_ROW) * CELL_SIZE;
+    }
+}
@@ -24,9 +24,9 @@ public class ScalePainter extends MapPainter<Void> {
 
         final double degreesPerPixel = v / mapVariables.getViewWidth();
 
-        context.setLineDashes(null);
-        context.setStroke(color);
-        context.setFill(color);
+        painterHelper.setLineDashes(context, null);
+        painterHelper.setStroke(context, color);
+        painterHelper.setFill(context, color);
 
         final double x1 = 0.5 + mapVariables.getViewWidth() - EDGE_OFFSET - MAX_WIDTH;
         final double x2 = x1 + MAX_WIDTH;
@@ -52,8 +52,8 @@ public class ScalePainter extends MapPainter<Void> {
             }
         }
 
-        context.setTextAlign(TextAlignment.CENTER);
-        context.setTextBaseline(VPos.BOTTOM);
+        painterHelper.setTextAlign(context, TextAlignment.CENTER);
+        painterHelper.setTextBaseline(context, VPos.BOTTOM);
         painterHelper.fillText(context, s, (x1 + x2) / 2.0, y - 5);
     }
 }
@@ -8,6 +8,7 @@ import net.marvk.fs.vatsim.map.view.map.MapVariables;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 public class SelectedPainter extends CompositeMapPainter<Data> {
     @MetaPainter("Pilot")
@@ -26,10 +27,25 @@ public class SelectedPainter extends CompositeMapPainter<Data> {
     }
 
     public SelectedPainter(final MapVariables mapVariables, final Color color, final boolean backgrounds) {
+        this(mapVariables, color, backgrounds, () -> 0);
+    }
+
+    /**
+     * @param inputVersion version of the painted items, must change whenever the items change without a new map
+     *                     generation
+     */
+    public SelectedPainter(final MapVariables mapVariables, final Color color, final boolean backgrounds, final LongSupplier inputVersion) {
         this.painterVisitor = new PainterVisitor();
         this.airportPainter = new AirportPainter(mapVariables, color, color, true, true, true);
         this.pilotPainter = new PilotPainter(mapVariables, color, backgrounds);
         this.firbPainter = new FirbPainter(mapVariables, color, 2.5, true, true, true);
+
+        this.airportPainter.setLabelPriority(LabelPriority.SELECTED);
+        this.pilotPainter.setLabelPriority(LabelPriority.SELECTED);
+        this.firbPainter.setLabelPriority(LabelPriority.SELECTED);
+
+        this.airportPainter.setInputVersion(inputVersion);
+        this.pilotPainter.setInputVersion(inputVersion);
     }
 
     @Override
@@ -39,7 +55,7 @@ public class SelectedPainter extends CompositeMapPainter<Data> {
 
     @Override
     protected Collection<? extends Painter<?>> painters() {
-        return List.of(firbPainter);
+        return List.of(firbPainter, pilotPainter, airportPainter);
     }
 
     private class PainterVisitor extends DefaultingDataVisitor<Consumer<GraphicsContext>> {
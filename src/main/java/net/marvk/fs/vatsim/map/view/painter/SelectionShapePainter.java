@@ -33,13 +33,13 @@ public class SelectionShapePainter extends MapPainter<Object> {
             final double rHalf = (d / 2) + 0.5;
 
             if (fill) {
-                c.setFill(fillColor);
+                painterHelper.setFill(c, fillColor);
                 painterHelper.fillOval(c, p.getX() - rHalf, p.getY() - rHalf, d, d);
             }
             if (stroke) {
-                c.setLineDashes((double[]) null);
-                c.setLineWidth(strokeWidth);
-                c.setStroke(strokeColor);
+                painterHelper.setLineDashes(c, (double[]) null);
+                painterHelper.setLineWidth(c, strokeWidth);
+                painterHelper.setStroke(c, strokeColor);
                 painterHelper.strokeOval(c, p.getX() - rHalf, p.getY() - rHalf, d, d);
             }
         }
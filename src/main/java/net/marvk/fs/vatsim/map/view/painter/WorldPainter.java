@@ -30,13 +30,13 @@ public class WorldPainter extends MapPainter<Polygon> {
     @Override
     public void paint(final GraphicsContext c, final Polygon polygon) {
         if (fill) {
-            c.setFill(fillColor);
+            painterHelper.setFill(c, fillColor);
             painterHelper.fillPolygons(c, polygon);
         }
 
         if (stroke) {
-            c.setStroke(strokeColor);
-            c.setLineWidth(strokeWidth);
+            painterHelper.setStroke(c, strokeColor);
+            painterHelper.setLineWidth(c, strokeWidth);
             painterHelper.strokePolygons(c, polygon);
         }
 
@@ -334,7 +334,7 @@ public class PreferencesView {
     @SneakyThrows
     private static void setField(final Field field, final Painter<?> painter, final Object newValue) {
         field.set(painter, newValue);
-        Notifications.REPAINT.publish();
+        Notifications.REPAINT_ALL.publish();
     }
 
     private static String key(final String... keys) {
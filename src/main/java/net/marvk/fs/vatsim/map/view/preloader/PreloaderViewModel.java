@@ -27,8 +27,11 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Log4j2
@@ -186,6 +189,7 @@ public class PreloaderViewModel implements ViewModel {
         private final String taskStarted;
         private final String taskCompleted;
         private final VoidCallable callable;
+        private final List<CallableTask> dependencies = new ArrayList<>();
 
         public CallableTask(final String taskStarted, final String taskCompleted, final VoidCallable callable) {
             this.taskStarted = taskStarted;
@@ -193,6 +197,11 @@ public class PreloaderViewModel implements ViewModel {
             this.callable = callable;
         }
 
+        public CallableTask after(final CallableTask... dependencies) {
+            this.dependencies.addAll(Arrays.asList(dependencies));
+            return this;
+        }
+
         @Override
         protected Void call() throws Exception {
             runTimed(callable, taskStarted, taskCompleted);
@@ -201,36 +210,126 @@ public class PreloaderViewModel implements ViewModel {
         }
     }
 
-    private static class CompositeTask extends Task<Void> {
+    /**
+     * Runs tasks on a thread pool as soon as all of their dependencies have completed. Tasks must be listed after
+     * their dependencies. The description shows the running tasks and the duration of the last completed task.
+     */
+    private static class TaskGraph extends Task<Void> {
         private final ReadOnlyStringWrapper currentTaskDescription = new ReadOnlyStringWrapper();
         private final List<CallableTask> tasks;
 
-        public CompositeTask(final List<CallableTask> tasks) {
+        private final Set<CallableTask> running = new LinkedHashSet<>();
+        private final Map<CallableTask, Duration> durations = new LinkedHashMap<>();
+
+        public TaskGraph(final List<CallableTask> tasks) {
             this.tasks = tasks;
+
+            for (int i = 0; i < tasks.size(); i++) {
+                for (final CallableTask dependency : tasks.get(i).dependencies) {
+                    final int index = tasks.indexOf(dependency);
+                    if (index < 0 || index >= i) {
+                        throw new IllegalArgumentException("Task \"%s\" must be listed after its dependency \"%s\"".formatted(tasks.get(i).taskStarted, dependency.taskStarted));
+                    }
+                }
+            }
         }
 
         @Override
         protected Void call() throws Exception {
             log.debug("Starting preloader tasks");
-            final int n = tasks.size();
+            final long start = System.nanoTime();
+
+            final int threads = Math.max(1, Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+            final ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+                final Thread thread = new Thread(r, "Preloader");
+                thread.setDaemon(true);
+                return thread;
+            });
 
-            for (int i = 0; i < n; i++) {
-                final CallableTask task = tasks.get(i);
-                final int progressDone = i;
-                Platform.runLater(() -> {
-                    updateProgress(progressDone, n);
-                    currentTaskDescription.set(task.taskStarted);
-                });
+            try {
+                final Map<CallableTask, CompletableFuture<Void>> futures = new HashMap<>();
 
-                task.call();
+                for (final CallableTask task : tasks) {
+                    final CompletableFuture<?>[] dependencies = task.dependencies
+                            .stream()
+                            .map(futures::get)
+                            .toArray(CompletableFuture[]::new);
+
+                    futures.put(task, CompletableFuture.allOf(dependencies).thenRunAsync(() -> run(task), executor));
+                }
+
+                CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            } finally {
+                executor.shutdownNow();
             }
 
             Platform.runLater(() -> updateProgress(1, 1));
 
-            log.debug("Completed preloader tasks");
+            log.debug("Completed preloader tasks in %s, task durations:%n%s".formatted(
+                    Duration.ofNanos(System.nanoTime() - start),
+                    durations
+                            .entrySet()
+                            .stream()
+                            .map(e -> "    %s: %s".formatted(e.getKey().taskStarted, e.getValue()))
+                            .collect(Collectors.joining("\n"))
+            ));
             return null;
         }
 
+        private void run(final CallableTask task) {
+            synchronized (this) {
+                running.add(task);
+                updateDescription(null);
+            }
+
+            final long start = System.nanoTime();
+
+            try {
+                task.call();
+            } catch (final Exception e) {
+                // The error message is derived from the current description
+                Platform.runLater(() -> currentTaskDescription.set(task.taskStarted));
+                throw new CompletionException(e);
+            }
+
+            final Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+            synchronized (this) {
+                running.remove(task);
+                durations.put(task, duration);
+                updateDescription("%s in %sms".formatted(task.taskCompleted, duration.toMillis()));
+            }
+        }
+
+        private void updateDescription(final String lastCompleted) {
+            final String runningDescription = running
+                    .stream()
+                    .map(e -> e.taskStarted)
+                    .collect(Collectors.joining(", "));
+
+            final String description;
+            if (lastCompleted == null) {
+                description = runningDescription;
+            } else if (runningDescription.isEmpty()) {
+                description = lastCompleted;
+            } else {
+                description = "%s (%s)".formatted(runningDescription, lastCompleted);
+            }
+
+            final int completed = durations.size();
+            final int n = tasks.size();
+
+            Platform.runLater(() -> {
+                updateProgress(completed, n);
+                currentTaskDescription.set(description);
+            });
+        }
+
         public String getCurrentTaskDescription() {
             return currentTaskDescription.get();
         }
@@ -284,6 +383,13 @@ public class PreloaderViewModel implements ViewModel {
                     "Loaded Ratings",
                     ratingsLoader::loadRatings
             );
+            // Fetched once up front, the repositories that parse VAT-Spy would otherwise all fetch it concurrently
+            // because none of them finds it in the cache yet
+            final var loadVatSpy = new CallableTask(
+                    "Loading VAT-Spy Data",
+                    "Loaded VAT-Spy Data",
+                    vatsimApi::vatSpy
+            );
             final var loadAirports = new RepositoryTask(
                     "Loading Airports",
                     "Loaded Airports",
@@ -337,7 +443,17 @@ public class PreloaderViewModel implements ViewModel {
                     }
             );
 
+            loadCountries.after(loadVatSpy);
+            loadInternationalDateLine.after(loadVatSpy);
+            loadFirs.after(loadVatSpy);
+            loadFirbs.after(loadFirs, loadCountries);
+            loadUirs.after(loadFirbs);
+            loadAirports.after(loadFirbs, loadCountries);
+            loadClients.after(loadAirports, loadFirbs, loadUirs, loadRatings);
+            clearCaches.after(loadCountries, loadInternationalDateLine, loadFirs, loadFirbs, loadUirs, loadAirports, loadRatings, loadClients);
+
             tasks = List.of(
+                    loadVatSpy,
                     loadWorld,
                     loadLakes,
                     loadCountries,
@@ -372,7 +488,7 @@ public class PreloaderViewModel implements ViewModel {
 
         @Override
         protected Task<Void> createTask() {
-            final CompositeTask result = new CompositeTask(tasks);
+            final TaskGraph result = new TaskGraph(tasks);
             currentTaskDescription.bind(result.currentTaskDescriptionProperty());
             /////////////////////////////////////////////////////
             // dont remove or progress bindings might be GC'd  //
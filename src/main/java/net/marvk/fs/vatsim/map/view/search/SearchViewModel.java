@@ -17,8 +17,7 @@ import net.marvk.fs.vatsim.map.view.StatusScope;
 import net.marvk.fs.vatsim.map.view.ToolbarScope;
 
 import java.time.Duration;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -41,7 +40,7 @@ public class SearchViewModel extends BaseViewModel {
             final Preferences preferences
     ) {
         final SearchActionSupplier supplier = searchActionProvider.get();
-        this.searchCommand = new DelegateCommand(() -> supplier.createAction(query.get(), results), true);
+        this.searchCommand = new DelegateCommand(() -> supplier.createAction(query.get(), results));
         this.preferences = preferences;
     }
 
@@ -57,13 +56,13 @@ public class SearchViewModel extends BaseViewModel {
         });
         statusScope.searchQueryProperty().bind(query);
 
-//        query.addListener((observable, oldValue, newValue) -> {
-//            if (newValue != null && !newValue.isBlank()) {
-//                search();
-//            } else {
-//                clear();
-//            }
-//        });
+        query.addListener((observable, oldValue, newValue) -> search());
+
+        Notifications.CLIENTS_RELOADED.subscribe(() -> {
+            if (query.get() != null && !query.get().isBlank()) {
+                search();
+            }
+        });
     }
 
     public void search() {
@@ -108,7 +107,16 @@ public class SearchViewModel extends BaseViewModel {
         return preferences.integerProperty("general.font_size");
     }
 
+    /**
+     * Searches the indices maintained by the repositories, so a search is cheap enough to run on the FX thread on
+     * every keystroke. The filtered lists only check membership in the result set.
+     */
     private static class SearchActionSupplier {
+        private final ClientRepository clientRepository;
+        private final AirportRepository airportRepository;
+        private final FlightInformationRegionBoundaryRepository firbRepository;
+        private final UpperInformationRegionRepository uirRepository;
+
         private final FilteredList<Client> filteredClients;
         private final FilteredList<Airport> filteredAirports;
         private final FilteredList<FlightInformationRegionBoundary> filteredFirbs;
@@ -122,6 +130,11 @@ public class SearchViewModel extends BaseViewModel {
                 final UpperInformationRegionRepository uirRepository,
                 final ToolbarScope toolbarScope
         ) {
+            this.clientRepository = clientRepository;
+            this.airportRepository = airportRepository;
+            this.firbRepository = firbRepository;
+            this.uirRepository = uirRepository;
+
             this.filteredClients = new FilteredList<>(clientRepository.list());
             this.filteredAirports = new FilteredList<>(airportRepository.list());
             this.filteredFirbs = new FilteredList<>(firbRepository.list());
@@ -140,28 +153,36 @@ public class SearchViewModel extends BaseViewModel {
         private class SearchAction extends Action {
             private final String query;
             private final ObjectProperty<ObservableList<Data>> result;
-            private final DataVisitor<Boolean> predicateSupplier;
 
             public SearchAction(final String query, final ObjectProperty<ObservableList<Data>> result) {
                 this.query = query;
                 this.result = result;
-                this.predicateSupplier = SimplePredicatesDataVisitor.nullOrBlankIsTrue(query);
             }
 
             @Override
             protected void action() {
                 final long start = System.nanoTime();
 
-                filteredClients.setPredicate(predicateSupplier::visit);
-                filteredAirports.setPredicate(predicateSupplier::visit);
-                filteredFirbs.setPredicate(predicateSupplier::visit);
-                filteredUirs.setPredicate(predicateSupplier::visit);
+                if (query == null || query.isBlank()) {
+                    filteredClients.setPredicate(null);
+                    filteredAirports.setPredicate(null);
+                    filteredFirbs.setPredicate(null);
+                    filteredUirs.setPredicate(null);
 
-                if (query.isBlank()) {
                     this.result.set(null);
                 } else {
+                    final List<Client> clients = clientRepository.search(query);
+                    final List<Airport> airports = airportRepository.search(query);
+                    final List<FlightInformationRegionBoundary> firbs = firbRepository.search(query);
+                    final List<UpperInformationRegion> uirs = uirRepository.search(query);
+
+                    filteredClients.setPredicate(identitySet(clients)::contains);
+                    filteredAirports.setPredicate(identitySet(airports)::contains);
+                    filteredFirbs.setPredicate(identitySet(firbs)::contains);
+                    filteredUirs.setPredicate(identitySet(uirs)::contains);
+
                     final ObservableList<Data> result = Stream
-                            .of(filteredClients, filteredAirports, filteredFirbs, filteredUirs)
+                            .of(clients, airports, firbs, uirs)
                             .flatMap(Collection::stream)
                             .collect(Collectors.toCollection(FXCollections::observableArrayList));
 
@@ -169,8 +190,14 @@ public class SearchViewModel extends BaseViewModel {
                 }
 
                 final Duration duration = Duration.ofNanos(System.nanoTime() - start);
-                log.info("Search duration %sms".formatted(duration.toNanos() / 1_000_000.0));
+                log.debug("Search duration %sms".formatted(duration.toNanos() / 1_000_000.0));
             }
         }
+
+        private static <E> Set<E> identitySet(final Collection<E> elements) {
+            final Set<E> result = Collections.newSetFromMap(new IdentityHashMap<>(elements.size()));
+            result.addAll(elements);
+            return result;
+        }
     }
 }
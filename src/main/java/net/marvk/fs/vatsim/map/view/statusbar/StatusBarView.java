@@ -17,6 +17,8 @@ public class StatusBarView implements FxmlView<StatusBarViewModel> {
     private Label mousePosition;
     @FXML
     private Label information;
+    @FXML
+    private Label reloadStatus;
     @InjectViewModel
     private StatusBarViewModel viewModel;
 
@@ -24,6 +26,7 @@ public class StatusBarView implements FxmlView<StatusBarViewModel> {
         mousePosition.textProperty().bind(BindingsUtil.position(viewModel.mouseWorldPositionProperty()));
 
         information.textProperty().bind(viewModel.informationProperty());
+        reloadStatus.textProperty().bind(viewModel.reloadStatusProperty());
 
         viewModel.playerStatsProperty().addListener((observable, oldValue, newValue) -> setPlayerStats());
         setPlayerStats();
@@ -31,6 +34,7 @@ public class StatusBarView implements FxmlView<StatusBarViewModel> {
         bindTextToTooltip(playersOnline);
         bindTextToTooltip(information);
         bindTextToTooltip(mousePosition);
+        bindTextToTooltip(reloadStatus);
     }
 
     private void setPlayerStats() {
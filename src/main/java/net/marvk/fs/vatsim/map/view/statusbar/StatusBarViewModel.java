@@ -3,18 +3,25 @@ package net.marvk.fs.vatsim.map.view.statusbar;
 import com.google.inject.Inject;
 import de.saxsys.mvvmfx.InjectScope;
 import de.saxsys.mvvmfx.ViewModel;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
+import javafx.util.Duration;
 import net.marvk.fs.vatsim.map.data.Client;
 import net.marvk.fs.vatsim.map.data.ClientRepository;
 import net.marvk.fs.vatsim.map.data.Data;
 import net.marvk.fs.vatsim.map.data.IcaoVisitor;
+import net.marvk.fs.vatsim.map.data.ReloadMetrics;
 import net.marvk.fs.vatsim.map.view.StatusScope;
 
+import java.time.Instant;
+import java.util.StringJoiner;
 import java.util.stream.Collectors;
 
 public class StatusBarViewModel implements ViewModel {
@@ -25,6 +32,8 @@ public class StatusBarViewModel implements ViewModel {
     private final ClientRepository clientRepository;
 
     private final ReadOnlyStringWrapper information = new ReadOnlyStringWrapper();
+    private final ReadOnlyStringWrapper reloadStatus = new ReadOnlyStringWrapper();
+    private final Timeline reloadStatusTimeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> updateReloadStatus()));
     private final IcaoVisitor icaoVisitor = new IcaoVisitor("");
 
     @InjectScope
@@ -45,6 +54,32 @@ public class StatusBarViewModel implements ViewModel {
                 () -> highlightedData.stream().map(icaoVisitor::visit).collect(Collectors.joining(", ")),
                 highlightedData
         ));
+
+        clientRepository.lastReloadMetricsProperty().addListener((observable, oldValue, newValue) -> updateReloadStatus());
+        reloadStatusTimeline.setCycleCount(Animation.INDEFINITE);
+        reloadStatusTimeline.play();
+        updateReloadStatus();
+    }
+
+    /**
+     * Shows how old the feed the clients were loaded from is and how long the last reload took
+     */
+    private void updateReloadStatus() {
+        final Instant updateTimestamp = clientRepository.getUpdateTimestamp();
+        final ReloadMetrics metrics = clientRepository.getLastReloadMetrics();
+
+        final StringJoiner sj = new StringJoiner(", ");
+
+        if (updateTimestamp != null) {
+            final long age = Math.max(0, java.time.Duration.between(updateTimestamp, Instant.now()).toSeconds());
+            sj.add("Data %ds old".formatted(age));
+        }
+
+        if (metrics != null) {
+            sj.add("Reload %dms".formatted(metrics.getTotal().toMillis()));
+        }
+
+        reloadStatus.set(sj.toString());
     }
 
     private void updatePlayerStats() {
@@ -63,6 +98,14 @@ public class StatusBarViewModel implements ViewModel {
         return playerStats.getReadOnlyProperty();
     }
 
+    public String getReloadStatus() {
+        return reloadStatus.get();
+    }
+
+    public ReadOnlyStringProperty reloadStatusProperty() {
+        return reloadStatus.getReadOnlyProperty();
+    }
+
     public String getInformation() {
         return information.get();
     }
@@ -56,10 +56,6 @@ public class ToolBarViewModel implements ViewModel {
         return preferences;
     }
 
-    public void triggerRepaint() {
-        Notifications.REPAINT.publish();
-    }
-
     public boolean isReloadExecutable() {
         return toolbarScope.isReloadExecutable();
     }
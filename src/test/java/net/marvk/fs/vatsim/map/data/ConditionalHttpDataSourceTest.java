@@ -0,0 +1,104 @@
+package net.marvk.fs.vatsim.map.data;
+
+import com.sun.net.httpserver.HttpServer;
+import net.marvk.fs.vatsim.api.VatsimApiException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConditionalHttpDataSourceTest {
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile String feed = feed("2021-03-01T12:00:00.0000000Z");
+
+    private HttpServer server;
+    private ConditionalHttpDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/data", exchange -> {
+            requests.incrementAndGet();
+
+            final String etag = "\"%d\"".formatted(feed.hashCode());
+
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            final byte[] bytes = feed.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("ETag", etag);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (final OutputStream body = exchange.getResponseBody()) {
+                body.write(bytes);
+            }
+        });
+        server.start();
+
+        final String url = "http://localhost:%d/data".formatted(server.getAddress().getPort());
+        dataSource = new ConditionalHttpDataSource(null, url, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testRefreshIsReusedByData() throws VatsimApiException {
+        Assertions.assertEquals("2021-03-01T12:00:00.0000000Z", dataSource.refresh());
+        Assertions.assertEquals(feed, dataSource.data());
+        Assertions.assertEquals(1, requests.get());
+
+        Assertions.assertEquals(feed, dataSource.data());
+        Assertions.assertEquals(2, requests.get());
+    }
+
+    @Test
+    void testNotModified() throws VatsimApiException {
+        final String first = dataSource.data();
+
+        Assertions.assertEquals("2021-03-01T12:00:00.0000000Z", dataSource.refresh());
+        Assertions.assertSame(first, dataSource.data());
+        Assertions.assertEquals(1, notModified.get());
+
+        feed = feed("2021-03-01T12:00:15.0000000Z");
+
+        Assertions.assertEquals("2021-03-01T12:00:15.0000000Z", dataSource.refresh());
+        Assertions.assertEquals(feed, dataSource.data());
+        Assertions.assertEquals(1, notModified.get());
+    }
+
+    @Test
+    void testUpdateTimestamp() {
+        Assertions.assertEquals("2021-03-01T12:00:00.0000000Z", ConditionalHttpDataSource.updateTimestamp(feed));
+        Assertions.assertNull(ConditionalHttpDataSource.updateTimestamp("{\"general\": {}}"));
+        Assertions.assertNull(ConditionalHttpDataSource.updateTimestamp(null));
+    }
+
+    private static String feed(final String updateTimestamp) {
+        return """
+                {
+                  "general": {
+                    "version": 3,
+                    "reload": 1,
+                    "update_timestamp": "%s",
+                    "connected_clients": 0
+                  },
+                  "pilots": [],
+                  "controllers": []
+                }
+                """.formatted(updateTimestamp);
+    }
+}
@@ -44,6 +44,43 @@ class FilterStringPredicateTest {
         runAalTest(predicate);
     }
 
+    @Test
+    void testSimpleWildcards() {
+        final Filter.StringPredicate predicate = Filter.StringPredicate.tryCreate("ED*_*TWR", false).orElseThrow();
+
+        Assertions.assertTrue(predicate.test("EDDF_TWR"));
+        Assertions.assertTrue(predicate.test("eddm_n_twr"));
+        Assertions.assertFalse(predicate.test("EDDF_APP"));
+        Assertions.assertFalse(predicate.test("ED_TWR"));
+        Assertions.assertFalse(predicate.test("LOWW_TWR"));
+    }
+
+    @Test
+    void testSimpleContains() {
+        final Filter.StringPredicate predicate = Filter.StringPredicate.tryCreate("*LH*", false).orElseThrow();
+
+        Assertions.assertTrue(predicate.test("DLH123"));
+        Assertions.assertTrue(predicate.test("LH"));
+        Assertions.assertFalse(predicate.test("L"));
+        Assertions.assertFalse(predicate.test("BAW1"));
+    }
+
+    @Test
+    void testSimpleWithoutWildcards() {
+        final Filter.StringPredicate predicate = Filter.StringPredicate.tryCreate("EDDF", false).orElseThrow();
+
+        Assertions.assertTrue(predicate.test("eddf"));
+        Assertions.assertFalse(predicate.test("EDDF_TWR"));
+    }
+
+    @Test
+    void testSimpleWithRegexCharacters() {
+        final Filter.StringPredicate predicate = Filter.StringPredicate.tryCreate("DLH.*", false).orElseThrow();
+
+        Assertions.assertTrue(predicate.test("DLH1"));
+        Assertions.assertFalse(predicate.test("DLH"));
+    }
+
     private void runAalTest(final Filter.StringPredicate predicate) {
         Assertions.assertTrue(predicate.test("AAL"));
         Assertions.assertTrue(predicate.test("AAL123"));
@@ -0,0 +1,78 @@
+package net.marvk.fs.vatsim.map.data;
+
+import javafx.geometry.Point2D;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+class GeometryCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        final GeometryCache cache = new GeometryCache(directory);
+        final byte[] hash = hash("source");
+
+        final Polygon polygon = new Polygon(
+                List.of(List.of(new Point2D(0, 0), new Point2D(4, 0), new Point2D(4, 4), new Point2D(0, 4))),
+                (e, i) -> e.get(i).getX(),
+                (e, i) -> e.get(i).getY(),
+                List::size,
+                "square"
+        );
+        polygon.getExteriorRing().computePolyLabel(Polygon.Ring.DEFAULT_POLY_LABEL_PRECISION);
+        final Point2D polyLabel = polygon.getExteriorRing().getComputedPolyLabel();
+
+        cache.write("test", hash, List.of(polygon));
+
+        final List<Polygon> read = cache.read("test", hash).orElseThrow();
+
+        Assertions.assertEquals(1, read.size());
+        Assertions.assertEquals("square", read.get(0).getName());
+        Assertions.assertArrayEquals(polygon.getExteriorRing().getPointsX(), read.get(0).getExteriorRing().getPointsX());
+        Assertions.assertArrayEquals(polygon.getExteriorRing().getPointsY(), read.get(0).getExteriorRing().getPointsY());
+        Assertions.assertEquals(polygon.boundary(), read.get(0).boundary());
+        Assertions.assertEquals(polyLabel, read.get(0).getExteriorRing().getComputedPolyLabel());
+    }
+
+    @Test
+    void testPolyLabelRoundTrip() {
+        final GeometryCache cache = new GeometryCache(directory);
+        final Polygon polygon = new Polygon(
+                List.of(List.of(new Point2D(0, 0), new Point2D(4, 0), new Point2D(4, 4), new Point2D(0, 4))),
+                (e, i) -> e.get(i).getX(),
+                (e, i) -> e.get(i).getY(),
+                List::size
+        );
+        final byte[] hash = GeometryCache.hash(List.of(polygon));
+        final List<Point2D> polyLabels = Arrays.asList(new Point2D(2, 2), null);
+
+        cache.writePolyLabels("labels", hash, polyLabels);
+
+        Assertions.assertEquals(polyLabels, cache.readPolyLabels("labels", hash).orElseThrow());
+        Assertions.assertTrue(cache.read("labels", hash).isEmpty());
+    }
+
+    @Test
+    void testChangedSourceIsMiss() throws IOException {
+        final GeometryCache cache = new GeometryCache(directory);
+
+        cache.write("test", hash("source"), List.of());
+
+        Assertions.assertTrue(cache.read("test", hash("source")).isPresent());
+        Assertions.assertTrue(cache.read("test", hash("changed")).isEmpty());
+        Assertions.assertTrue(cache.read("missing", hash("source")).isEmpty());
+    }
+
+    private static byte[] hash(final String s) throws IOException {
+        return GeometryCache.hash(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)));
+    }
+}
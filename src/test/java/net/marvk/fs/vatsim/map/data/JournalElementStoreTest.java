@@ -0,0 +1,89 @@
+package net.marvk.fs.vatsim.map.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+class JournalElementStoreTest {
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        final Path file = directory.resolve("elements.journal");
+
+        final JournalElementStore store = new JournalElementStore(file);
+        store.put(FIRST, "first");
+        store.put(SECOND, "second");
+        store.flush();
+        store.put(FIRST, "first updated");
+        store.remove(SECOND);
+        store.flush();
+
+        Assertions.assertEquals(Map.of(FIRST, "first updated"), new JournalElementStore(file).load());
+    }
+
+    @Test
+    void testTornWriteIsIgnored() throws IOException {
+        final Path file = directory.resolve("elements.journal");
+
+        final JournalElementStore store = new JournalElementStore(file);
+        store.put(FIRST, "first");
+        store.flush();
+        store.put(SECOND, "second");
+        store.flush();
+
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        final JournalElementStore reopened = new JournalElementStore(file);
+        Assertions.assertEquals(Map.of(FIRST, "first"), reopened.load());
+
+        reopened.flush();
+        Assertions.assertEquals(Map.of(FIRST, "first"), new JournalElementStore(file).load());
+    }
+
+    @Test
+    void testUnknownFormatIsBackedUp() throws IOException {
+        final Path file = directory.resolve("elements.journal");
+        final byte[] garbage = "not a journal".getBytes();
+        Files.write(file, garbage);
+
+        final JournalElementStore store = new JournalElementStore(file);
+        Assertions.assertTrue(store.load().isEmpty());
+
+        final Path backup = directory.resolve("elements.journal.corrupt");
+        Assertions.assertArrayEquals(garbage, Files.readAllBytes(backup));
+
+        store.put(FIRST, "first");
+        store.flush();
+
+        Assertions.assertEquals(Map.of(FIRST, "first"), new JournalElementStore(file).load());
+        Assertions.assertArrayEquals(garbage, Files.readAllBytes(backup));
+    }
+
+    @Test
+    void testCompaction() throws IOException {
+        final Path file = directory.resolve("elements.journal");
+
+        final JournalElementStore store = new JournalElementStore(file);
+        for (int i = 0; i < 1000; i++) {
+            store.put(FIRST, "value " + i);
+            store.flush();
+        }
+
+        Assertions.assertTrue(Files.size(file) < 64 * 64);
+        Assertions.assertEquals(Map.of(FIRST, "value 999"), new JournalElementStore(file).load());
+    }
+}
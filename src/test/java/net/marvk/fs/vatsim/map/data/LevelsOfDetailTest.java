@@ -0,0 +1,57 @@
+package net.marvk.fs.vatsim.map.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LevelsOfDetailTest {
+    @Test
+    void testCoarserLevelsAreSubsets() {
+        final int n = 1000;
+        final double[] xs = new double[n];
+        final double[] ys = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            final double angle = 2 * Math.PI * i / n;
+            xs[i] = 10 * Math.cos(angle);
+            ys[i] = 10 * Math.sin(angle);
+        }
+
+        final LevelsOfDetail levelsOfDetail = new LevelsOfDetail(xs, ys);
+
+        Assertions.assertSame(xs, levelsOfDetail.getPointsX(0));
+
+        int lastSize = n;
+        for (int level = 1; level <= LevelsOfDetail.level(Double.MAX_VALUE); level++) {
+            final double[] levelX = levelsOfDetail.getPointsX(level);
+            final double[] levelY = levelsOfDetail.getPointsY(level);
+
+            Assertions.assertEquals(levelX.length, levelY.length);
+            Assertions.assertTrue(levelX.length <= lastSize);
+            Assertions.assertTrue(levelX.length >= 4);
+            Assertions.assertEquals(xs[0], levelX[0]);
+            Assertions.assertEquals(xs[n - 1], levelX[levelX.length - 1]);
+
+            lastSize = levelX.length;
+        }
+
+        Assertions.assertTrue(lastSize < n / 10);
+    }
+
+    @Test
+    void testDropsCollinearPoints() {
+        final LevelsOfDetail levelsOfDetail = new LevelsOfDetail(
+                new double[]{0, 1, 2, 3, 4, 4, 0},
+                new double[]{0, 0, 0, 0, 0, 4, 4}
+        );
+
+        Assertions.assertArrayEquals(new double[]{0, 4, 4, 0}, levelsOfDetail.getPointsX(1));
+        Assertions.assertArrayEquals(new double[]{0, 0, 4, 4}, levelsOfDetail.getPointsY(1));
+    }
+
+    @Test
+    void testLevelSelection() {
+        Assertions.assertEquals(0, LevelsOfDetail.level(0));
+        Assertions.assertEquals(0, LevelsOfDetail.level(0.001));
+        Assertions.assertTrue(LevelsOfDetail.level(0.1) > LevelsOfDetail.level(0.01));
+    }
+}
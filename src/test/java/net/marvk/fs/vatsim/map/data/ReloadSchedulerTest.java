@@ -0,0 +1,85 @@
+package net.marvk.fs.vatsim.map.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+class ReloadSchedulerTest {
+    private static final Instant START = Instant.parse("2021-03-01T12:00:00Z");
+
+    @Test
+    void testLearnsCadence() {
+        final ReloadScheduler scheduler = new ReloadScheduler(Duration.ofSeconds(30), Duration.ofSeconds(10));
+
+        for (int i = 0; i < 40; i++) {
+            final Instant update = START.plusSeconds(15L * i);
+            scheduler.reloaded(update.plusSeconds(1), update);
+        }
+
+        Assertions.assertEquals(15, scheduler.cadence().toSeconds());
+    }
+
+    @Test
+    void testMissedUpdatesDoNotStretchCadence() {
+        final ReloadScheduler scheduler = new ReloadScheduler(Duration.ofSeconds(15), Duration.ofSeconds(30));
+
+        for (int i = 0; i < 10; i++) {
+            final Instant update = START.plusSeconds(30L * i);
+            scheduler.reloaded(update.plusSeconds(1), update);
+        }
+
+        Assertions.assertEquals(15, scheduler.cadence().toSeconds());
+    }
+
+    @Test
+    void testSchedulesAfterNextExpectedUpdate() {
+        final ReloadScheduler scheduler = new ReloadScheduler(Duration.ofSeconds(15), Duration.ofSeconds(30));
+
+        // Observed one second after the update, the first expected update at least 30 seconds away is 30 seconds later
+        final Duration delay = scheduler.reloaded(START.plusSeconds(1), START);
+
+        Assertions.assertEquals(START.plusSeconds(31).plus(ReloadScheduler.SLACK), START.plusSeconds(1).plus(delay));
+    }
+
+    @Test
+    void testUnchangedBacksOff() {
+        final ReloadScheduler scheduler = new ReloadScheduler(Duration.ofSeconds(15), Duration.ofSeconds(30));
+        scheduler.reloaded(START.plusSeconds(1), START);
+
+        final Duration first = scheduler.reloaded(START.plusSeconds(33), START);
+        final Duration second = scheduler.reloaded(START.plusSeconds(35), START);
+
+        Assertions.assertEquals(ReloadScheduler.UNCHANGED_DELAY, first);
+        Assertions.assertEquals(ReloadScheduler.UNCHANGED_DELAY.multipliedBy(2), second);
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(scheduler.reloaded(START.plusSeconds(40), START).compareTo(scheduler.cadence()) <= 0);
+        }
+    }
+
+    @Test
+    void testFailureBacksOff() {
+        final ReloadScheduler scheduler = new ReloadScheduler(Duration.ofSeconds(15), Duration.ofSeconds(30));
+
+        Assertions.assertEquals(ReloadScheduler.ERROR_DELAY, scheduler.failed());
+        Assertions.assertEquals(ReloadScheduler.ERROR_DELAY.multipliedBy(2), scheduler.failed());
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.failed();
+        }
+
+        Assertions.assertEquals(ReloadScheduler.MAX_ERROR_DELAY, scheduler.failed());
+
+        scheduler.reloaded(START.plusSeconds(1), START);
+        Assertions.assertEquals(ReloadScheduler.ERROR_DELAY, scheduler.failed());
+    }
+
+    @Test
+    void testUnknownTimestampUsesMinInterval() {
+        final ReloadScheduler scheduler = new ReloadScheduler(Duration.ofSeconds(15), Duration.ofSeconds(30));
+
+        Assertions.assertEquals(Duration.ofSeconds(30), scheduler.reloaded(START, null));
+    }
+}
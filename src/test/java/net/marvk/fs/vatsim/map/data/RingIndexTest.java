@@ -0,0 +1,87 @@
+package net.marvk.fs.vatsim.map.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class RingIndexTest {
+    @Test
+    void testSquare() {
+        final RingIndex index = new RingIndex(new double[]{0, 10, 10, 0}, new double[]{0, 0, 10, 10});
+
+        Assertions.assertTrue(index.isInside(5, 5));
+        Assertions.assertTrue(index.isInside(0.1, 9.9));
+        Assertions.assertFalse(index.isInside(-1, 5));
+        Assertions.assertFalse(index.isInside(5, 11));
+        Assertions.assertFalse(index.isInside(10.1, 10.1));
+    }
+
+    @Test
+    void testConcave() {
+        final RingIndex index = new RingIndex(
+                new double[]{0, 10, 10, 6, 6, 4, 4, 0},
+                new double[]{0, 0, 10, 10, 2, 2, 10, 10}
+        );
+
+        Assertions.assertTrue(index.isInside(2, 8));
+        Assertions.assertTrue(index.isInside(8, 8));
+        Assertions.assertTrue(index.isInside(5, 1));
+        Assertions.assertFalse(index.isInside(5, 8));
+    }
+
+    @Test
+    void testDegenerate() {
+        Assertions.assertFalse(new RingIndex(new double[]{0, 1}, new double[]{0, 1}).isInside(0.5, 0.5));
+        Assertions.assertFalse(new RingIndex(new double[]{0, 1, 2}, new double[]{0, 0, 0}).isInside(1, 0));
+    }
+
+    @Test
+    void testMatchesWindingNumber() {
+        final Random random = new Random(0);
+
+        for (int polygon = 0; polygon < 200; polygon++) {
+            final int n = 3 + random.nextInt(200);
+            final double[] xs = new double[n];
+            final double[] ys = new double[n];
+
+            for (int i = 0; i < n; i++) {
+                final double angle = 2 * Math.PI * i / n;
+                final double radius = 1 + random.nextDouble() * 5;
+                xs[i] = Math.round(radius * Math.cos(angle) * 4) / 4.0;
+                ys[i] = Math.round(radius * Math.sin(angle) * 4) / 4.0;
+            }
+
+            final RingIndex index = new RingIndex(xs, ys);
+
+            for (int i = 0; i < 500; i++) {
+                final double x = random.nextDouble() * 14 - 7;
+                final double y = random.nextDouble() * 14 - 7;
+                Assertions.assertEquals(windingNumber(xs, ys, x, y) != 0, index.isInside(x, y));
+            }
+
+            for (int i = 0; i < n; i++) {
+                Assertions.assertEquals(windingNumber(xs, ys, xs[i], ys[i]) != 0, index.isInside(xs[i], ys[i]));
+            }
+        }
+    }
+
+    private static int windingNumber(final double[] xs, final double[] ys, final double x, final double y) {
+        int result = 0;
+        final int n = xs.length;
+
+        for (int i = 0; i < n; i++) {
+            final int i1 = (i + 1) % n;
+            final double isLeft = (xs[i1] - xs[i]) * (y - ys[i]) - (x - xs[i]) * (ys[i1] - ys[i]);
+            if (ys[i] <= y) {
+                if (ys[i1] > y && isLeft > 0) {
+                    result += 1;
+                }
+            } else if (ys[i1] <= y && isLeft < 0) {
+                result -= 1;
+            }
+        }
+
+        return result;
+    }
+}
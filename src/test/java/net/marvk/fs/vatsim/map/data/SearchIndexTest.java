@@ -0,0 +1,71 @@
+package net.marvk.fs.vatsim.map.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class SearchIndexTest {
+    @Test
+    void testRanksExactThenPrefixThenWordStartThenContains() {
+        final SearchIndex<String> index = new SearchIndex<>();
+
+        index.put("contains", List.of("XEDDFX"));
+        index.put("wordStart", List.of("FOO EDDF"));
+        index.put("prefix", List.of("EDDF_TWR"));
+        index.put("exact", List.of("EDDF"));
+        index.put("none", List.of("EGLL"));
+
+        Assertions.assertEquals(List.of("exact", "prefix", "wordStart", "contains"), index.search("eddf"));
+    }
+
+    @Test
+    void testPrefersEarlierFields() {
+        final SearchIndex<String> index = new SearchIndex<>();
+
+        index.put("name", List.of("DLH123", "Frankfurt"));
+        index.put("callsign", List.of("FRANKFURT", "Someone"));
+
+        Assertions.assertEquals(List.of("callsign", "name"), index.search("frankfurt"));
+    }
+
+    @Test
+    void testShortQueries() {
+        final SearchIndex<String> index = new SearchIndex<>();
+
+        index.put("a", List.of("EDDF"));
+        index.put("b", List.of("KJFK"));
+
+        Assertions.assertEquals(List.of("a"), index.search("dd"));
+        Assertions.assertEquals(List.of("b"), index.search("J"));
+        Assertions.assertTrue(index.search("").isEmpty());
+    }
+
+    @Test
+    void testTrigramsMustOccurInTheSameField() {
+        final SearchIndex<String> index = new SearchIndex<>();
+
+        index.put("a", List.of("ABCD", "BCDE"));
+
+        Assertions.assertTrue(index.search("abcde").isEmpty());
+        Assertions.assertEquals(List.of("a"), index.search("bcde"));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        final SearchIndex<String> index = new SearchIndex<>();
+
+        index.put("a", List.of("EDDF"));
+        index.put("b", List.of("EDDM"));
+        index.put("a", List.of("LOWW"));
+
+        Assertions.assertTrue(index.search("eddf").isEmpty());
+        Assertions.assertEquals(List.of("a"), index.search("loww"));
+
+        index.remove("b");
+        index.put("c", List.of("EDDM"));
+
+        Assertions.assertEquals(List.of("c"), index.search("eddm"));
+        Assertions.assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,194 @@
+package net.marvk.fs.vatsim.map.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SimpleMetarServiceTest {
+    private static final Instant NOW = Instant.parse("2021-03-01T12:10:00Z");
+
+    @Test
+    void testCachedUntilNextIssuance() throws MetarServiceException {
+        final CountingMetarApi api = new CountingMetarApi();
+        final MutableClock clock = new MutableClock(NOW);
+        final SimpleMetarService service = new SimpleMetarService(api, clock, Runnable::run);
+
+        service.latestMetar("EDDF");
+        service.latestMetar("EDDF");
+        Assertions.assertEquals(1, api.requests.get());
+
+        clock.instant = Instant.parse("2021-03-01T12:19:00Z");
+        service.latestMetar("EDDF");
+        Assertions.assertEquals(1, api.requests.get());
+
+        clock.instant = Instant.parse("2021-03-01T12:20:00Z");
+        service.latestMetar("EDDF");
+        Assertions.assertEquals(2, api.requests.get());
+    }
+
+    @Test
+    void testMissingMetarIsCached() throws MetarServiceException {
+        final CountingMetarApi api = new CountingMetarApi();
+        final SimpleMetarService service = new SimpleMetarService(api, new MutableClock(NOW), Runnable::run);
+
+        Assertions.assertTrue(service.latestMetar("XXXX").isEmpty());
+        Assertions.assertTrue(service.latestMetar("XXXX").isEmpty());
+        Assertions.assertEquals(1, api.requests.get());
+    }
+
+    @Test
+    void testConcurrentRequestsAreCoalesced() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingMetarApi api = new CountingMetarApi() {
+            @Override
+            public Optional<Metar> fetchMetar(final String icao) throws MetarApiException {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    throw new MetarApiException(icao, e);
+                }
+                return super.fetchMetar(icao);
+            }
+        };
+        final SimpleMetarService service = new SimpleMetarService(api, new MutableClock(NOW), Runnable::run);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Optional<Metar>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> service.latestMetar("EDDF")));
+            }
+
+            Thread.sleep(100);
+            release.countDown();
+
+            final Metar first = futures.get(0).get(5, TimeUnit.SECONDS).orElseThrow();
+            for (final Future<Optional<Metar>> future : futures) {
+                Assertions.assertSame(first, future.get(5, TimeUnit.SECONDS).orElseThrow());
+            }
+            Assertions.assertEquals(1, api.requests.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testPrefetchUsesBatches() throws MetarServiceException {
+        final CountingMetarApi api = new CountingMetarApi();
+        final SimpleMetarService service = new SimpleMetarService(api, new MutableClock(NOW), Runnable::run);
+
+        service.prefetchNow(List.of("EDDF", "EDDM", "XXXX", "EDDF"));
+
+        Assertions.assertEquals(1, api.batchRequests.get());
+        Assertions.assertEquals(0, api.requests.get());
+        Assertions.assertTrue(service.lastMetar("EDDF").isPresent());
+        Assertions.assertTrue(service.lastMetar("EDDM").isPresent());
+        Assertions.assertTrue(service.latestMetar("XXXX").isEmpty());
+        Assertions.assertEquals(0, api.requests.get());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() throws MetarServiceException {
+        final CountingMetarApi api = new CountingMetarApi();
+        final SimpleMetarService service = new SimpleMetarService(api, new MutableClock(NOW), Runnable::run);
+
+        service.latestMetar("E000");
+        for (int i = 1; i <= SimpleMetarService.MAX_SIZE; i++) {
+            service.latestMetar("E%03d".formatted(i));
+            service.lastMetar("E000");
+        }
+
+        Assertions.assertTrue(service.lastMetar("E000").isPresent());
+        Assertions.assertTrue(service.lastMetar("E001").isEmpty());
+        Assertions.assertEquals(SimpleMetarService.MAX_SIZE, service.lastMetars().size());
+    }
+
+    @Test
+    void testPrefetchIsCappedToCacheSize() {
+        final CountingMetarApi api = new CountingMetarApi();
+        final SimpleMetarService service = new SimpleMetarService(api, new MutableClock(NOW), Runnable::run);
+
+        final List<String> icaos = new ArrayList<>();
+        for (int i = 0; i < SimpleMetarService.MAX_SIZE + 10; i++) {
+            icaos.add("E%03d".formatted(i));
+        }
+
+        service.prefetchNow(icaos);
+
+        Assertions.assertTrue(service.lastMetar("E000").isPresent());
+        Assertions.assertTrue(service.lastMetar("E%03d".formatted(SimpleMetarService.MAX_SIZE - 1)).isPresent());
+        Assertions.assertTrue(service.lastMetar("E%03d".formatted(SimpleMetarService.MAX_SIZE)).isEmpty());
+        Assertions.assertEquals(SimpleMetarService.MAX_SIZE, service.lastMetars().size());
+    }
+
+    @Test
+    void testIssuanceTime() {
+        Assertions.assertEquals(
+                Instant.parse("2021-03-01T11:50:00Z"),
+                SimpleMetarService.issuanceTime("EDDF 011150Z 24008KT 9999 FEW030 08/02 Q1015 NOSIG", NOW)
+        );
+        Assertions.assertEquals(
+                Instant.parse("2021-02-28T23:50:00Z"),
+                SimpleMetarService.issuanceTime("EDDF 282350Z 24008KT CAVOK 08/02 Q1015", NOW)
+        );
+        Assertions.assertNull(SimpleMetarService.issuanceTime("EDDF 24008KT CAVOK", NOW));
+        Assertions.assertNull(SimpleMetarService.issuanceTime(null, NOW));
+    }
+
+    private static class CountingMetarApi implements MetarApi {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger batchRequests = new AtomicInteger();
+
+        @Override
+        public Optional<Metar> fetchMetar(final String icao) throws MetarApiException {
+            requests.incrementAndGet();
+            return metar(icao);
+        }
+
+        @Override
+        public Map<String, Metar> fetchMetars(final Collection<String> icaos) {
+            batchRequests.incrementAndGet();
+
+            final Map<String, Metar> result = new HashMap<>();
+            for (final String icao : icaos) {
+                metar(icao).ifPresent(e -> result.put(icao, e));
+            }
+            return result;
+        }
+
+        private static Optional<Metar> metar(final String icao) {
+            if (icao.startsWith("X")) {
+                return Optional.empty();
+            }
+
+            return Optional.of(new Metar("%s 011150Z 24008KT 9999 FEW030 08/02 Q1015 NOSIG".formatted(icao), LocalDateTime.now()));
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        private MutableClock(final Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
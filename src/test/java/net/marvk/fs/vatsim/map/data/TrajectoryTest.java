@@ -0,0 +1,137 @@
+package net.marvk.fs.vatsim.map.data;
+
+import javafx.geometry.Point2D;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class TrajectoryTest {
+    @Test
+    void testDropsOldest() {
+        final Trajectory trajectory = new Trajectory(3, 0);
+
+        trajectory.append(0, 0);
+        trajectory.append(1, 5);
+        trajectory.append(2, 0);
+        trajectory.append(3, 5);
+
+        Assertions.assertEquals(3, trajectory.size());
+        Assertions.assertEquals(1, trajectory.getX(0));
+        Assertions.assertEquals(2, trajectory.getX(1));
+        Assertions.assertEquals(3, trajectory.getX(2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> trajectory.getX(3));
+    }
+
+    @Test
+    void testToArray() {
+        final Trajectory trajectory = new Trajectory(2, 0);
+
+        Assertions.assertEquals(0, trajectory.toArray().length);
+
+        trajectory.append(0, 0);
+        trajectory.append(1, 5);
+        trajectory.append(2, 0);
+
+        final Point2D[] points = trajectory.toArray();
+
+        Assertions.assertEquals(2, points.length);
+        Assertions.assertEquals(new Point2D(1, 5), points[0]);
+        Assertions.assertEquals(new Point2D(2, 0), points[1]);
+    }
+
+    @Test
+    void testDecimatesStraightLegs() {
+        final Trajectory trajectory = new Trajectory(16, 0.01);
+
+        for (int i = 0; i <= 10; i++) {
+            trajectory.append(i, 0);
+        }
+
+        Assertions.assertEquals(2, trajectory.size());
+        Assertions.assertEquals(0, trajectory.getX(0));
+        Assertions.assertEquals(10, trajectory.getX(1));
+
+        trajectory.append(10, 10);
+
+        Assertions.assertEquals(3, trajectory.size());
+        Assertions.assertEquals(10, trajectory.getY(2));
+    }
+
+    @Test
+    void testDecimatesStationaryPositions() {
+        final Trajectory trajectory = new Trajectory(16, 0.01);
+
+        for (int i = 0; i < 10; i++) {
+            trajectory.append(5, 5);
+        }
+
+        Assertions.assertEquals(2, trajectory.size());
+    }
+
+    @Test
+    void testKeepsReversal() {
+        final Trajectory trajectory = new Trajectory(16, 0.01);
+
+        trajectory.append(0, 0);
+        trajectory.append(10, 0);
+        trajectory.append(5, 0);
+
+        Assertions.assertEquals(3, trajectory.size());
+    }
+
+    @Test
+    void testErrorIsBoundedOnSlowCurves() {
+        final double tolerance = 0.01;
+        final Trajectory trajectory = new Trajectory(256, tolerance);
+        final List<Point2D> recorded = new ArrayList<>();
+
+        for (int i = 0; i <= 200; i++) {
+            final double angle = Math.toRadians(i * 0.25);
+            final Point2D point = new Point2D(10 * Math.cos(angle), 10 * Math.sin(angle));
+            recorded.add(point);
+            trajectory.append(point);
+        }
+
+        Assertions.assertTrue(trajectory.size() < recorded.size());
+
+        for (final Point2D point : recorded) {
+            Assertions.assertTrue(distance(trajectory, point) <= tolerance + 1e-4, point::toString);
+        }
+    }
+
+    @Test
+    void testKeepsPositionWhenReplacedPositionsAreExhausted() {
+        final Trajectory trajectory = new Trajectory(256, 0.01);
+
+        for (int i = 0; i <= Trajectory.MAX_REPLACED + 2; i++) {
+            trajectory.append(i, 0);
+        }
+
+        Assertions.assertEquals(3, trajectory.size());
+    }
+
+    @Test
+    void testIgnoresNull() {
+        final Trajectory trajectory = new Trajectory(16, 0.01);
+
+        trajectory.append(null);
+
+        Assertions.assertTrue(trajectory.isEmpty());
+    }
+
+    private static double distance(final Trajectory trajectory, final Point2D point) {
+        double result = Double.POSITIVE_INFINITY;
+
+        for (int i = 1; i < trajectory.size(); i++) {
+            final Point2D a = trajectory.get(i - 1);
+            final Point2D b = trajectory.get(i);
+            final Point2D ab = b.subtract(a);
+            final double t = Math.max(0, Math.min(1, point.subtract(a).dotProduct(ab) / ab.dotProduct(ab)));
+            result = Math.min(result, a.add(ab.multiply(t)).distance(point));
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,34 @@
+package net.marvk.fs.vatsim.map.view.painter;
+
+import net.marvk.fs.vatsim.map.view.map.MapVariables;
+import net.marvk.fs.vatsim.map.view.map.PainterMetric;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DrawCommandBufferTest {
+    @Test
+    void testReplaysRecordedFrame() {
+        final DrawCommandBuffer buffer = new DrawCommandBuffer(new MapVariables());
+
+        Assertions.assertFalse(buffer.beginFrame(0));
+        Assertions.assertFalse(buffer.beginFrame(0));
+
+        buffer.replay(null, new PainterMetric());
+
+        Assertions.assertTrue(buffer.beginFrame(0));
+    }
+
+    @Test
+    void testChangedInputVersionInvalidatesReplay() {
+        final DrawCommandBuffer buffer = new DrawCommandBuffer(new MapVariables());
+
+        buffer.beginFrame(0);
+        buffer.replay(null, new PainterMetric());
+
+        Assertions.assertFalse(buffer.beginFrame(1));
+
+        buffer.replay(null, new PainterMetric());
+
+        Assertions.assertTrue(buffer.beginFrame(1));
+    }
+}